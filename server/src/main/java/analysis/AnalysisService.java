@@ -0,0 +1,179 @@
+package analysis;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessSearch;
+import chess.InvalidMoveException;
+import chess.SearchResult;
+import chess.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Multi-line analysis of positions and whole games for post-game review.
+ * <p>
+ * Every position of every request becomes its own task on one bounded worker pool,
+ * so the positions of many games are worked through together instead of one game
+ * at a time. All workers share one transposition table, which lets positions from
+ * the same game reuse each other's results. Requests return a future right away and
+ * report each completed depth through their update consumer, which may be called
+ * from several worker threads at once.
+ */
+public class AnalysisService implements AutoCloseable
+{
+
+    private final ThreadPoolExecutor executor;
+    private final TranspositionTable sharedTable;
+    private final ThreadLocal<ChessSearch> workerSearch;
+
+    /**
+     * @param workerCount        threads searching positions
+     * @param queueCapacity      most positions allowed to wait for a worker
+     * @param hashTableMegabytes size of the shared transposition table
+     */
+    public AnalysisService(int workerCount, int queueCapacity, int hashTableMegabytes)
+    {
+        sharedTable = new TranspositionTable(hashTableMegabytes);
+        workerSearch = ThreadLocal.withInitial(() -> {
+            ChessSearch search = new ChessSearch();
+            search.setTranspositionTable(sharedTable);
+            return search;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "analysis-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Analyzes one position
+     *
+     * @param position position to analyze, copied before this method returns
+     * @param settings lines, depth and time per position
+     * @param updates  receives progress after each completed depth
+     * @return future completed with the final lines, best first
+     */
+    public CompletableFuture<List<SearchResult>> analyzePosition(ChessGame position, AnalysisSettings settings,
+                                                                 Consumer<AnalysisUpdate> updates)
+    {
+        return analyzeGame(position, List.of(), settings, updates).thenApply(results -> results.get(0));
+    }
+
+    /**
+     * Analyzes every position of a game, from the standard starting position
+     *
+     * @param moves    moves of the game in order
+     * @param settings lines, depth and time per position
+     * @param updates  receives progress after each completed depth of each position
+     * @return future completed with the final lines for each position, indexed by ply
+     */
+    public CompletableFuture<List<List<SearchResult>>> analyzeGame(List<ChessMove> moves, AnalysisSettings settings,
+                                                                   Consumer<AnalysisUpdate> updates)
+    {
+        return analyzeGame(new ChessGame(), moves, settings, updates);
+    }
+
+    // Method to queue the position before each move and after the last one
+    private CompletableFuture<List<List<SearchResult>>> analyzeGame(ChessGame start, List<ChessMove> moves,
+                                                                    AnalysisSettings settings,
+                                                                    Consumer<AnalysisUpdate> updates)
+    {
+        CompletableFuture<List<List<SearchResult>>> result = new CompletableFuture<>();
+        List<ChessGame> positions = new ArrayList<>();
+        ChessGame replay = start.copy();
+        positions.add(replay.copy());
+        try
+        {
+            for (ChessMove move : moves)
+            {
+                replay.makeMove(move);
+                positions.add(replay.copy());
+            }
+        }
+        catch (InvalidMoveException e)
+        {
+            result.completeExceptionally(e);
+            return result;
+        }
+        if (executor.getQueue().remainingCapacity() < positions.size())
+        {
+            result.completeExceptionally(new RejectedExecutionException("Analysis queue is full"));
+            return result;
+        }
+
+        int totalPositions = positions.size();
+        List<List<SearchResult>> results = new ArrayList<>(totalPositions);
+        for (int i = 0; i < totalPositions; i++)
+        {
+            results.add(null);
+        }
+        AtomicInteger completedPositions = new AtomicInteger();
+        try
+        {
+            for (int ply = 0; ply < totalPositions; ply++)
+            {
+                int positionPly = ply;
+                ChessGame position = positions.get(ply);
+                executor.execute(() -> {
+                    if (result.isDone())
+                    {
+                        return; // Cancelled or failed while queued
+                    }
+                    try
+                    {
+                        List<SearchResult> lines = workerSearch.get().searchMultiPv(position, settings.lineCount(),
+                                settings.maxDepth(), settings.timeLimitMillis(), result::isDone,
+                                iteration -> updates.accept(new AnalysisUpdate(positionPly, iteration, false,
+                                        completedPositions.get(), totalPositions)));
+                        synchronized (results)
+                        {
+                            results.set(positionPly, lines);
+                        }
+                        int completed = completedPositions.incrementAndGet();
+                        updates.accept(new AnalysisUpdate(positionPly, lines, true, completed, totalPositions));
+                        if (completed == totalPositions)
+                        {
+                            synchronized (results)
+                            {
+                                result.complete(List.copyOf(results));
+                            }
+                        }
+                    }
+                    catch (RuntimeException e)
+                    {
+                        result.completeExceptionally(e);
+                    }
+                });
+            }
+        }
+        catch (RejectedExecutionException e)
+        {
+            result.completeExceptionally(e); // Positions already queued see the failure and skip themselves
+        }
+        return result;
+    }
+
+    // Method to get the number of positions waiting for a worker
+    public int getQueuedPositions()
+    {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
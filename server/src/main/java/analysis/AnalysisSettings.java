@@ -0,0 +1,12 @@
+package analysis;
+
+/**
+ * How each position of an analysis request is searched
+ *
+ * @param lineCount       number of best moves to report per position
+ * @param maxDepth        deepest search iteration
+ * @param timeLimitMillis wall time budget per position, or 0 for no limit
+ */
+public record AnalysisSettings(int lineCount, int maxDepth, long timeLimitMillis)
+{
+}
@@ -0,0 +1,19 @@
+package analysis;
+
+import chess.SearchResult;
+
+import java.util.List;
+
+/**
+ * Progress report for an analysis request, sent after every completed search depth
+ *
+ * @param ply                number of moves played before the analyzed position, 0 for the start
+ * @param lines              best lines found so far for that position, best first
+ * @param positionComplete   true if this is the final result for the position
+ * @param completedPositions positions of the request finished so far
+ * @param totalPositions     positions in the request
+ */
+public record AnalysisUpdate(int ply, List<SearchResult> lines, boolean positionComplete,
+                             int completedPositions, int totalPositions)
+{
+}
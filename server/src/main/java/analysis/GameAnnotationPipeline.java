@@ -0,0 +1,257 @@
+package analysis;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessSearch;
+import chess.InvalidMoveException;
+import chess.SearchResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Offline job that annotates archived games with an evaluation of every move.
+ * <p>
+ * The archive is a text file with one game per line, written as space-separated
+ * coordinate moves ("e2e4 e7e5 g1f3 ..."). Each game is replayed through ChessGame,
+ * every position is searched to a fixed depth, and moves that throw away at least
+ * BLUNDER_THRESHOLD centipawns are flagged. Games are spread over a ForkJoinPool down
+ * to one game per task, so work stealing keeps every core busy even though games
+ * differ a lot in length.
+ * <p>
+ * The archive is streamed in batches of BATCH_SIZE games, and each batch is written out
+ * as soon as it is done, so memory stays flat however many games the archive holds.
+ * The next batch is already running while one is written, so the cores are not left
+ * idle waiting for a batch's longest game.
+ * <p>
+ * The output is tab-separated, one line per move: game number, ply, move played,
+ * evaluation after the move from white's point of view, the engine's preferred move,
+ * and "blunder" when the move was flagged.
+ * <p>
+ * Usage: GameAnnotationPipeline &lt;archive&gt; &lt;output&gt; [depth]
+ */
+public class GameAnnotationPipeline
+{
+
+    // Loss in centipawns, from the mover's point of view, that marks a move as a blunder
+    public static final int BLUNDER_THRESHOLD = 200;
+
+    private static final int DEFAULT_DEPTH = 3;
+
+    // Games read and annotated together; two batches are held in memory at most
+    private static final int BATCH_SIZE = 256;
+
+    // One annotated move
+    public record MoveAnnotation(int ply, ChessMove move, int whiteScore, ChessMove bestMove, boolean blunder)
+    {
+    }
+
+    // A batch of games being annotated, numbered from firstGame
+    private record Batch(long firstGame, List<List<MoveAnnotation>> annotations, ForkJoinTask<?> task)
+    {
+    }
+
+    private final ForkJoinPool pool;
+    private final int depth;
+    private final ThreadLocal<ChessSearch> workerSearch = ThreadLocal.withInitial(ChessSearch::new);
+
+    public GameAnnotationPipeline(ForkJoinPool pool, int depth)
+    {
+        this.pool = pool;
+        this.depth = depth;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: GameAnnotationPipeline <archive> <output> [depth]");
+            return;
+        }
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        new GameAnnotationPipeline(ForkJoinPool.commonPool(), depth).run(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    /**
+     * Annotates every game of an archive file
+     *
+     * @param archive file with one game per line
+     * @param output  file to write the annotations to
+     * @throws IOException if either file cannot be used
+     */
+    public void run(Path archive, Path output) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(archive);
+             BufferedWriter writer = Files.newBufferedWriter(output))
+        {
+            long firstGame = 0;
+            Batch previous = null;
+            List<String> games;
+            while (!(games = readBatch(reader)).isEmpty())
+            {
+                Batch current = submitBatch(games, firstGame);
+                firstGame += games.size();
+                if (previous != null)
+                {
+                    writeBatch(previous, writer);
+                }
+                previous = current;
+            }
+            if (previous != null)
+            {
+                writeBatch(previous, writer);
+            }
+        }
+    }
+
+    // Method to read up to BATCH_SIZE games, returning an empty list at the end of the archive
+    private static List<String> readBatch(BufferedReader reader) throws IOException
+    {
+        List<String> games = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while (games.size() < BATCH_SIZE && (line = reader.readLine()) != null)
+        {
+            games.add(line);
+        }
+        return games;
+    }
+
+    // Method to start annotating a batch without waiting for it
+    private Batch submitBatch(List<String> games, long firstGame)
+    {
+        List<List<MoveAnnotation>> annotations = emptyAnnotations(games.size());
+        return new Batch(firstGame, annotations, pool.submit(new AnnotateTask(games, annotations, 0, games.size())));
+    }
+
+    // Method to wait for a batch and write its annotations
+    private static void writeBatch(Batch batch, BufferedWriter writer) throws IOException
+    {
+        batch.task().join();
+        List<List<MoveAnnotation>> annotations = batch.annotations();
+        for (int i = 0; i < annotations.size(); i++)
+        {
+            long game = batch.firstGame() + i;
+            for (MoveAnnotation annotation : annotations.get(i))
+            {
+                writer.write(game + "\t" + annotation.ply() + "\t" + annotation.move().toNotation() + "\t"
+                        + annotation.whiteScore() + "\t"
+                        + ((annotation.bestMove() == null) ? "-" : annotation.bestMove().toNotation())
+                        + (annotation.blunder() ? "\tblunder" : ""));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Annotates games in parallel
+     *
+     * @param games games as space-separated coordinate moves
+     * @return annotations for each game, in the same order
+     */
+    public List<List<MoveAnnotation>> annotateAll(List<String> games)
+    {
+        List<List<MoveAnnotation>> annotations = emptyAnnotations(games.size());
+        pool.invoke(new AnnotateTask(games, annotations, 0, games.size()));
+        return annotations;
+    }
+
+    // Method to make a list with an empty annotation list per game, filled in by AnnotateTask
+    private static List<List<MoveAnnotation>> emptyAnnotations(int gameCount)
+    {
+        List<List<MoveAnnotation>> annotations = new ArrayList<>(gameCount);
+        for (int i = 0; i < gameCount; i++)
+        {
+            annotations.add(List.of());
+        }
+        return annotations;
+    }
+
+    /**
+     * Replays one game and annotates each move; a game with an unreadable or invalid
+     * move is annotated up to that move
+     *
+     * @param gameText game as space-separated coordinate moves
+     * @return the annotations in move order
+     */
+    public List<MoveAnnotation> annotateGame(String gameText)
+    {
+        List<MoveAnnotation> annotations = new ArrayList<>();
+        ChessSearch search = workerSearch.get();
+        search.clear();
+        ChessGame game = new ChessGame();
+        SearchResult before = search.search(game, depth, 0);
+        int ply = 0;
+        for (String notation : gameText.trim().split("\\s+"))
+        {
+            if (notation.isEmpty())
+            {
+                continue;
+            }
+            ChessGame.TeamColor mover = game.getTeamTurn();
+            ChessMove move;
+            try
+            {
+                move = ChessMove.fromNotation(notation);
+                game.makeMove(move);
+            }
+            catch (IllegalArgumentException | InvalidMoveException e)
+            {
+                break;
+            }
+
+            SearchResult after = search.search(game, depth, 0);
+            int moverScoreAfter = -after.score();
+            boolean blunder = before.score() - moverScoreAfter >= BLUNDER_THRESHOLD;
+            int whiteScore = (mover == ChessGame.TeamColor.WHITE) ? moverScoreAfter : -moverScoreAfter;
+            annotations.add(new MoveAnnotation(ply, move, whiteScore, before.bestMove(), blunder));
+            before = after;
+            ply++;
+        }
+        return annotations;
+    }
+
+    // Splits a range of games in half until a single game is left
+    private class AnnotateTask extends RecursiveAction
+    {
+        private final List<String> games;
+        private final List<List<MoveAnnotation>> annotations;
+        private final int start;
+        private final int end;
+
+        AnnotateTask(List<String> games, List<List<MoveAnnotation>> annotations, int start, int end)
+        {
+            this.games = games;
+            this.annotations = annotations;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (end - start > 1)
+            {
+                int middle = (start + end) >>> 1;
+                invokeAll(new AnnotateTask(games, annotations, start, middle),
+                        new AnnotateTask(games, annotations, middle, end));
+                return;
+            }
+            if (end > start)
+            {
+                List<MoveAnnotation> gameAnnotations = annotateGame(games.get(start));
+                synchronized (annotations)
+                {
+                    annotations.set(start, gameAnnotations);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package analysis;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessSearch;
+import chess.InvalidMoveException;
+import chess.SearchResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batch job that finds tactical puzzles in archived games.
+ * <p>
+ * The archive has the same format as for GameAnnotationPipeline, one game per line of
+ * coordinate moves. It is read line by line and each game is handed to a worker pool
+ * with a small bounded queue; when the queue is full the reading thread mines the game
+ * itself, which keeps memory flat however large the archive is.
+ * <p>
+ * Every position of a game is searched for its two best moves. A position is a puzzle
+ * when the best move wins at least WINNING_SCORE, the second best does not, and a
+ * one-ply search misses the win, so the solver really has to find one line. The
+ * solution is the best line, cut to end on the solver's move.
+ * <p>
+ * Usage: PuzzleMiner &lt;archive&gt; &lt;store directory&gt; [depth]
+ */
+public class PuzzleMiner implements AutoCloseable
+{
+
+    // Centipawns the solver must win for a position to count as a puzzle
+    public static final int WINNING_SCORE = 300;
+
+    // Most the second best move may score so the winning line is unique
+    public static final int SECOND_BEST_LIMIT = 100;
+
+    private static final int DEFAULT_DEPTH = 4;
+
+    // Opening positions are skipped, they are rarely tactical and repeat across games
+    private static final int FIRST_PLY = 8;
+
+    private final ThreadPoolExecutor executor;
+    private final PuzzleStore store;
+    private final int depth;
+    private final ThreadLocal<ChessSearch> workerSearch = ThreadLocal.withInitial(ChessSearch::new);
+
+    /**
+     * @param workerCount   threads mining games
+     * @param queueCapacity games allowed to wait for a worker
+     * @param depth         search depth used to verify puzzles
+     * @param store         store the puzzles are added to
+     */
+    public PuzzleMiner(int workerCount, int queueCapacity, int depth, PuzzleStore store)
+    {
+        this.store = store;
+        this.depth = depth;
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "puzzle-miner-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: PuzzleMiner <archive> <store directory> [depth]");
+            return;
+        }
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        int workers = Runtime.getRuntime().availableProcessors();
+        try (PuzzleStore store = new PuzzleStore(Path.of(args[1]));
+             PuzzleMiner miner = new PuzzleMiner(workers, workers * 2, depth, store))
+        {
+            long found = miner.mine(Path.of(args[0]));
+            System.out.println("Added " + found + " puzzles, " + store.size() + " in the store");
+        }
+    }
+
+    /**
+     * Mines every game of an archive, returning once all of them are done
+     *
+     * @param archive file with one game per line
+     * @return number of new puzzles added to the store
+     * @throws IOException if the archive cannot be read or the store cannot be written
+     */
+    public long mine(Path archive) throws IOException
+    {
+        AtomicLong added = new AtomicLong();
+        List<IOException> failures = new ArrayList<>();
+        Phaser pending = new Phaser(1);
+        try (BufferedReader reader = Files.newBufferedReader(archive))
+        {
+            String line;
+            long gameNumber = 0;
+            while ((line = reader.readLine()) != null)
+            {
+                String gameText = line;
+                long sourceGame = gameNumber++;
+                pending.register();
+                executor.execute(() -> {
+                    try
+                    {
+                        for (PuzzleStore.Puzzle puzzle : findPuzzles(gameText, sourceGame))
+                        {
+                            if (store.add(puzzle))
+                            {
+                                added.incrementAndGet();
+                            }
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        synchronized (failures)
+                        {
+                            failures.add(e);
+                        }
+                    }
+                    finally
+                    {
+                        pending.arriveAndDeregister();
+                    }
+                });
+            }
+        }
+        finally
+        {
+            pending.arriveAndAwaitAdvance();
+        }
+        if (!failures.isEmpty())
+        {
+            throw failures.get(0);
+        }
+        return added.get();
+    }
+
+    /**
+     * Replays one game and collects its puzzles; a game with an unreadable or invalid
+     * move is mined up to that move
+     *
+     * @param gameText   game as space-separated coordinate moves
+     * @param sourceGame number of the game in its archive
+     * @return the puzzles in move order
+     */
+    public List<PuzzleStore.Puzzle> findPuzzles(String gameText, long sourceGame)
+    {
+        List<PuzzleStore.Puzzle> puzzles = new ArrayList<>();
+        ChessSearch search = workerSearch.get();
+        search.clear();
+        ChessGame game = new ChessGame();
+        int ply = 0;
+        for (String notation : gameText.trim().split("\\s+"))
+        {
+            if (notation.isEmpty())
+            {
+                continue;
+            }
+            if (ply >= FIRST_PLY)
+            {
+                PuzzleStore.Puzzle puzzle = puzzleAt(search, game, sourceGame, ply);
+                if (puzzle != null)
+                {
+                    puzzles.add(puzzle);
+                }
+            }
+            try
+            {
+                game.makeMove(ChessMove.fromNotation(notation));
+            }
+            catch (IllegalArgumentException | InvalidMoveException e)
+            {
+                break;
+            }
+            ply++;
+        }
+        return puzzles;
+    }
+
+    // Method to check whether a position has exactly one winning move that needs calculation
+    private PuzzleStore.Puzzle puzzleAt(ChessSearch search, ChessGame game, long sourceGame, int ply)
+    {
+        SearchResult shallow = search.search(game, 1, 0);
+        if (shallow == null || shallow.score() >= WINNING_SCORE)
+        {
+            return null; // Already winning, or won by the first capture in sight
+        }
+        List<SearchResult> lines = search.searchMultiPv(game, 2, depth, 0, () -> false, null);
+        if (lines.size() < 2 || lines.get(0).score() < WINNING_SCORE || lines.get(1).score() > SECOND_BEST_LIMIT)
+        {
+            return null;
+        }
+        List<ChessMove> solution = lines.get(0).principalVariation();
+        solution = solution.subList(0, solution.size() - ((solution.size() % 2 == 0) ? 1 : 0));
+        return new PuzzleStore.Puzzle(game.toFen(ply / 2 + 1), game.getPositionHash(), List.copyOf(solution),
+                sourceGame, ply);
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,216 @@
+package analysis;
+
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Append-only store of puzzles on disk.
+ * <p>
+ * Puzzles are kept in two files in one directory. The data file holds one puzzle per
+ * line: FEN, solution moves in coordinate notation, source game and ply, separated by
+ * tabs. The index file holds one 16-byte entry per puzzle: the position hash and the
+ * offset of the puzzle's line in the data file. That lets any puzzle be read by number
+ * with a single seek, and lets a puzzle that is already stored be skipped by hash.
+ * <p>
+ * A puzzle's line is written before its index entry. A crash between the two, or part
+ * way through either, leaves a line with no entry or a partial entry; opening the store
+ * cuts both files back to the end of the last complete, indexed puzzle.
+ */
+public class PuzzleStore implements AutoCloseable
+{
+
+    public static final String DATA_FILE = "puzzles.tsv";
+    public static final String INDEX_FILE = "puzzles.idx";
+
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    // One mined puzzle; the solution starts and ends with the solver's move, the opponent's replies in between
+    public record Puzzle(String fen, long positionHash, List<ChessMove> solution, long sourceGame, int ply)
+    {
+    }
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final Set<Long> storedHashes = new HashSet<>();
+    private int count;
+
+    // End of the last indexed line; anything after it in the data file is a leftover from a failed add
+    private long dataEnd;
+    private final ByteBuffer indexEntry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+
+    /**
+     * Opens a store, creating its files if needed
+     *
+     * @param directory directory holding the store's files
+     * @throws IOException if the files cannot be opened
+     */
+    public PuzzleStore(Path directory) throws IOException
+    {
+        Files.createDirectories(directory);
+        data = FileChannel.open(directory.resolve(DATA_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        index = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        count = (int) (index.size() / INDEX_ENTRY_SIZE); // A partial last entry is dropped
+        ByteBuffer entries = ByteBuffer.allocate(count * INDEX_ENTRY_SIZE);
+        while (entries.hasRemaining() && index.read(entries, entries.position()) >= 0)
+        {
+            // Keep reading until every entry is in
+        }
+        entries.flip();
+
+        // Drop entries whose line never reached the data file whole, then the leftovers after the last line
+        while (count > 0)
+        {
+            long lineEnd = lineEnd(entries.getLong((count - 1) * INDEX_ENTRY_SIZE + 8));
+            if (lineEnd >= 0)
+            {
+                dataEnd = lineEnd;
+                break;
+            }
+            count--;
+        }
+        index.truncate((long) count * INDEX_ENTRY_SIZE);
+        data.truncate(dataEnd);
+        for (int i = 0; i < count; i++)
+        {
+            storedHashes.add(entries.getLong(i * INDEX_ENTRY_SIZE));
+        }
+    }
+
+    // Method to find where the data line starting at an offset ends, after its newline, or -1 if it has none
+    private long lineEnd(long start) throws IOException
+    {
+        ByteBuffer chunk = ByteBuffer.allocate(4096);
+        long position = start;
+        while (data.read(chunk.clear(), position) > 0)
+        {
+            chunk.flip();
+            for (int i = 0; i < chunk.limit(); i++)
+            {
+                if (chunk.get(i) == '\n')
+                {
+                    return position + i + 1;
+                }
+            }
+            position += chunk.limit();
+        }
+        return -1;
+    }
+
+    /**
+     * Appends a puzzle unless its position is already stored
+     *
+     * @param puzzle puzzle to store
+     * @return true if the puzzle was added
+     * @throws IOException if the store cannot be written
+     */
+    public synchronized boolean add(Puzzle puzzle) throws IOException
+    {
+        if (!storedHashes.add(puzzle.positionHash()))
+        {
+            return false;
+        }
+        StringBuilder line = new StringBuilder(puzzle.fen()).append('\t');
+        for (int i = 0; i < puzzle.solution().size(); i++)
+        {
+            line.append((i == 0) ? "" : " ").append(puzzle.solution().get(i).toNotation());
+        }
+        line.append('\t').append(puzzle.sourceGame()).append('\t').append(puzzle.ply()).append('\n');
+
+        // Written at the end of the last indexed line, over whatever a failed add left behind
+        long offset = dataEnd;
+        ByteBuffer bytes = ByteBuffer.wrap(line.toString().getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            while (bytes.hasRemaining())
+            {
+                data.write(bytes, offset + bytes.position());
+            }
+            indexEntry.clear();
+            indexEntry.putLong(puzzle.positionHash()).putLong(offset).flip();
+            long indexOffset = (long) count * INDEX_ENTRY_SIZE;
+            while (indexEntry.hasRemaining())
+            {
+                index.write(indexEntry, indexOffset + indexEntry.position());
+            }
+        }
+        catch (IOException e)
+        {
+            storedHashes.remove(puzzle.positionHash());
+            throw e;
+        }
+        dataEnd = offset + bytes.limit();
+        count++;
+        return true;
+    }
+
+    /**
+     * Reads a puzzle by number
+     *
+     * @param number position of the puzzle in the store, starting at 0
+     * @return the stored puzzle
+     * @throws IOException if the store cannot be read
+     */
+    public synchronized Puzzle get(int number) throws IOException
+    {
+        if (number < 0 || number >= size())
+        {
+            throw new IndexOutOfBoundsException("No puzzle " + number);
+        }
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE * 2);
+        index.read(entry, (long) number * INDEX_ENTRY_SIZE);
+        entry.flip();
+        long positionHash = entry.getLong();
+        long start = entry.getLong();
+        long end = dataEnd;
+        if (number + 1 < count)
+        {
+            entry.getLong();
+            end = entry.getLong(); // The next puzzle starts where this one ends
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        while (bytes.hasRemaining() && data.read(bytes, start + bytes.position()) >= 0)
+        {
+            // Keep reading until the whole line is in
+        }
+        String[] fields = new String(bytes.array(), StandardCharsets.UTF_8).trim().split("\t");
+        List<ChessMove> solution = new ArrayList<>();
+        for (String move : fields[1].split(" "))
+        {
+            solution.add(ChessMove.fromNotation(move));
+        }
+        return new Puzzle(fields[0], positionHash, solution, Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+    }
+
+    // Method to check whether a position is already stored as a puzzle
+    public synchronized boolean contains(long positionHash)
+    {
+        return storedHashes.contains(positionHash);
+    }
+
+    // Method to get the number of stored puzzles
+    public synchronized int size()
+    {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        data.close();
+        index.close();
+    }
+}
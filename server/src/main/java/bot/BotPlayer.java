@@ -0,0 +1,217 @@
+package bot;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.SearchResult;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A bot seated as one player of a game.
+ * <p>
+ * The game connection treats the bot like any other player: after it loads the game
+ * (CONNECT) it calls onGameUpdate, after each opponent MAKE_MOVE it calls
+ * onOpponentMove, and it sends the move the returned future completes with as the
+ * bot's own MAKE_MOVE.
+ * <p>
+ * Positions found in the opening book, if one is set, are answered without searching.
+ * While the opponent thinks, the bot ponders: as soon as its own search finishes it
+ * searches the position after its move and the reply that search expected. If that
+ * reply is the one played, the pondered search is answered right away instead of
+ * starting a new one. Ponders run on BotPool's speculative budget and are dropped
+ * when the pool needs the room for real searches.
+ */
+public class BotPlayer
+{
+
+    private final String username;
+    private final ChessGame.TeamColor color;
+    private final BotStrength strength;
+    private final BotPool pool;
+
+    // Opponent reply predicted by the bot's last search, and the search running on it
+    private ChessMove ponderMove;
+    private CompletableFuture<SearchResult> ponderSearch;
+
+    // Bumped whenever pondering is cancelled, so a search finishing afterwards starts no ponder
+    private int ponderGeneration;
+
+    // Optional book answered from before any search is started
+    private OpeningBook openingBook;
+
+    private int ponderHits;
+    private int ponderMisses;
+
+    public BotPlayer(String username, ChessGame.TeamColor color, BotStrength strength, BotPool pool)
+    {
+        this.username = username;
+        this.color = color;
+        this.strength = strength;
+        this.pool = pool;
+    }
+
+    /**
+     * Reacts to the game being loaded or changed: searches if it is the bot's turn,
+     * otherwise starts pondering on the predicted reply
+     *
+     * @param game current state of the game
+     * @return future completed with the bot's move, or null if it is not the bot's turn
+     */
+    public synchronized CompletableFuture<ChessMove> onGameUpdate(ChessGame game)
+    {
+        if (game.getTeamTurn() != color)
+        {
+            startPondering(game, strengthFor(game));
+            return null;
+        }
+        cancelPondering();
+        if (openingBook != null)
+        {
+            ChessMove bookMove = openingBook.findMove(game);
+            if (bookMove != null)
+            {
+                return CompletableFuture.completedFuture(bookMove);
+            }
+        }
+        return answerWith(pool.submitSearch(game, strengthFor(game)), game);
+    }
+
+    /**
+     * Reacts to the opponent's move, reusing the pondered search if the move was predicted
+     *
+     * @param move move the opponent just made
+     * @param game state of the game after that move
+     * @return future completed with the bot's move
+     */
+    public synchronized CompletableFuture<ChessMove> onOpponentMove(ChessMove move, ChessGame game)
+    {
+        if (ponderSearch != null && move.equals(ponderMove) && !ponderSearch.isCompletedExceptionally())
+        {
+            ponderHits++;
+            CompletableFuture<SearchResult> pondered = ponderSearch;
+            ponderSearch = null;
+            ponderMove = null;
+            return answerWith(pondered, game);
+        }
+        if (ponderSearch != null)
+        {
+            ponderMisses++;
+        }
+        return onGameUpdate(game);
+    }
+
+    // Method to stop any speculative search, e.g. when the game ends or the bot leaves
+    public synchronized void cancelPondering()
+    {
+        if (ponderSearch != null)
+        {
+            ponderSearch.cancel(false);
+        }
+        ponderSearch = null;
+        ponderMove = null;
+        ponderGeneration++;
+    }
+
+    // Method to search the position after the predicted reply, if no ponder is running yet
+    private void startPondering(ChessGame game, BotStrength ponderStrength)
+    {
+        if (ponderMove == null || ponderSearch != null)
+        {
+            return;
+        }
+        ChessGame expectedGame = game.copy();
+        try
+        {
+            expectedGame.makeMove(ponderMove);
+        }
+        catch (InvalidMoveException e)
+        {
+            ponderMove = null;
+            return;
+        }
+        ponderSearch = pool.submitPonder(expectedGame, ponderStrength);
+    }
+
+    // Method to limit the search to what the bot's clock allows in timed games
+    private BotStrength strengthFor(ChessGame game)
+    {
+        ChessClock clock = game.getClock();
+        return (clock == null) ? strength : strength.withinClock(clock, color, ChessClock.currentMillis());
+    }
+
+    // Method to turn a search into the bot's move, pondering on the reply it expects next
+    private CompletableFuture<ChessMove> answerWith(CompletableFuture<SearchResult> search, ChessGame game)
+    {
+        ChessGame position = game.copy();
+        int generation = ponderGeneration;
+        return search.thenApply(result -> {
+            List<ChessMove> line = result.principalVariation();
+            synchronized (this)
+            {
+                if (generation == ponderGeneration && line.size() > 1)
+                {
+                    ponderMove = line.get(1);
+                    ponderAfter(position, result.bestMove(), game);
+                }
+            }
+            return result.bestMove();
+        });
+    }
+
+    // Method to start pondering from the position the bot is about to move in
+    private void ponderAfter(ChessGame position, ChessMove botMove, ChessGame game)
+    {
+        try
+        {
+            position.makeMove(botMove);
+        }
+        catch (InvalidMoveException e)
+        {
+            ponderMove = null;
+            return;
+        }
+        startPondering(position, strengthFor(game));
+    }
+
+    // Method to let the bot answer positions in the book without searching
+    public synchronized void setOpeningBook(OpeningBook openingBook)
+    {
+        this.openingBook = openingBook;
+    }
+
+    // Method to get the opponent reply the bot is pondering on, or null if none
+    synchronized ChessMove getPonderMove()
+    {
+        return ponderMove;
+    }
+
+    // Method to get how many opponent moves were answered from a pondered search
+    public synchronized int getPonderHits()
+    {
+        return ponderHits;
+    }
+
+    // Method to get how many opponent moves were not the predicted reply
+    public synchronized int getPonderMisses()
+    {
+        return ponderMisses;
+    }
+
+    public String getUsername()
+    {
+        return username;
+    }
+
+    public ChessGame.TeamColor getColor()
+    {
+        return color;
+    }
+
+    public BotStrength getStrength()
+    {
+        return strength;
+    }
+}
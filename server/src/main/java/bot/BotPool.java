@@ -0,0 +1,212 @@
+package bot;
+
+import chess.ChessGame;
+import chess.ChessSearch;
+import chess.NnueNetwork;
+import chess.SearchResult;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bot searches on a fixed set of low-priority worker threads.
+ * <p>
+ * The worker count is the global CPU budget for all bots together and is kept below
+ * the number of cores, so searches never compete with the threads handling HTTP and
+ * WebSocket requests. Pending searches wait in a bounded queue; once it is full new
+ * requests fail fast with a RejectedExecutionException instead of piling up.
+ * <p>
+ * Ponder searches, run speculatively while an opponent thinks, have their own budget of
+ * half the workers, and a real search that finds the queue full cancels them to make
+ * room, so speculation never costs a bot its actual move.
+ */
+public class BotPool implements AutoCloseable
+{
+
+    private final ThreadPoolExecutor executor;
+
+    // Each worker keeps its own search so killer and history tables are reused between moves
+    private final ThreadLocal<ChessSearch> workerSearch;
+
+    // Ponder searches queued or running, and the permits bounding how many there may be
+    private final Set<SearchTask> ponderTasks = ConcurrentHashMap.newKeySet();
+    private final Semaphore ponderPermits;
+
+    /**
+     * @param cpuBudget     most cores bot searches may use at once
+     * @param queueCapacity most searches allowed to wait for a free worker
+     */
+    public BotPool(int cpuBudget, int queueCapacity)
+    {
+        this(cpuBudget, queueCapacity, null);
+    }
+
+    /**
+     * @param cpuBudget     most cores bot searches may use at once
+     * @param queueCapacity most searches allowed to wait for a free worker
+     * @param network       evaluation network shared by all workers, or null for the handcrafted evaluation
+     */
+    public BotPool(int cpuBudget, int queueCapacity, NnueNetwork network)
+    {
+        workerSearch = ThreadLocal.withInitial(() -> {
+            ChessSearch search = new ChessSearch();
+            if (network != null)
+            {
+                search.setEvaluator(network.newEvaluator());
+            }
+            return search;
+        });
+        int reservedForRequests = 1;
+        int workerCount = Math.max(1, Math.min(cpuBudget, Runtime.getRuntime().availableProcessors() - reservedForRequests));
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new BotThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        ponderPermits = new Semaphore(Math.max(1, workerCount / 2));
+    }
+
+    /**
+     * Searches the game's current position on a bot worker
+     *
+     * @param game     game to pick a move in, copied before this method returns
+     * @param strength how deep or long to search
+     * @return future completed with the search result, or exceptionally if the pool is saturated;
+     * cancelling it frees the worker
+     */
+    public CompletableFuture<SearchResult> submitSearch(ChessGame game, BotStrength strength)
+    {
+        SearchTask task = new SearchTask(game.copy(), strength);
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Speculative searches give way to real ones before the request is refused
+            cancelPonders();
+            try
+            {
+                executor.execute(task);
+            }
+            catch (RejectedExecutionException again)
+            {
+                task.result.completeExceptionally(again);
+            }
+        }
+        return task.result;
+    }
+
+    /**
+     * Searches a position speculatively, e.g. the one after an opponent's expected reply.
+     * Ponders use at most half the workers and are cancelled when a real search is
+     * rejected for lack of room
+     *
+     * @param game     game to search, copied before this method returns
+     * @param strength how deep or long to search
+     * @return future completed with the search result, or exceptionally if the ponder budget is used up
+     */
+    public CompletableFuture<SearchResult> submitPonder(ChessGame game, BotStrength strength)
+    {
+        if (!ponderPermits.tryAcquire())
+        {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Ponder budget used up"));
+        }
+        SearchTask task = new SearchTask(game.copy(), strength);
+        ponderTasks.add(task);
+        task.result.whenComplete((result, e) -> {
+            ponderTasks.remove(task);
+            ponderPermits.release();
+        });
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            task.result.completeExceptionally(e);
+        }
+        return task.result;
+    }
+
+    // Method to cancel every ponder search, taking the queued ones out of the queue
+    private void cancelPonders()
+    {
+        for (SearchTask task : ponderTasks)
+        {
+            executor.remove(task);
+            task.result.cancel(false);
+        }
+    }
+
+    // Method to get the number of searches waiting for a worker
+    public int getQueuedSearches()
+    {
+        return executor.getQueue().size();
+    }
+
+    // Method to get the number of searches currently running
+    public int getActiveSearches()
+    {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+
+    // A search of one position, completing its future with the result
+    private class SearchTask implements Runnable
+    {
+        private final ChessGame position;
+        private final BotStrength strength;
+        private final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+
+        SearchTask(ChessGame position, BotStrength strength)
+        {
+            this.position = position;
+            this.strength = strength;
+        }
+
+        @Override
+        public void run()
+        {
+            if (result.isDone())
+            {
+                return; // Cancelled while it was queued
+            }
+            try
+            {
+                // Cancelling the future stops the search at its next clock check
+                result.complete(workerSearch.get().search(position, strength.maxDepth(),
+                        strength.timeLimitMillis(), result::isDone));
+            }
+            catch (RuntimeException e)
+            {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Creates daemon worker threads below normal priority
+    private static class BotThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task)
+        {
+            Thread thread = new Thread(task, "bot-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
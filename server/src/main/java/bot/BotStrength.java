@@ -0,0 +1,44 @@
+package bot;
+
+import chess.ChessClock;
+import chess.ChessGame;
+
+/**
+ * How hard a bot searches before answering a move
+ *
+ * @param maxDepth        deepest search iteration the bot runs
+ * @param timeLimitMillis wall time budget per move, or 0 for no limit
+ */
+public record BotStrength(int maxDepth, long timeLimitMillis)
+{
+
+    // Deep enough that a time-limited bot is only ever stopped by its clock
+    private static final int UNLIMITED_DEPTH = 63;
+
+    // Method to create a strength that searches to a fixed depth
+    public static BotStrength ofDepth(int maxDepth)
+    {
+        return new BotStrength(maxDepth, 0);
+    }
+
+    // Method to create a strength that searches for a fixed time per move
+    public static BotStrength ofTime(long timeLimitMillis)
+    {
+        return new BotStrength(UNLIMITED_DEPTH, timeLimitMillis);
+    }
+
+    /**
+     * Caps the time per move by what the bot can afford on its clock
+     *
+     * @param clock     clock of the game
+     * @param color     the bot's color
+     * @param nowMillis current time
+     * @return this strength with the time limit lowered to the clock's allocation
+     */
+    public BotStrength withinClock(ChessClock clock, ChessGame.TeamColor color, long nowMillis)
+    {
+        long allocated = clock.allocateMoveTime(color, nowMillis);
+        long limit = (timeLimitMillis > 0) ? Math.min(timeLimitMillis, allocated) : allocated;
+        return new BotStrength(maxDepth, limit);
+    }
+}
@@ -0,0 +1,188 @@
+package bot;
+
+import chess.ChessGame;
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Read-only opening book in the Polyglot file layout.
+ * <p>
+ * The file is a sequence of 16-byte big-endian entries sorted by position hash:
+ * 8 bytes Zobrist hash (see ChessGame.getPositionHash), 2 bytes move (see
+ * ChessMove.encode), 2 bytes weight and 4 unused bytes. The file is memory-mapped and
+ * lookups binary-search it in place, so probing allocates nothing and the pages are
+ * shared by every bot in the process.
+ * <p>
+ * Hashes come from this project's own Zobrist keys, so books must be written with
+ * writeBook rather than taken from Polyglot tools.
+ */
+public class OpeningBook
+{
+
+    private static final int ENTRY_SIZE = 16;
+    private static final int MOVE_OFFSET = 8;
+    private static final int WEIGHT_OFFSET = 10;
+
+    // One book entry: a weighted move for a position
+    public record Entry(long positionHash, ChessMove move, int weight)
+    {
+    }
+
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+
+    /**
+     * Maps a book file into memory
+     *
+     * @param bookFile path of a sorted book file
+     * @throws IOException if the file cannot be read or is not a whole number of entries
+     */
+    public OpeningBook(Path bookFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(bookFile, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE)
+            {
+                throw new IOException("Not a valid opening book: " + bookFile);
+            }
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entryCount = (int) (size / ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * Picks a book move for a position, weighted at random among its entries
+     *
+     * @param positionHash Zobrist hash of the position
+     * @return the encoded move, or -1 if the position is not in the book
+     */
+    public int probe(long positionHash)
+    {
+        int first = firstEntryAtOrAfter(positionHash);
+        int totalWeight = 0;
+        int entry = first;
+        while (entry < entryCount && hashAt(entry) == positionHash)
+        {
+            totalWeight += weightAt(entry);
+            entry++;
+        }
+        if (entry == first)
+        {
+            return -1;
+        }
+        if (totalWeight == 0)
+        {
+            return moveAt(first);
+        }
+
+        int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (entry = first; entry < entryCount && hashAt(entry) == positionHash; entry++)
+        {
+            pick -= weightAt(entry);
+            if (pick < 0)
+            {
+                return moveAt(entry);
+            }
+        }
+        return moveAt(first);
+    }
+
+    /**
+     * Finds a book move for the game's current position
+     *
+     * @param game game to look up
+     * @return a valid book move, or null if the position is not in the book
+     */
+    public ChessMove findMove(ChessGame game)
+    {
+        int code = probe(game.getPositionHash());
+        if (code < 0)
+        {
+            return null;
+        }
+        ChessMove move = ChessMove.decode(code);
+        Collection<ChessMove> validMoves = game.validMoves(move.getStartPosition());
+        // A hash collision could point at a move that is not valid here
+        return (validMoves != null && validMoves.contains(move)) ? move : null;
+    }
+
+    // Method to get the number of entries in the book
+    public int size()
+    {
+        return entryCount;
+    }
+
+    /**
+     * Writes entries as a sorted book file
+     *
+     * @param bookFile path to write, replaced if it exists
+     * @param bookEntries entries in any order
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeBook(Path bookFile, Collection<Entry> bookEntries) throws IOException
+    {
+        List<Entry> sorted = new ArrayList<>(bookEntries);
+        sorted.sort(Comparator.comparing(Entry::positionHash, Long::compareUnsigned));
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.size() * ENTRY_SIZE);
+        for (Entry entry : sorted)
+        {
+            buffer.putLong(entry.positionHash());
+            buffer.putShort((short) entry.move().encode());
+            buffer.putShort((short) Math.min(entry.weight(), 0xFFFF));
+            buffer.putInt(0);
+        }
+        try (OutputStream out = Files.newOutputStream(bookFile))
+        {
+            out.write(buffer.array());
+        }
+    }
+
+    // Method to binary-search for the first entry whose hash is not below the given one
+    private int firstEntryAtOrAfter(long positionHash)
+    {
+        int low = 0;
+        int high = entryCount;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(hashAt(middle), positionHash) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long hashAt(int entry)
+    {
+        return entries.getLong(entry * ENTRY_SIZE);
+    }
+
+    private int moveAt(int entry)
+    {
+        return entries.getShort(entry * ENTRY_SIZE + MOVE_OFFSET) & 0xFFFF;
+    }
+
+    private int weightAt(int entry)
+    {
+        return entries.getShort(entry * ENTRY_SIZE + WEIGHT_OFFSET) & 0xFFFF;
+    }
+}
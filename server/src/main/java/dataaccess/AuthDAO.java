@@ -0,0 +1,26 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Collection;
+
+/**
+ * Storage for login sessions
+ */
+public interface AuthDAO
+{
+    // Method to store a new session
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    // Method to store many sessions at once, e.g. when restoring or load testing
+    void createAuths(Collection<AuthData> auths) throws DataAccessException;
+
+    // Method to get a session by token, or null if there is none
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    // Method to end a session
+    void deleteAuth(String authToken) throws DataAccessException;
+
+    // Method to remove every session
+    void clear() throws DataAccessException;
+}
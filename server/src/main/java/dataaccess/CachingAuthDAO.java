@@ -0,0 +1,511 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AuthDAO that caches token lookups of a backing AuthDAO, so that checking the token of
+ * every request and WebSocket message does not cost a database round trip.
+ * <p>
+ * Valid tokens are cached for ttlMillis and unknown tokens for negativeTtlMillis, so a
+ * client retrying a bad token cannot hammer the database either. Once an entry is older
+ * than half its time to live, the next read still answers from the cache but reloads the
+ * entry on a background thread, so busy tokens never stall on a reload. Logging out
+ * removes the token from the cache at once, and a lookup racing a logout or login of the
+ * same token is not cached; changes to other tokens never stop a lookup being cached.
+ * Another server sharing the database sees a logout only once its entry expires.
+ * <p>
+ * At most maximumSize tokens are kept, evicted in the manner of W-TinyLFU: new tokens
+ * enter a small LRU window, and a token leaving the window only displaces the least
+ * recently used token of the main space if a frequency sketch says it is used more
+ * often. Tokens read again in the main space are protected from eviction until pushed
+ * out by others. One-off lookups such as bad tokens therefore cannot flush the tokens of
+ * active sessions. Reads skip updating the eviction order when another thread holds
+ * the policy lock, trading a little accuracy for never blocking a read.
+ */
+public class CachingAuthDAO implements AuthDAO
+{
+
+    // Hit, miss and eviction counts since the cache was created
+    public record CacheStats(long hits, long misses, long evictions, int size)
+    {
+    }
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    // One cached lookup result; auth is null for a token known to be invalid
+    private record Value(AuthData auth, long loadedAt, long expiresAt)
+    {
+    }
+
+    // A lookup of one token in the backing DAO, shared by concurrent lookups of the token and marked stale by its invalidation
+    private static final class Load
+    {
+        // Lookups sharing this load, only changed inside the loads map's compute for the token
+        int lookups = 1;
+        volatile boolean stale;
+    }
+
+    // One cached token; its value is replaced whole, so a read never sees half of a reload
+    private static final class Node
+    {
+        final String token;
+        volatile Value value;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        // Eviction order, guarded by the policy lock
+        int queue;
+        Node previous;
+        Node next;
+
+        Node(String token)
+        {
+            this.token = token;
+        }
+    }
+
+    private final AuthDAO backing;
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    private final Map<String, Node> nodes = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refresher;
+
+    // Lookups in progress by token, so an invalidation marks only the lookups of its own token stale
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Eviction policy, guarded by policyLock; each queue is a circular list around its sentinel
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final FrequencySketch sketch;
+    private final Node[] queues = {new Node(null), new Node(null), new Node(null)};
+    private final int[] queueSizes = new int[3];
+
+    /**
+     * @param backing           DAO the tokens are stored in
+     * @param maximumSize       most tokens cached at once
+     * @param ttlMillis         time a valid token is trusted without asking the backing DAO
+     * @param negativeTtlMillis time an invalid token is remembered as invalid
+     */
+    public CachingAuthDAO(AuthDAO backing, int maximumSize, long ttlMillis, long negativeTtlMillis)
+    {
+        this.backing = backing;
+        this.maximumSize = Math.max(maximumSize, 2);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        this.protectedMaximum = (this.maximumSize - windowMaximum) * 4 / 5;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.sketch = new FrequencySketch(this.maximumSize);
+        for (Node sentinel : queues)
+        {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+        }
+        refresher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(256), task -> {
+            Thread thread = new Thread(task, "auth-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException
+    {
+        backing.createAuth(auth);
+        invalidate(auth.authToken()); // Drops a negative entry; the next read loads the new session
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException
+    {
+        backing.createAuths(auths);
+        for (AuthData auth : auths)
+        {
+            invalidate(auth.authToken());
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException
+    {
+        long now = System.currentTimeMillis();
+        Node node = nodes.get(authToken);
+        Value value = (node == null) ? null : node.value;
+        if (value != null && now < value.expiresAt())
+        {
+            hits.incrementAndGet();
+            recordRead(node);
+            if (now - value.loadedAt() > (value.expiresAt() - value.loadedAt()) / 2)
+            {
+                refreshLater(node);
+            }
+            return value.auth();
+        }
+
+        misses.incrementAndGet();
+        Load load = startLoad(authToken);
+        try
+        {
+            AuthData auth = backing.getAuth(authToken);
+            store(authToken, auth, now, load);
+            return auth;
+        }
+        finally
+        {
+            finishLoad(authToken, load);
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException
+    {
+        backing.deleteAuth(authToken);
+        invalidate(authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        backing.clear();
+        // A lookup registered after this reads the cleared backing DAO, so only these can be stale
+        for (Load load : loads.values())
+        {
+            load.stale = true;
+        }
+        loads.clear();
+        policyLock.lock();
+        try
+        {
+            nodes.clear();
+            for (int queue = 0; queue < queues.length; queue++)
+            {
+                queues[queue].previous = queues[queue];
+                queues[queue].next = queues[queue];
+                queueSizes[queue] = 0;
+            }
+        }
+        finally
+        {
+            policyLock.unlock();
+        }
+    }
+
+    // Method to get the cache's counters, e.g. for monitoring
+    public CacheStats getStats()
+    {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), nodes.size());
+    }
+
+    // Method to drop a token from the cache, e.g. after logout, after the backing DAO was changed
+    private void invalidate(String authToken)
+    {
+        // Lookups started before the change may have read the old state; later ones read the new
+        Load load = loads.remove(authToken);
+        if (load != null)
+        {
+            load.stale = true;
+        }
+        policyLock.lock();
+        try
+        {
+            Node node = nodes.remove(authToken);
+            if (node != null)
+            {
+                unlink(node);
+            }
+        }
+        finally
+        {
+            policyLock.unlock();
+        }
+    }
+
+    // Method to register a lookup of a token before it reads the backing DAO
+    private Load startLoad(String authToken)
+    {
+        return loads.compute(authToken, (token, load) -> {
+            if (load == null)
+            {
+                return new Load();
+            }
+            load.lookups++;
+            return load;
+        });
+    }
+
+    // Method to unregister a lookup, dropping its load once no lookup shares it
+    private void finishLoad(String authToken, Load load)
+    {
+        loads.computeIfPresent(authToken, (token, current) -> (current == load && --current.lookups == 0) ? null : current);
+    }
+
+    // Method to cache a lookup, in a new node or the token's existing one, unless an invalidation of the token raced it
+    private void store(String authToken, AuthData auth, long now, Load load)
+    {
+        policyLock.lock();
+        try
+        {
+            // Checked under the lock invalidate takes after marking, so a racing invalidation either stops or removes this entry
+            if (load.stale)
+            {
+                return;
+            }
+            Node node = nodes.get(authToken);
+            boolean added = (node == null);
+            if (added)
+            {
+                node = new Node(authToken);
+            }
+            node.value = newValue(auth, now);
+            sketch.increment(authToken.hashCode());
+            if (added)
+            {
+                nodes.put(authToken, node);
+                addFirst(WINDOW, node);
+                admitFromWindow();
+            }
+        }
+        finally
+        {
+            policyLock.unlock();
+        }
+    }
+
+    private Value newValue(AuthData auth, long now)
+    {
+        return new Value(auth, now, now + ((auth == null) ? negativeTtlMillis : ttlMillis));
+    }
+
+    // Method to store a background reload, unless the node was dropped or an invalidation of the token raced the reload
+    private void storeRefresh(Node node, AuthData auth, long now, Load load)
+    {
+        policyLock.lock();
+        try
+        {
+            if (!load.stale && nodes.get(node.token) == node)
+            {
+                node.value = newValue(auth, now);
+            }
+        }
+        finally
+        {
+            policyLock.unlock();
+        }
+    }
+
+    // Method to reload a token in the background while reads keep using the cached value
+    private void refreshLater(Node node)
+    {
+        if (!node.refreshing.compareAndSet(false, true))
+        {
+            return;
+        }
+        try
+        {
+            refresher.execute(() -> {
+                long now = System.currentTimeMillis();
+                Load load = startLoad(node.token);
+                try
+                {
+                    AuthData auth = backing.getAuth(node.token);
+                    storeRefresh(node, auth, now, load);
+                }
+                catch (DataAccessException | RuntimeException e)
+                {
+                    // Keep the cached value; it is reloaded on the next read or once it expires
+                }
+                finally
+                {
+                    finishLoad(node.token, load);
+                    node.refreshing.set(false);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            node.refreshing.set(false);
+        }
+    }
+
+    // Method to move a read token up the eviction order, skipped if another thread is updating it
+    private void recordRead(Node node)
+    {
+        if (!policyLock.tryLock())
+        {
+            return;
+        }
+        try
+        {
+            if (nodes.get(node.token) != node)
+            {
+                return; // Evicted or invalidated since it was read
+            }
+            sketch.increment(node.token.hashCode());
+            if (node.queue == PROBATION)
+            {
+                unlink(node);
+                addFirst(PROTECTED, node);
+                if (queueSizes[PROTECTED] > protectedMaximum)
+                {
+                    Node demoted = queues[PROTECTED].previous;
+                    unlink(demoted);
+                    addFirst(PROBATION, demoted);
+                }
+            }
+            else
+            {
+                int queue = node.queue;
+                unlink(node);
+                addFirst(queue, node);
+            }
+        }
+        finally
+        {
+            policyLock.unlock();
+        }
+    }
+
+    // Method to move the window's oldest token to the main space, evicting it or a main token if the cache is full
+    private void admitFromWindow()
+    {
+        if (queueSizes[WINDOW] <= windowMaximum)
+        {
+            return;
+        }
+        Node candidate = queues[WINDOW].previous;
+        unlink(candidate);
+        addFirst(PROBATION, candidate);
+        if (nodes.size() <= maximumSize)
+        {
+            return;
+        }
+
+        Node victim = queues[PROBATION].previous;
+        if (victim == candidate)
+        {
+            victim = (queueSizes[PROTECTED] > 0) ? queues[PROTECTED].previous : candidate;
+        }
+        Node evicted = (victim != candidate && sketch.frequency(candidate.token.hashCode())
+                > sketch.frequency(victim.token.hashCode())) ? victim : candidate;
+        if (victim.value.expiresAt() <= System.currentTimeMillis())
+        {
+            evicted = victim; // An expired token is worth nothing
+        }
+        unlink(evicted);
+        nodes.remove(evicted.token, evicted);
+        evictions.incrementAndGet();
+    }
+
+    private void addFirst(int queue, Node node)
+    {
+        Node sentinel = queues[queue];
+        node.queue = queue;
+        node.previous = sentinel;
+        node.next = sentinel.next;
+        sentinel.next.previous = node;
+        sentinel.next = node;
+        queueSizes[queue]++;
+    }
+
+    private void unlink(Node node)
+    {
+        if (node.previous == null)
+        {
+            return;
+        }
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+        queueSizes[node.queue]--;
+    }
+
+    /**
+     * Approximate use counts of recent tokens: a count-min sketch of 4-bit counters,
+     * four per token, halved every ten lookups per cache slot so old popularity fades
+     */
+    private static final class FrequencySketch
+    {
+        private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L,
+                0xD6E8FEB86659FD93L};
+        private static final long HALF_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maximumSize)
+        {
+            table = new long[Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1];
+            sampleSize = 10 * maximumSize;
+        }
+
+        int frequency(int hash)
+        {
+            int frequency = 15;
+            for (long seed : SEEDS)
+            {
+                int spread = spread(hash, seed);
+                frequency = Math.min(frequency, (int) ((table[index(spread)] >>> shift(spread)) & 15));
+            }
+            return frequency;
+        }
+
+        void increment(int hash)
+        {
+            boolean added = false;
+            for (long seed : SEEDS)
+            {
+                int spread = spread(hash, seed);
+                int index = index(spread);
+                int shift = shift(spread);
+                if (((table[index] >>> shift) & 15) < 15)
+                {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize)
+            {
+                for (int i = 0; i < table.length; i++)
+                {
+                    table[i] = (table[i] >>> 1) & HALF_MASK;
+                }
+                additions /= 2;
+            }
+        }
+
+        private int index(int spread)
+        {
+            return (spread >>> 4) & (table.length - 1);
+        }
+
+        private static int shift(int spread)
+        {
+            return (spread & 15) << 2;
+        }
+
+        private static int spread(int hash, long seed)
+        {
+            long mixed = (hash + seed) * seed;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
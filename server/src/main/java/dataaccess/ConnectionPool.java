@@ -0,0 +1,560 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of JDBC connections.
+ * <p>
+ * At most maxSize connections exist at once; a caller that finds them all in use
+ * waits up to connectionTimeoutMillis and then gets a DataAccessException instead of
+ * opening one more connection. Callers get a wrapper whose close() hands the
+ * connection back, so DAO code keeps using try-with-resources exactly as with
+ * DriverManager. Idle connections are reused newest first and checked with
+ * isValid when they have sat unused for longer than validationIntervalMillis. A
+ * housekeeping thread closes connections idle for longer than idleTimeoutMillis,
+ * down to minIdle, and reports connections borrowed for longer than
+ * leakDetectionMillis together with the stack that borrowed them.
+ * <p>
+ * Each connection also keeps up to statementCacheSize of its prepared statements, so
+ * SQL that a DAO prepares again and again is parsed and prepared only once per
+ * connection. Closing a cached statement only clears its parameters and batch.
+ */
+public class ConnectionPool implements AutoCloseable
+{
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_INTERVAL_MILLIS = 5_000;
+
+    // Opens a new physical connection
+    public interface ConnectionFactory
+    {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Pool configuration, read from the db.pool.* keys of db.properties
+     *
+     * @param maxSize                  most connections open at once
+     * @param minIdle                  idle connections kept open however long they are unused
+     * @param connectionTimeoutMillis  longest wait for a free connection
+     * @param idleTimeoutMillis        idle time after which a connection is closed, 0 to keep them
+     * @param validationIntervalMillis idle time after which a connection is checked before reuse
+     * @param leakDetectionMillis      borrow time after which a connection is reported as leaked, 0 to disable
+     * @param statementCacheSize       prepared statements kept open per connection, 0 to disable
+     */
+    public record Settings(int maxSize, int minIdle, long connectionTimeoutMillis, long idleTimeoutMillis,
+                           long validationIntervalMillis, long leakDetectionMillis, int statementCacheSize)
+    {
+        // Method to read settings from properties, using defaults for missing keys
+        public static Settings fromProperties(Properties props)
+        {
+            return new Settings(
+                    Integer.parseInt(props.getProperty("db.pool.maxSize", "10")),
+                    Integer.parseInt(props.getProperty("db.pool.minIdle", "2")),
+                    Long.parseLong(props.getProperty("db.pool.connectionTimeoutMillis", "5000")),
+                    Long.parseLong(props.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                    Long.parseLong(props.getProperty("db.pool.validationIntervalMillis", "30000")),
+                    Long.parseLong(props.getProperty("db.pool.leakDetectionMillis", "60000")),
+                    Integer.parseInt(props.getProperty("db.pool.statementCacheSize", "64")));
+        }
+    }
+
+    /**
+     * Snapshot of the pool's state and counters
+     *
+     * @param total              open connections
+     * @param active             connections borrowed right now
+     * @param idle               connections waiting to be borrowed
+     * @param waiting            callers waiting for a connection
+     * @param created            connections opened since start
+     * @param destroyed          connections closed since start
+     * @param timeouts           borrows that gave up waiting
+     * @param validationFailures idle connections found dead when borrowed
+     * @param leaksDetected      borrows reported as leaked
+     */
+    public record PoolStats(int total, int active, int idle, int waiting, long created, long destroyed,
+                            long timeouts, long validationFailures, long leaksDetected)
+    {
+    }
+
+    private final ConnectionFactory factory;
+    private final Settings settings;
+    private final Semaphore permits;
+
+    // Newest at the front, so the oldest idle connections are the ones that time out
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+    private volatile boolean closed;
+
+    public ConnectionPool(ConnectionFactory factory, Settings settings)
+    {
+        this.factory = factory;
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxSize(), true);
+        housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, HOUSEKEEPING_INTERVAL_MILLIS,
+                HOUSEKEEPING_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection; close it to give it back
+     *
+     * @return a connection that is not shared with any other caller until closed
+     * @throws DataAccessException if no connection frees up in time or a new one cannot be opened
+     */
+    public Connection getConnection() throws DataAccessException
+    {
+        if (closed)
+        {
+            throw new DataAccessException("Connection pool is closed");
+        }
+        try
+        {
+            if (!permits.tryAcquire(settings.connectionTimeoutMillis(), TimeUnit.MILLISECONDS))
+            {
+                timeouts.incrementAndGet();
+                throw new DataAccessException("Timed out after " + settings.connectionTimeoutMillis()
+                        + " ms waiting for a database connection");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for a database connection");
+        }
+
+        try
+        {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null)
+            {
+                pooled = new PooledConnection(factory.create());
+                created.incrementAndGet();
+            }
+            pooled.borrowedAtNanos = System.nanoTime();
+            pooled.borrowTrace = (settings.leakDetectionMillis() > 0) ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.newHandle();
+        }
+        catch (SQLException | RuntimeException e)
+        {
+            permits.release();
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    // Method to get the current state and counters of the pool
+    public PoolStats getStats()
+    {
+        int idleCount;
+        synchronized (idle)
+        {
+            idleCount = idle.size();
+        }
+        int active = borrowed.size();
+        return new PoolStats(active + idleCount, active, idleCount, permits.getQueueLength(), created.get(),
+                destroyed.get(), timeouts.get(), validationFailures.get(), leaksDetected.get());
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        housekeeper.shutdownNow();
+        List<PooledConnection> closing;
+        synchronized (idle)
+        {
+            closing = new ArrayList<>(idle);
+            idle.clear();
+        }
+        closing.forEach(this::destroy); // Outside the lock, which request threads take to borrow
+    }
+
+    // Method to take the newest idle connection that is still usable, or null if none is
+    private PooledConnection takeIdle()
+    {
+        while (true)
+        {
+            PooledConnection pooled;
+            synchronized (idle)
+            {
+                pooled = idle.pollFirst();
+            }
+            if (pooled == null)
+            {
+                return null;
+            }
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastUsedNanos);
+            if (idleMillis < settings.validationIntervalMillis() || isValid(pooled))
+            {
+                return pooled;
+            }
+            validationFailures.incrementAndGet();
+            destroy(pooled);
+        }
+    }
+
+    private static boolean isValid(PooledConnection pooled)
+    {
+        try
+        {
+            return pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        }
+        catch (SQLException e)
+        {
+            return false;
+        }
+    }
+
+    // Method to take back a connection whose handle was closed
+    private void release(PooledConnection pooled)
+    {
+        borrowed.remove(pooled);
+        pooled.borrowTrace = null;
+        try
+        {
+            if (pooled.broken || closed || pooled.connection.isClosed())
+            {
+                destroy(pooled);
+                return;
+            }
+            if (!pooled.connection.getAutoCommit())
+            {
+                // Leave no half-finished transaction behind for the next borrower
+                pooled.connection.rollback();
+                pooled.connection.setAutoCommit(true);
+            }
+            pooled.lastUsedNanos = System.nanoTime();
+            synchronized (idle)
+            {
+                idle.addFirst(pooled);
+            }
+        }
+        catch (SQLException e)
+        {
+            destroy(pooled);
+        }
+        finally
+        {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled)
+    {
+        destroyed.incrementAndGet();
+        try
+        {
+            pooled.connection.close();
+        }
+        catch (SQLException e)
+        {
+            // The connection is being thrown away anyway
+        }
+    }
+
+    // Method run by the housekeeping thread to close long-idle connections and report leaks
+    void houseKeep()
+    {
+        // An exception would cancel the scheduled task, stopping housekeeping for good
+        try
+        {
+            evictIdle();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Connection pool failed to evict idle connections", e);
+        }
+        try
+        {
+            reportLeaks();
+        }
+        catch (RuntimeException e)
+        {
+            LOG.error("Connection pool failed to check for leaks", e);
+        }
+    }
+
+    private void evictIdle()
+    {
+        if (settings.idleTimeoutMillis() <= 0)
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMillis());
+        List<PooledConnection> expired = new ArrayList<>();
+        synchronized (idle)
+        {
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (idle.size() > settings.minIdle() && oldestFirst.hasNext())
+            {
+                PooledConnection pooled = oldestFirst.next();
+                if (now - pooled.lastUsedNanos > idleTimeoutNanos)
+                {
+                    oldestFirst.remove();
+                    expired.add(pooled);
+                }
+            }
+        }
+        // Closed outside the lock, so a virtual thread borrowing meanwhile is not pinned behind network I/O
+        expired.forEach(this::destroy);
+    }
+
+    private void reportLeaks()
+    {
+        if (settings.leakDetectionMillis() <= 0)
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        long leakNanos = TimeUnit.MILLISECONDS.toNanos(settings.leakDetectionMillis());
+        for (PooledConnection pooled : borrowed)
+        {
+            Throwable trace = pooled.borrowTrace;
+            if (!pooled.leakReported && trace != null && now - pooled.borrowedAtNanos > leakNanos)
+            {
+                pooled.leakReported = true;
+                leaksDetected.incrementAndGet();
+                LOG.warn("Database connection borrowed for over {} ms and not closed, possible leak",
+                        settings.leakDetectionMillis(), trace);
+            }
+        }
+    }
+
+    // A physical connection and its bookkeeping
+    private class PooledConnection
+    {
+        private final Connection connection;
+        private volatile long lastUsedNanos = System.nanoTime();
+        private volatile long borrowedAtNanos;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        // Prepared statements by SQL, least recently used first; only touched by the current borrower
+        private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        PooledConnection(Connection connection)
+        {
+            this.connection = connection;
+        }
+
+        // Method to hand out the cached statement for some SQL, preparing it the first time
+        PreparedStatement prepareCached(String key, Method method, Object[] args) throws ReflectiveOperationException
+        {
+            CachedStatement cached = statements.get(key);
+            if (cached != null && cached.inUse)
+            {
+                // The same SQL is open twice at once, e.g. a nested query; the second one is not cached
+                return (PreparedStatement) method.invoke(connection, args);
+            }
+            if (cached == null)
+            {
+                cached = new CachedStatement((PreparedStatement) method.invoke(connection, args));
+                cached.inUse = true; // Before evicting, which would otherwise close the statement just prepared
+                statements.put(key, cached);
+                evictStatements();
+            }
+            cached.inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class}, new StatementHandle(cached));
+        }
+
+        // Method to close the least recently used statements that are not open
+        private void evictStatements()
+        {
+            Iterator<Map.Entry<String, CachedStatement>> leastRecentFirst = statements.entrySet().iterator();
+            while (statements.size() > settings.statementCacheSize() && leastRecentFirst.hasNext())
+            {
+                CachedStatement cached = leastRecentFirst.next().getValue();
+                if (!cached.inUse)
+                {
+                    leastRecentFirst.remove();
+                    try
+                    {
+                        cached.statement.close();
+                    }
+                    catch (SQLException e)
+                    {
+                        // The statement is being thrown away anyway
+                    }
+                }
+            }
+        }
+
+        // Method to wrap the connection for one borrower, so a stale handle cannot touch the next borrow
+        Connection newHandle()
+        {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, new Handle(this));
+        }
+    }
+
+    // Passes calls through to the physical connection until the borrower closes it
+    private class Handle implements InvocationHandler
+    {
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        Handle(PooledConnection pooled)
+        {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName())
+            {
+                case "close":
+                    if (!closed)
+                    {
+                        closed = true;
+                        release(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooled.connection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooled.connection;
+                default:
+                    break;
+            }
+            if (closed)
+            {
+                throw new SQLException("Connection is closed");
+            }
+            try
+            {
+                if (isCacheablePrepare(method))
+                {
+                    String key = (args.length == 1) ? (String) args[0] : args[0] + "\u0000" + args[1];
+                    return pooled.prepareCached(key, method, args);
+                }
+                return method.invoke(pooled.connection, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                Throwable cause = e.getCause();
+                // SQLState class 08 means the connection itself failed
+                if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                        && sqlException.getSQLState().startsWith("08"))
+                {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        // Method to check for prepareStatement(sql) or prepareStatement(sql, autoGeneratedKeys)
+        private boolean isCacheablePrepare(Method method)
+        {
+            Class<?>[] parameters = method.getParameterTypes();
+            return settings.statementCacheSize() > 0 && method.getName().equals("prepareStatement")
+                    && (parameters.length == 1 || (parameters.length == 2 && parameters[1] == int.class));
+        }
+    }
+
+    // A prepared statement kept open on its connection
+    private static class CachedStatement
+    {
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        CachedStatement(PreparedStatement statement)
+        {
+            this.statement = statement;
+        }
+    }
+
+    // Passes calls through to a cached statement until the borrower closes it, which puts it back in the cache
+    private static class StatementHandle implements InvocationHandler
+    {
+        private final CachedStatement cached;
+        private boolean closed;
+
+        StatementHandle(CachedStatement cached)
+        {
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            switch (method.getName())
+            {
+                case "close":
+                    if (!closed)
+                    {
+                        closed = true;
+                        cached.statement.clearParameters();
+                        cached.statement.clearBatch();
+                        cached.inUse = false;
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed)
+            {
+                throw new SQLException("Statement is closed");
+            }
+            try
+            {
+                return method.invoke(cached.statement, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        }
+    }
+}
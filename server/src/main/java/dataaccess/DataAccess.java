@@ -0,0 +1,129 @@
+package dataaccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * The DAOs the server works with, built for the backend chosen in db.properties.
+ * <p>
+ * db.backend selects the storage: "mysql", the default, keeps each game as JSON in the
+ * game table; "mysql-log" keeps games as move logs with MySqlMoveLogGameDAO; "mapped"
+ * keeps everything in memory-mapped files under db.mapped.directory, with no database
+ * server at all; "memory" keeps everything in memory only, e.g. for load tests. When
+ * db.writeBehindMillis is above 0 the game DAO is fronted by a WriteBehindGameDAO
+ * flushing at that interval, and when db.authCacheSize is above 0 token lookups go
+ * through a CachingAuthDAO of that size.
+ */
+public class DataAccess implements AutoCloseable
+{
+
+    private final UserDAO userDAO;
+    private final AuthDAO authDAO;
+    private final GameDAO gameDAO;
+
+    // Store shared by the mapped DAOs, or null for the MySQL backends
+    private final MappedStore store;
+
+    private DataAccess(UserDAO userDAO, AuthDAO authDAO, GameDAO gameDAO, MappedStore store)
+    {
+        this.userDAO = userDAO;
+        this.authDAO = authDAO;
+        this.gameDAO = gameDAO;
+        this.store = store;
+    }
+
+    /**
+     * Builds the DAOs configured in the db.properties resource
+     *
+     * @return the configured DAOs
+     * @throws DataAccessException if db.properties cannot be read or the backend cannot be opened
+     */
+    public static DataAccess configured() throws DataAccessException
+    {
+        try (InputStream propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties"))
+        {
+            if (propStream == null)
+            {
+                throw new DataAccessException("Unable to load db.properties");
+            }
+            Properties props = new Properties();
+            props.load(propStream);
+            return fromProperties(props);
+        }
+        catch (IOException e)
+        {
+            throw new DataAccessException("Unable to load db.properties: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the DAOs for a configuration
+     *
+     * @param props configuration with the db.* keys
+     * @return the configured DAOs
+     * @throws DataAccessException if the backend is unknown or cannot be opened
+     */
+    public static DataAccess fromProperties(Properties props) throws DataAccessException
+    {
+        String backend = props.getProperty("db.backend", "mysql");
+        DataAccess dataAccess = switch (backend)
+        {
+            case "mysql" -> new DataAccess(new MySqlUserDAO(), new MySqlAuthDAO(), new MySqlGameDAO(), null);
+            case "mysql-log" -> new DataAccess(new MySqlUserDAO(), new MySqlAuthDAO(), new MySqlMoveLogGameDAO(), null);
+            case "mapped" ->
+            {
+                MappedStore store = new MappedStore(MappedStore.Settings.fromProperties(props));
+                yield new DataAccess(new MappedUserDAO(store), new MappedAuthDAO(store), new MappedGameDAO(store), store);
+            }
+            case "memory" -> new DataAccess(new MemoryUserDAO(), new MemoryAuthDAO(), new MemoryGameDAO(), null);
+            default -> throw new DataAccessException("Unknown db.backend " + backend);
+        };
+
+        AuthDAO authDAO = dataAccess.authDAO;
+        int authCacheSize = Integer.parseInt(props.getProperty("db.authCacheSize", "0"));
+        if (authCacheSize > 0)
+        {
+            authDAO = new CachingAuthDAO(authDAO, authCacheSize,
+                    Long.parseLong(props.getProperty("db.authCacheTtlMillis", "300000")),
+                    Long.parseLong(props.getProperty("db.authCacheNegativeTtlMillis", "5000")));
+        }
+        GameDAO gameDAO = dataAccess.gameDAO;
+        long writeBehindMillis = Long.parseLong(props.getProperty("db.writeBehindMillis", "0"));
+        if (writeBehindMillis > 0)
+        {
+            gameDAO = new WriteBehindGameDAO(gameDAO, writeBehindMillis,
+                    Integer.parseInt(props.getProperty("db.writeBehindMaxDirtyGames", "1000")));
+        }
+        return new DataAccess(dataAccess.userDAO, authDAO, gameDAO, dataAccess.store);
+    }
+
+    public UserDAO getUserDAO()
+    {
+        return userDAO;
+    }
+
+    public AuthDAO getAuthDAO()
+    {
+        return authDAO;
+    }
+
+    public GameDAO getGameDAO()
+    {
+        return gameDAO;
+    }
+
+    // Method to flush pending writes and release files, e.g. when the server stops
+    @Override
+    public void close()
+    {
+        if (gameDAO instanceof WriteBehindGameDAO writeBehind)
+        {
+            writeBehind.close();
+        }
+        if (store != null)
+        {
+            store.close();
+        }
+    }
+}
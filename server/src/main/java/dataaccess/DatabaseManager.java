@@ -0,0 +1,336 @@
+package dataaccess;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+public class DatabaseManager {
+    private static final String DATABASE_NAME;
+    private static final String USER;
+    private static final String PASSWORD;
+    private static final String CONNECTION_URL;
+    private static final ConnectionPool POOL;
+
+    /*
+     * Tables used by the MySQL DAOs, created by configureDatabase and emptied by clearTables.
+     */
+    private static final String[] CREATE_STATEMENTS = {
+            """
+            CREATE TABLE IF NOT EXISTS user (
+              username VARCHAR(255) NOT NULL,
+              password VARCHAR(255) NOT NULL,
+              email VARCHAR(255) NOT NULL,
+              PRIMARY KEY (username)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS auth (
+              authToken VARCHAR(255) NOT NULL,
+              username VARCHAR(255) NOT NULL,
+              PRIMARY KEY (authToken),
+              INDEX (username)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS game (
+              gameID INT NOT NULL AUTO_INCREMENT,
+              whiteUsername VARCHAR(255),
+              blackUsername VARCHAR(255),
+              gameName VARCHAR(255) NOT NULL,
+              game LONGTEXT NOT NULL,
+              PRIMARY KEY (gameID)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS game_log (
+              gameID INT NOT NULL AUTO_INCREMENT,
+              whiteUsername VARCHAR(255),
+              blackUsername VARCHAR(255),
+              gameName VARCHAR(255) NOT NULL,
+              historyId BIGINT NOT NULL,
+              historyOffset INT NOT NULL,
+              moveCount INT NOT NULL,
+              clock TEXT,
+              PRIMARY KEY (gameID)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS game_log_move (
+              gameID INT NOT NULL,
+              seq INT NOT NULL,
+              move SMALLINT NOT NULL,
+              PRIMARY KEY (gameID, seq)
+            )""",
+            """
+            CREATE TABLE IF NOT EXISTS game_log_snapshot (
+              gameID INT NOT NULL,
+              seq INT NOT NULL,
+              game LONGTEXT NOT NULL,
+              PRIMARY KEY (gameID, seq)
+            )"""
+    };
+    private static final String[] TABLES = {"auth", "game", "game_log", "game_log_move", "game_log_snapshot", "user"};
+
+    /*
+     * Load the database information for the db.properties file.
+     */
+    static {
+        try {
+            try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
+                if (propStream == null) {
+                    throw new Exception("Unable to load db.properties");
+                }
+                Properties props = new Properties();
+                props.load(propStream);
+                DATABASE_NAME = props.getProperty("db.name");
+                USER = props.getProperty("db.user");
+                PASSWORD = props.getProperty("db.password");
+
+                var host = props.getProperty("db.host");
+                var port = Integer.parseInt(props.getProperty("db.port"));
+                // Batched inserts go out as one multi-row INSERT, and statements are prepared on the server once per connection
+                CONNECTION_URL = String.format("jdbc:mysql://%s:%d?rewriteBatchedStatements=true&useServerPrepStmts=true", host, port);
+                POOL = new ConnectionPool(DatabaseManager::openConnection, ConnectionPool.Settings.fromProperties(props));
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Creates the database if it does not already exist.
+     */
+    static void createDatabase() throws DataAccessException {
+        try {
+            var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+            try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+                 var preparedStatement = conn.prepareStatement(statement)) {
+                preparedStatement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the database and the DAO tables if they do not already exist.
+     */
+    public static void configureDatabase() throws DataAccessException {
+        createDatabase();
+        executeStatements(List.of(CREATE_STATEMENTS));
+    }
+
+    /**
+     * Empties every DAO table in a single round trip.
+     */
+    public static void clearTables() throws DataAccessException {
+        var statements = new ArrayList<String>();
+        for (var table : TABLES) {
+            statements.add("TRUNCATE TABLE " + table);
+        }
+        executeStatements(statements);
+    }
+
+    /**
+     * Runs one parameterized statement, returning the number of rows changed.
+     */
+    static int executeUpdate(String statement, Object... params) throws DataAccessException {
+        try (var conn = getConnection(); var preparedStatement = conn.prepareStatement(statement)) {
+            setParameters(preparedStatement, params);
+            return preparedStatement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Turns the current row of a result set into an object.
+     */
+    interface RowReader<T> {
+        T read(ResultSet row) throws SQLException;
+    }
+
+    /**
+     * Runs one parameterized query, reading every row of the result.
+     */
+    static <T> List<T> executeQuery(String statement, RowReader<T> reader, Object... params) throws DataAccessException {
+        try (var conn = getConnection(); var preparedStatement = conn.prepareStatement(statement)) {
+            setParameters(preparedStatement, params);
+            var results = new ArrayList<T>();
+            try (var resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    results.add(reader.read(resultSet));
+                }
+            }
+            return results;
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Work done on one connection inside one transaction.
+     */
+    interface Transaction {
+        void run(Connection conn) throws SQLException, DataAccessException;
+    }
+
+    /**
+     * Runs work on one connection inside one transaction, committing it if the work
+     * returns and rolling it back if the work throws.
+     */
+    static void executeTransaction(Transaction work) throws DataAccessException {
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                work.run(conn);
+                conn.commit();
+            } catch (SQLException | DataAccessException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one statement for every row of parameters as a single JDBC batch inside one
+     * transaction. With rewriteBatchedStatements an INSERT batch is sent as one
+     * multi-row INSERT, so the whole batch costs one round trip.
+     *
+     * @return the keys generated for the rows, in order, e.g. AUTO_INCREMENT ids
+     */
+    static List<Long> executeBatch(String statement, List<Object[]> rows) throws DataAccessException {
+        var keys = new ArrayList<Long>(rows.size());
+        if (!rows.isEmpty()) {
+            executeTransaction(conn -> keys.addAll(executeBatch(conn, statement, rows)));
+        }
+        return keys;
+    }
+
+    /**
+     * Runs one statement for every row of parameters as a single JDBC batch on a
+     * connection inside a transaction started by executeTransaction.
+     *
+     * @return the keys generated for the rows, in order, e.g. AUTO_INCREMENT ids
+     */
+    static List<Long> executeBatch(Connection conn, String statement, List<Object[]> rows) throws SQLException {
+        var keys = new ArrayList<Long>(rows.size());
+        if (rows.isEmpty()) {
+            return keys;
+        }
+        try (var preparedStatement = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)) {
+            for (var row : rows) {
+                setParameters(preparedStatement, row);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+            try (var generatedKeys = preparedStatement.getGeneratedKeys()) {
+                while (generatedKeys.next()) {
+                    keys.add(generatedKeys.getLong(1));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Runs an UPDATE or DELETE for every row of parameters as a single JDBC batch inside
+     * one transaction. If any row changes nothing, e.g. because the record it targets
+     * does not exist, the whole batch is rolled back.
+     *
+     * @return the number of rows changed by each row of parameters, in order
+     */
+    static int[] executeUpdateBatch(String statement, List<Object[]> rows) throws DataAccessException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        var counts = new int[rows.size()];
+        executeTransaction(conn -> System.arraycopy(executeUpdateBatch(conn, statement, rows), 0, counts, 0, counts.length));
+        return counts;
+    }
+
+    /**
+     * Runs an UPDATE or DELETE for every row of parameters as a single JDBC batch on a
+     * connection inside a transaction started by executeTransaction, failing if any row
+     * changes nothing so that the transaction is rolled back.
+     *
+     * @return the number of rows changed by each row of parameters, in order
+     */
+    static int[] executeUpdateBatch(Connection conn, String statement, List<Object[]> rows)
+            throws SQLException, DataAccessException {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        try (var preparedStatement = conn.prepareStatement(statement)) {
+            for (var row : rows) {
+                setParameters(preparedStatement, row);
+                preparedStatement.addBatch();
+            }
+            int[] counts = preparedStatement.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                // SUCCESS_NO_INFO (-2) means the row ran but the driver did not count it
+                if (counts[i] == 0) {
+                    throw new DataAccessException("Batch row " + i + " of " + counts.length + " changed nothing");
+                }
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * Runs several unparameterized statements as one batch.
+     */
+    static void executeStatements(List<String> statements) throws DataAccessException {
+        try (var conn = getConnection(); var statement = conn.createStatement()) {
+            for (var sql : statements) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+        } catch (SQLException e) {
+            throw new DataAccessException(e.getMessage());
+        }
+    }
+
+    private static void setParameters(PreparedStatement preparedStatement, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            var param = params[i];
+            switch (param) {
+                case null -> preparedStatement.setNull(i + 1, Types.NULL);
+                case String text -> preparedStatement.setString(i + 1, text);
+                case Integer number -> preparedStatement.setInt(i + 1, number);
+                case Long number -> preparedStatement.setLong(i + 1, number);
+                case byte[] bytes -> preparedStatement.setBytes(i + 1, bytes);
+                default -> preparedStatement.setObject(i + 1, param);
+            }
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool, with the catalog set based upon the
+     * properties specified in db.properties. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it,
+     * which returns it to the pool. The easiest way to do that is with a
+     * try-with-resource block.
+     * <br/>
+     * <code>
+     * try (var conn = DatabaseManager.getConnection()) {
+     * // execute SQL statements.
+     * }
+     * </code>
+     */
+    static Connection getConnection() throws DataAccessException {
+        return POOL.getConnection();
+    }
+
+    /**
+     * Gets the connection pool's current size and counters, e.g. for monitoring.
+     */
+    public static ConnectionPool.PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    private static Connection openConnection() throws SQLException {
+        var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+        conn.setCatalog(DATABASE_NAME);
+        return conn;
+    }
+}
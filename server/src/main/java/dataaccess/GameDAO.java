@@ -0,0 +1,39 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Storage for games
+ */
+public interface GameDAO
+{
+    // Method to store a new game, ignoring its gameID, and return the id it was given
+    int createGame(GameData game) throws DataAccessException;
+
+    // Method to store many games at once, returning their ids in the same order
+    List<Integer> createGames(List<GameData> games) throws DataAccessException;
+
+    // Method to get a game by id, or null if there is none
+    GameData getGame(int gameID) throws DataAccessException;
+
+    // Method to get every game
+    Collection<GameData> listGames() throws DataAccessException;
+
+    // Method to replace a stored game with the given one, matched by gameID
+    void updateGame(GameData game) throws DataAccessException;
+
+    // Method to replace several stored games at once
+    default void updateGames(Collection<GameData> games) throws DataAccessException
+    {
+        for (GameData game : games)
+        {
+            updateGame(game);
+        }
+    }
+
+    // Method to remove every game
+    void clear() throws DataAccessException;
+}
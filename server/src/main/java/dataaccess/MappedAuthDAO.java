@@ -0,0 +1,59 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AuthDAO kept in a MappedStore, mapping each token to its username
+ */
+public class MappedAuthDAO implements AuthDAO
+{
+    static final byte TABLE = 2;
+
+    private final MappedStore store;
+
+    public MappedAuthDAO(MappedStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException
+    {
+        store.put(TABLE, auth.authToken(), auth.username().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException
+    {
+        Map<String, byte[]> values = new HashMap<>();
+        for (AuthData auth : auths)
+        {
+            values.put(auth.authToken(), auth.username().getBytes(StandardCharsets.UTF_8));
+        }
+        store.putAll(TABLE, values);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken)
+    {
+        byte[] username = store.get(TABLE, authToken);
+        return (username == null) ? null : new AuthData(authToken, new String(username, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException
+    {
+        store.delete(TABLE, authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        store.clear(TABLE);
+    }
+}
@@ -0,0 +1,112 @@
+package dataaccess;
+
+import chess.ChessJson;
+import com.google.gson.Gson;
+import model.GameData;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GameDAO kept in a MappedStore, one JSON record per game keyed by its id. Ids count up
+ * from one past the highest stored id, like an AUTO_INCREMENT column. Ids are taken and
+ * reset while holding the store's monitor, the lock its own writes use, so a new game
+ * can never be written over an existing one.
+ */
+public class MappedGameDAO implements GameDAO
+{
+    static final byte TABLE = 3;
+
+    private final MappedStore store;
+    private final Gson gson = ChessJson.gson();
+    private final AtomicInteger lastID = new AtomicInteger();
+
+    public MappedGameDAO(MappedStore store)
+    {
+        this.store = store;
+        for (String key : store.keys(TABLE))
+        {
+            lastID.accumulateAndGet(Integer.parseInt(key), Math::max);
+        }
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException
+    {
+        synchronized (store)
+        {
+            while (true)
+            {
+                int gameID = lastID.incrementAndGet();
+                // A key written by anything but this DAO is skipped over rather than replaced
+                if (store.putIfAbsent(TABLE, Integer.toString(gameID), encode(game, gameID)))
+                {
+                    return gameID;
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException
+    {
+        List<Integer> ids = new ArrayList<>(games.size());
+        for (GameData game : games)
+        {
+            ids.add(createGame(game));
+        }
+        return ids;
+    }
+
+    @Override
+    public GameData getGame(int gameID)
+    {
+        byte[] game = store.get(TABLE, Integer.toString(gameID));
+        return (game == null) ? null : decode(game);
+    }
+
+    @Override
+    public Collection<GameData> listGames()
+    {
+        List<GameData> games = new ArrayList<>();
+        for (byte[] game : store.values(TABLE))
+        {
+            games.add(decode(game));
+        }
+        return games;
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException
+    {
+        // Checked and written under the store's lock, so a concurrent clear() cannot be undone
+        if (!store.replace(TABLE, Integer.toString(game.gameID()), encode(game, game.gameID())))
+        {
+            throw new DataAccessException("No game with id " + game.gameID());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        synchronized (store)
+        {
+            store.clear(TABLE);
+            lastID.set(0);
+        }
+    }
+
+    private byte[] encode(GameData game, int gameID)
+    {
+        GameData stored = new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game());
+        return gson.toJson(stored).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private GameData decode(byte[] game)
+    {
+        return gson.fromJson(new String(game, StandardCharsets.UTF_8), GameData.class);
+    }
+}
@@ -0,0 +1,502 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured key-value store kept in memory-mapped segment files, the storage of the
+ * mapped DAOs.
+ * <p>
+ * Keys live in tables numbered by the caller. Every put or delete is appended to the
+ * active segment as one record: total length, table, operation, key and value lengths,
+ * a CRC32, then the key and value bytes. The length is written last, so a record cut
+ * short by a crash reads as the end of the log. A full segment is forced to disk and a
+ * new one is mapped. An in-memory index maps every live key to where its value sits in
+ * a segment, so a read is a hash lookup and a copy out of the page cache.
+ * <p>
+ * Opening the store replays the segments in order to rebuild the index. In the last
+ * segment, where a crash can leave a record half written, the first missing or damaged
+ * record ends the log. A damaged record in any earlier segment means a file was
+ * corrupted after it was written, and opening fails instead of replaying the later
+ * segments on top of the gap. Overwritten and deleted records are garbage; a
+ * compaction thread copies the live records into fresh segments and deletes the old
+ * ones once garbage passes half of the log. Writes go to the page cache and survive a
+ * crash of the process; with syncWrites each one is also forced to disk.
+ */
+public class MappedStore implements AutoCloseable
+{
+
+    private static final Logger LOG = LoggerFactory.getLogger(MappedStore.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    // Record length, table, operation, key length, value length and checksum
+    private static final int HEADER_SIZE = 4 + 1 + 1 + 2 + 4 + 4;
+
+    /**
+     * Store configuration, read from the db.mapped.* keys of db.properties
+     *
+     * @param directory                directory holding the segment files
+     * @param segmentSize              bytes mapped per segment, which bounds the largest record
+     * @param compactionIntervalMillis time between checks for compaction, 0 to compact only on request
+     * @param syncWrites               whether every write is forced to disk before returning
+     */
+    public record Settings(Path directory, int segmentSize, long compactionIntervalMillis, boolean syncWrites)
+    {
+        public static Settings fromProperties(Properties props)
+        {
+            return new Settings(
+                    Path.of(props.getProperty("db.mapped.directory", "data")),
+                    Integer.parseInt(props.getProperty("db.mapped.segmentSize", "16777216")),
+                    Long.parseLong(props.getProperty("db.mapped.compactionIntervalMillis", "60000")),
+                    Boolean.parseBoolean(props.getProperty("db.mapped.syncWrites", "false")));
+        }
+    }
+
+    private record Segment(long id, Path path, MappedByteBuffer buffer)
+    {
+    }
+
+    // Where a live value sits, and the size of its whole record
+    private record Location(Segment segment, int valueOffset, int valueLength, int recordSize)
+    {
+    }
+
+    private final Settings settings;
+    private final Map<Byte, Map<String, Location>> tables = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService compactor;
+
+    // Log state, guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private int writePosition;
+    private long nextSegmentId;
+    private long liveBytes;
+    private long totalBytes;
+
+    /**
+     * Opens a store, replaying its segments or creating the first one
+     *
+     * @param settings store configuration
+     * @throws DataAccessException if the segment files cannot be opened
+     */
+    public MappedStore(Settings settings) throws DataAccessException
+    {
+        this.settings = settings;
+        try
+        {
+            Files.createDirectories(settings.directory());
+            List<Path> paths;
+            try (Stream<Path> files = Files.list(settings.directory()))
+            {
+                paths = files.filter(MappedStore::isSegment)
+                        .sorted((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                        .toList();
+            }
+            for (int i = 0; i < paths.size(); i++)
+            {
+                Segment segment = mapSegment(paths.get(i), segmentId(paths.get(i)));
+                segments.add(segment);
+                writePosition = replay(segment);
+                if (!isZeroFrom(segment.buffer(), writePosition))
+                {
+                    if (i < paths.size() - 1)
+                    {
+                        throw new DataAccessException("Segment " + segment.path() + " is damaged at byte "
+                                + writePosition + " and is followed by later segments; the store needs repair");
+                    }
+                    // A record torn by a crash; zero it so new records are not followed by stale bytes
+                    zeroFrom(segment.buffer(), writePosition);
+                }
+                active = segment;
+                nextSegmentId = segment.id() + 1;
+            }
+            if (active == null)
+            {
+                rollSegment();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new DataAccessException("Unable to open store in " + settings.directory() + ": " + e.getMessage());
+        }
+
+        compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (settings.compactionIntervalMillis() > 0)
+        {
+            compactor.scheduleWithFixedDelay(this::compactIfNeeded, settings.compactionIntervalMillis(),
+                    settings.compactionIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Method to read a value, or null if the key is not stored
+    public byte[] get(byte table, String key)
+    {
+        Location location = table(table).get(key);
+        return (location == null) ? null : read(location);
+    }
+
+    // Method to check whether a key is stored
+    public boolean contains(byte table, String key)
+    {
+        return table(table).containsKey(key);
+    }
+
+    // Method to read every value of a table, in no particular order
+    public List<byte[]> values(byte table)
+    {
+        List<byte[]> values = new ArrayList<>();
+        for (Location location : table(table).values())
+        {
+            values.add(read(location));
+        }
+        return values;
+    }
+
+    // Method to get every key of a table, in no particular order
+    public List<String> keys(byte table)
+    {
+        return new ArrayList<>(table(table).keySet());
+    }
+
+    // Method to store a value, replacing any value under the same key
+    public synchronized void put(byte table, String key, byte[] value) throws DataAccessException
+    {
+        append(table, PUT, key, value);
+    }
+
+    // Method to store a value only if its key is not stored yet, returning whether it was stored
+    public synchronized boolean putIfAbsent(byte table, String key, byte[] value) throws DataAccessException
+    {
+        if (contains(table, key))
+        {
+            return false;
+        }
+        append(table, PUT, key, value);
+        return true;
+    }
+
+    // Method to store a value only if its key is already stored, returning whether it was stored
+    public synchronized boolean replace(byte table, String key, byte[] value) throws DataAccessException
+    {
+        if (!contains(table, key))
+        {
+            return false;
+        }
+        append(table, PUT, key, value);
+        return true;
+    }
+
+    // Method to store several values with one lock and at most one forced write
+    public synchronized void putAll(byte table, Map<String, byte[]> values) throws DataAccessException
+    {
+        for (Map.Entry<String, byte[]> entry : values.entrySet())
+        {
+            append(table, PUT, entry.getKey(), entry.getValue(), false);
+        }
+        if (settings.syncWrites())
+        {
+            sync();
+        }
+    }
+
+    // Method to remove a key, returning whether it was stored
+    public synchronized boolean delete(byte table, String key) throws DataAccessException
+    {
+        if (!contains(table, key))
+        {
+            return false;
+        }
+        append(table, DELETE, key, new byte[0]);
+        return true;
+    }
+
+    // Method to remove every key of a table
+    public synchronized void clear(byte table) throws DataAccessException
+    {
+        for (String key : keys(table))
+        {
+            append(table, DELETE, key, new byte[0], false);
+        }
+        if (settings.syncWrites())
+        {
+            sync();
+        }
+    }
+
+    /**
+     * Copies every live record into fresh segments and deletes the old ones. A crash
+     * part way leaves both copies, and replaying them in order gives the same state.
+     *
+     * @throws DataAccessException if the new segments cannot be written
+     */
+    public synchronized void compact() throws DataAccessException
+    {
+        List<Segment> old = new ArrayList<>(segments);
+        rollSegment();
+        totalBytes = 0;
+        for (Map.Entry<Byte, Map<String, Location>> table : tables.entrySet())
+        {
+            for (Map.Entry<String, Location> entry : table.getValue().entrySet())
+            {
+                append(table.getKey(), PUT, entry.getKey(), read(entry.getValue()), false);
+            }
+        }
+        liveBytes = totalBytes; // Everything just copied is live
+        sync();
+        deleteSegments(old);
+    }
+
+    // Method to force the active segment to disk
+    public synchronized void sync()
+    {
+        active.buffer().force();
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        compactor.shutdownNow();
+        sync();
+    }
+
+    private void append(byte table, byte operation, String key, byte[] value) throws DataAccessException
+    {
+        append(table, operation, key, value, settings.syncWrites());
+    }
+
+    private void append(byte table, byte operation, String key, byte[] value, boolean force) throws DataAccessException
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int size = HEADER_SIZE + keyBytes.length + value.length;
+        if (keyBytes.length > Short.MAX_VALUE || size > settings.segmentSize())
+        {
+            throw new DataAccessException("Record for key " + key + " does not fit in a segment");
+        }
+        if (writePosition + size > active.buffer().capacity())
+        {
+            rollSegment();
+        }
+
+        MappedByteBuffer buffer = active.buffer();
+        int start = writePosition;
+        buffer.put(start + 4, table);
+        buffer.put(start + 5, operation);
+        buffer.putShort(start + 6, (short) keyBytes.length);
+        buffer.putInt(start + 8, value.length);
+        buffer.putInt(start + 12, (int) checksum(table, operation, keyBytes, value));
+        buffer.put(start + HEADER_SIZE, keyBytes);
+        buffer.put(start + HEADER_SIZE + keyBytes.length, value);
+        buffer.putInt(start, size); // Written last, so a torn record reads as the end of the log
+        if (force)
+        {
+            buffer.force(start, size);
+        }
+        writePosition += size;
+
+        apply(active, start, table, operation, key, keyBytes.length, value.length, size);
+    }
+
+    // Method to replay a segment into the index, returning where its log ends at the first missing or damaged record
+    private int replay(Segment segment)
+    {
+        MappedByteBuffer buffer = segment.buffer();
+        int position = 0;
+        while (position + HEADER_SIZE <= buffer.capacity())
+        {
+            int size = buffer.getInt(position);
+            if (size == 0)
+            {
+                return position;
+            }
+            byte table = buffer.get(position + 4);
+            byte operation = buffer.get(position + 5);
+            int keyLength = buffer.getShort(position + 6);
+            int valueLength = buffer.getInt(position + 8);
+            if (keyLength < 0 || valueLength < 0 || size != HEADER_SIZE + keyLength + valueLength
+                    || position + size > buffer.capacity())
+            {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            byte[] value = new byte[valueLength];
+            buffer.get(position + HEADER_SIZE, keyBytes);
+            buffer.get(position + HEADER_SIZE + keyLength, value);
+            if ((int) checksum(table, operation, keyBytes, value) != buffer.getInt(position + 12))
+            {
+                break;
+            }
+            apply(segment, position, table, operation, new String(keyBytes, StandardCharsets.UTF_8), keyLength,
+                    valueLength, size);
+            position += size;
+        }
+        return position;
+    }
+
+    // Method to check that nothing but zeros follows the end of a segment's log
+    private static boolean isZeroFrom(MappedByteBuffer buffer, int position)
+    {
+        for (int i = position; i < buffer.capacity(); i++)
+        {
+            if (buffer.get(i) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void zeroFrom(MappedByteBuffer buffer, int position)
+    {
+        for (int i = position; i < buffer.capacity(); i++)
+        {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    // Method to update the index and the garbage counts for one record of the log
+    private void apply(Segment segment, int start, byte table, byte operation, String key, int keyLength,
+                       int valueLength, int size)
+    {
+        totalBytes += size;
+        Location previous;
+        if (operation == PUT)
+        {
+            liveBytes += size;
+            previous = table(table).put(key, new Location(segment, start + HEADER_SIZE + keyLength, valueLength, size));
+        }
+        else
+        {
+            previous = table(table).remove(key);
+        }
+        if (previous != null)
+        {
+            liveBytes -= previous.recordSize();
+        }
+    }
+
+    private void compactIfNeeded()
+    {
+        try
+        {
+            boolean needed;
+            synchronized (this)
+            {
+                needed = totalBytes > settings.segmentSize() && liveBytes * 2 < totalBytes;
+            }
+            if (needed)
+            {
+                compact();
+            }
+        }
+        catch (DataAccessException | RuntimeException e)
+        {
+            LOG.error("Store compaction failed", e);
+        }
+    }
+
+    private void rollSegment() throws DataAccessException
+    {
+        if (active != null)
+        {
+            active.buffer().force();
+        }
+        long id = nextSegmentId++;
+        try
+        {
+            active = mapSegment(settings.directory().resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX), id);
+        }
+        catch (IOException e)
+        {
+            throw new DataAccessException("Unable to create segment " + id + ": " + e.getMessage());
+        }
+        segments.add(active);
+        writePosition = 0;
+    }
+
+    // Method to delete segment files; mappings stay readable until collected, so concurrent reads are safe
+    private void deleteSegments(List<Segment> old) throws DataAccessException
+    {
+        for (Segment segment : old)
+        {
+            try
+            {
+                Files.deleteIfExists(segment.path());
+            }
+            catch (IOException e)
+            {
+                throw new DataAccessException("Unable to delete " + segment.path() + ": " + e.getMessage());
+            }
+        }
+        segments.removeAll(old);
+    }
+
+    private Segment mapSegment(Path path, long id) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE))
+        {
+            long size = (channel.size() > 0) ? channel.size() : settings.segmentSize();
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private Map<String, Location> table(byte table)
+    {
+        return tables.computeIfAbsent(table, number -> new ConcurrentHashMap<>());
+    }
+
+    private static byte[] read(Location location)
+    {
+        byte[] value = new byte[location.valueLength()];
+        location.segment().buffer().get(location.valueOffset(), value);
+        return value;
+    }
+
+    private static long checksum(byte table, byte operation, byte[] key, byte[] value)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(table);
+        crc.update(operation);
+        crc.update(key);
+        crc.update(value);
+        return crc.getValue();
+    }
+
+    private static boolean isSegment(Path path)
+    {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long segmentId(Path path)
+    {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,44 @@
+package dataaccess;
+
+import com.google.gson.Gson;
+import model.UserData;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UserDAO kept in a MappedStore, one JSON record per user keyed by username
+ */
+public class MappedUserDAO implements UserDAO
+{
+    static final byte TABLE = 1;
+
+    private final MappedStore store;
+    private final Gson gson = new Gson();
+
+    public MappedUserDAO(MappedStore store)
+    {
+        this.store = store;
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException
+    {
+        if (!store.putIfAbsent(TABLE, user.username(), gson.toJson(user).getBytes(StandardCharsets.UTF_8)))
+        {
+            throw new DataAccessException("Username " + user.username() + " is already taken");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username)
+    {
+        byte[] user = store.get(TABLE, username);
+        return (user == null) ? null : gson.fromJson(new String(user, StandardCharsets.UTF_8), UserData.class);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        store.clear(TABLE);
+    }
+}
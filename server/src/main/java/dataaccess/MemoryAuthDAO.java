@@ -0,0 +1,51 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AuthDAO kept in memory. ConcurrentHashMap locks single bins on writes and never locks
+ * on reads, so token checks do not contend with logins and logouts.
+ */
+public class MemoryAuthDAO implements AuthDAO
+{
+    // Username of every live token
+    private final Map<String, String> usernames = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAuth(AuthData auth)
+    {
+        usernames.put(auth.authToken(), auth.username());
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths)
+    {
+        for (AuthData auth : auths)
+        {
+            usernames.put(auth.authToken(), auth.username());
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken)
+    {
+        String username = usernames.get(authToken);
+        return (username == null) ? null : new AuthData(authToken, username);
+    }
+
+    @Override
+    public void deleteAuth(String authToken)
+    {
+        usernames.remove(authToken);
+    }
+
+    @Override
+    public void clear()
+    {
+        usernames.clear();
+    }
+}
@@ -0,0 +1,135 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * GameDAO kept in memory.
+ * <p>
+ * Game ids are handed out in order from 1, so instead of a hash map the games sit in
+ * fixed-size chunks indexed by id: a lookup is two array loads with no hashing or
+ * boxing, and reads and updates take no lock. Only adding a chunk, once every
+ * CHUNK_SIZE games, takes a lock. The chunks and the id counter live in one table
+ * that clear swaps for a fresh one, so a creation racing a clear lands wholly in the
+ * old table or wholly in the new one.
+ */
+public class MemoryGameDAO implements GameDAO
+{
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private volatile Table table = new Table();
+
+    private static final class Table
+    {
+        // Chunk i holds games i * CHUNK_SIZE to (i + 1) * CHUNK_SIZE - 1; replaced, never changed, when it grows
+        private volatile AtomicReferenceArray<GameData>[] chunks = newChunks(0);
+        private final AtomicInteger lastID = new AtomicInteger();
+    }
+
+    @Override
+    public int createGame(GameData game)
+    {
+        Table current = table;
+        int gameID = current.lastID.incrementAndGet();
+        chunkFor(current, gameID, true).set(gameID & (CHUNK_SIZE - 1),
+                new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game()));
+        return gameID;
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games)
+    {
+        List<Integer> ids = new ArrayList<>(games.size());
+        for (GameData game : games)
+        {
+            ids.add(createGame(game));
+        }
+        return ids;
+    }
+
+    @Override
+    public GameData getGame(int gameID)
+    {
+        AtomicReferenceArray<GameData> chunk = chunkFor(table, gameID, false);
+        return (chunk == null) ? null : chunk.get(gameID & (CHUNK_SIZE - 1));
+    }
+
+    @Override
+    public Collection<GameData> listGames()
+    {
+        List<GameData> games = new ArrayList<>();
+        Table current = table;
+        int last = current.lastID.get();
+        for (int gameID = 1; gameID <= last; gameID++)
+        {
+            AtomicReferenceArray<GameData> chunk = chunkFor(current, gameID, false);
+            GameData game = (chunk == null) ? null : chunk.get(gameID & (CHUNK_SIZE - 1));
+            if (game != null)
+            {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException
+    {
+        AtomicReferenceArray<GameData> chunk = chunkFor(table, game.gameID(), false);
+        int slot = game.gameID() & (CHUNK_SIZE - 1);
+        if (chunk == null || chunk.get(slot) == null)
+        {
+            throw new DataAccessException("No game with id " + game.gameID());
+        }
+        chunk.set(slot, game);
+    }
+
+    @Override
+    public void clear()
+    {
+        table = new Table();
+    }
+
+    // Method to find the chunk of a table holding a game id, optionally adding chunks up to it
+    private static AtomicReferenceArray<GameData> chunkFor(Table table, int gameID, boolean create)
+    {
+        int index = gameID >>> CHUNK_BITS;
+        AtomicReferenceArray<GameData>[] current = table.chunks;
+        if (index < current.length)
+        {
+            return current[index];
+        }
+        if (!create)
+        {
+            return null;
+        }
+        synchronized (table)
+        {
+            current = table.chunks;
+            if (index >= current.length)
+            {
+                AtomicReferenceArray<GameData>[] grown = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+                for (int i = current.length; i < grown.length; i++)
+                {
+                    grown[i] = new AtomicReferenceArray<>(CHUNK_SIZE);
+                }
+                table.chunks = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AtomicReferenceArray<GameData>[] newChunks(int count)
+    {
+        return new AtomicReferenceArray[count];
+    }
+}
@@ -0,0 +1,35 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UserDAO kept in memory, for load tests and deployments without a database
+ */
+public class MemoryUserDAO implements UserDAO
+{
+    private final Map<String, UserData> users = new ConcurrentHashMap<>();
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException
+    {
+        if (users.putIfAbsent(user.username(), user) != null)
+        {
+            throw new DataAccessException("Username " + user.username() + " is already taken");
+        }
+    }
+
+    @Override
+    public UserData getUser(String username)
+    {
+        return users.get(username);
+    }
+
+    @Override
+    public void clear()
+    {
+        users.clear();
+    }
+}
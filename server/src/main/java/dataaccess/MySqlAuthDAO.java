@@ -0,0 +1,57 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * AuthDAO backed by the MySQL auth table
+ */
+public class MySqlAuthDAO implements AuthDAO
+{
+    private static final String INSERT = "INSERT INTO auth (authToken, username) VALUES (?, ?)";
+
+    public MySqlAuthDAO() throws DataAccessException
+    {
+        DatabaseManager.configureDatabase();
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException
+    {
+        DatabaseManager.executeUpdate(INSERT, auth.authToken(), auth.username());
+    }
+
+    @Override
+    public void createAuths(Collection<AuthData> auths) throws DataAccessException
+    {
+        List<Object[]> rows = new ArrayList<>(auths.size());
+        for (AuthData auth : auths)
+        {
+            rows.add(new Object[] {auth.authToken(), auth.username()});
+        }
+        DatabaseManager.executeBatch(INSERT, rows);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException
+    {
+        List<AuthData> auths = DatabaseManager.executeQuery("SELECT authToken, username FROM auth WHERE authToken = ?",
+                row -> new AuthData(row.getString("authToken"), row.getString("username")), authToken);
+        return auths.isEmpty() ? null : auths.get(0);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException
+    {
+        DatabaseManager.executeUpdate("DELETE FROM auth WHERE authToken = ?", authToken);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        DatabaseManager.executeUpdate("TRUNCATE TABLE auth");
+    }
+}
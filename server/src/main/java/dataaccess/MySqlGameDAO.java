@@ -0,0 +1,103 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessJson;
+import com.google.gson.Gson;
+import model.GameData;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * GameDAO backed by the MySQL game table, storing each ChessGame as JSON
+ */
+public class MySqlGameDAO implements GameDAO
+{
+    private static final String INSERT = "INSERT INTO game (whiteUsername, blackUsername, gameName, game) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE game SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameID = ?";
+    private static final String SELECT = "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM game";
+
+    private final Gson gson = ChessJson.gson();
+
+    public MySqlGameDAO() throws DataAccessException
+    {
+        DatabaseManager.configureDatabase();
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException
+    {
+        return createGames(List.of(game)).get(0);
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException
+    {
+        List<Object[]> rows = new ArrayList<>(games.size());
+        for (GameData game : games)
+        {
+            rows.add(new Object[] {game.whiteUsername(), game.blackUsername(), game.gameName(), gson.toJson(game.game())});
+        }
+        List<Integer> ids = new ArrayList<>(games.size());
+        for (long id : DatabaseManager.executeBatch(INSERT, rows))
+        {
+            ids.add((int) id);
+        }
+        return ids;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException
+    {
+        List<GameData> games = DatabaseManager.executeQuery(SELECT + " WHERE gameID = ?", this::readGame, gameID);
+        return games.isEmpty() ? null : games.get(0);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException
+    {
+        return DatabaseManager.executeQuery(SELECT, this::readGame);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException
+    {
+        int changed = DatabaseManager.executeUpdate(UPDATE, updateRow(game));
+        if (changed == 0)
+        {
+            throw new DataAccessException("No game with id " + game.gameID());
+        }
+    }
+
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException
+    {
+        List<Object[]> rows = new ArrayList<>(games.size());
+        for (GameData game : games)
+        {
+            rows.add(updateRow(game));
+        }
+        DatabaseManager.executeUpdateBatch(UPDATE, rows);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        DatabaseManager.executeUpdate("TRUNCATE TABLE game");
+    }
+
+    private Object[] updateRow(GameData game)
+    {
+        return new Object[] {game.whiteUsername(), game.blackUsername(), game.gameName(), gson.toJson(game.game()),
+                game.gameID()};
+    }
+
+    private GameData readGame(ResultSet row) throws SQLException
+    {
+        return new GameData(row.getInt("gameID"), row.getString("whiteUsername"), row.getString("blackUsername"),
+                row.getString("gameName"), gson.fromJson(row.getString("game"), ChessGame.class));
+    }
+}
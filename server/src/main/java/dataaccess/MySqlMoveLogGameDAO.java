@@ -0,0 +1,292 @@
+package dataaccess;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import chess.ChessJson;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+import model.GameData;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GameDAO that stores each game as an append-only log of moves plus periodic snapshots,
+ * instead of rewriting the whole game JSON on every move.
+ * <p>
+ * Every logged move gets the game's next sequence number. game_log_move holds one small
+ * row per move, packed with ChessMove.encode, and game_log_snapshot holds the full game
+ * JSON when the game is created, every SNAPSHOT_INTERVAL moves, and whenever its position
+ * was set directly rather than played. The game_log row holds the players, the name, the
+ * clock and moveCount, the number of moves logged. An update writes its moves, snapshots
+ * and rows in one transaction on one connection, so a failed update leaves nothing behind;
+ * in particular a snapshot replaced because the position was set directly never becomes
+ * visible to a row that still describes the game before it was set.
+ * <p>
+ * Snapshots hold only the position and clock, not the move history, since the moves
+ * are already in game_log_move; a snapshot stays the same size however long the game.
+ * Loading takes the latest snapshot and replays the moves after it through
+ * ChessGame.makeMove with the clock detached, then restores the clock from the row. The
+ * loaded game's history is just the replayed moves, so its history starts at the
+ * snapshot's sequence number.
+ * Updates of one game must not run concurrently, as with WriteBehindGameDAO's single
+ * flush thread.
+ */
+public class MySqlMoveLogGameDAO implements GameDAO
+{
+
+    // Moves between snapshots, bounding how many moves a load replays
+    public static final int SNAPSHOT_INTERVAL = 32;
+
+    private static final String INSERT = "INSERT INTO game_log (whiteUsername, blackUsername, gameName, historyId, "
+            + "historyOffset, moveCount, clock) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE game_log SET whiteUsername = ?, blackUsername = ?, gameName = ?, "
+            + "historyId = ?, historyOffset = ?, moveCount = ?, clock = ? WHERE gameID = ?";
+    private static final String INSERT_MOVE = "REPLACE INTO game_log_move (gameID, seq, move) VALUES (?, ?, ?)";
+    private static final String INSERT_SNAPSHOT = "REPLACE INTO game_log_snapshot (gameID, seq, game) VALUES (?, ?, ?)";
+    private static final String SELECT = "SELECT gameID, whiteUsername, blackUsername, gameName, historyId, "
+            + "historyOffset, moveCount, clock FROM game_log g WHERE %s";
+
+    // Latest snapshot of each game within its logged moves, the %s filters the games
+    private static final String LATEST = "(SELECT s.gameID, MAX(s.seq) AS seq FROM game_log_snapshot s "
+            + "JOIN game_log g ON s.gameID = g.gameID WHERE s.seq <= g.moveCount AND %s GROUP BY s.gameID) latest";
+    private static final String SELECT_SNAPSHOTS = "SELECT s.gameID, s.seq, s.game FROM game_log_snapshot s JOIN " + LATEST
+            + " ON s.gameID = latest.gameID AND s.seq = latest.seq";
+    private static final String SELECT_MOVES = "SELECT m.gameID, m.move FROM game_log_move m "
+            + "JOIN game_log g ON m.gameID = g.gameID JOIN " + LATEST + " ON m.gameID = latest.gameID "
+            + "WHERE m.seq >= latest.seq AND m.seq < g.moveCount ORDER BY m.gameID, m.seq";
+    private static final String BY_ID = "g.gameID = ?";
+    private static final String ALL = "TRUE";
+
+    // What is logged for a game: its history's id, the sequence number of the history's first move, and the moves logged
+    private record LogState(long historyId, int historyOffset, int moveCount)
+    {
+    }
+
+    // A game's latest snapshot and its sequence number
+    private record Snapshot(int seq, ChessGame game)
+    {
+    }
+
+    // One game_log row
+    private record LogRow(int gameID, String whiteUsername, String blackUsername, String gameName, LogState state,
+                          String clock)
+    {
+    }
+
+    private final Gson gson = ChessJson.gson();
+
+    // Log state of every game read or written by this DAO, so updates need no extra query
+    private final Map<Integer, LogState> logStates = new ConcurrentHashMap<>();
+
+    public MySqlMoveLogGameDAO() throws DataAccessException
+    {
+        DatabaseManager.configureDatabase();
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException
+    {
+        return createGames(List.of(game)).get(0);
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> games) throws DataAccessException
+    {
+        List<LogState> states = new ArrayList<>(games.size());
+        List<Object[]> rows = new ArrayList<>(games.size());
+        for (GameData game : games)
+        {
+            ChessGame chessGame = game.game();
+            LogState state = new LogState(chessGame.getHistoryId(), -chessGame.getMoveHistory().size(), 0);
+            states.add(state);
+            rows.add(logRow(game, state));
+        }
+        List<Integer> ids = new ArrayList<>(games.size());
+        // The row and its first snapshot commit together, so no game is ever stored without one
+        DatabaseManager.executeTransaction(conn -> {
+            List<Long> keys = DatabaseManager.executeBatch(conn, INSERT, rows);
+            List<Object[]> snapshots = new ArrayList<>(games.size());
+            for (int i = 0; i < keys.size(); i++)
+            {
+                int gameID = keys.get(i).intValue();
+                ids.add(gameID);
+                snapshots.add(new Object[] {gameID, 0, gson.toJson(games.get(i).game())});
+            }
+            DatabaseManager.executeBatch(conn, INSERT_SNAPSHOT, snapshots);
+        });
+        for (int i = 0; i < ids.size(); i++)
+        {
+            logStates.put(ids.get(i), states.get(i));
+        }
+        return ids;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException
+    {
+        List<GameData> games = loadGames(BY_ID, gameID);
+        return games.isEmpty() ? null : games.get(0);
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException
+    {
+        return loadGames(ALL);
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException
+    {
+        updateGames(List.of(game));
+    }
+
+    /**
+     * Logs the moves each game made since it was last written, adding a snapshot where
+     * one is due, with one batch per table
+     */
+    @Override
+    public void updateGames(Collection<GameData> games) throws DataAccessException
+    {
+        List<Object[]> moves = new ArrayList<>();
+        List<Object[]> snapshots = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>(games.size());
+        Map<Integer, LogState> written = new HashMap<>();
+        for (GameData game : games)
+        {
+            ChessGame chessGame = game.game();
+            List<Integer> history = chessGame.getMoveHistory();
+            LogState logged = logStateOf(game.gameID());
+            LogState state;
+            if (chessGame.getHistoryId() == logged.historyId()
+                    && history.size() >= logged.moveCount() - logged.historyOffset())
+            {
+                state = new LogState(logged.historyId(), logged.historyOffset(), logged.historyOffset() + history.size());
+                for (int seq = logged.moveCount(); seq < state.moveCount(); seq++)
+                {
+                    moves.add(new Object[] {game.gameID(), seq, history.get(seq - state.historyOffset())});
+                }
+                if (state.moveCount() / SNAPSHOT_INTERVAL > logged.moveCount() / SNAPSHOT_INTERVAL)
+                {
+                    snapshots.add(new Object[] {game.gameID(), state.moveCount(), gson.toJson(chessGame)});
+                }
+            }
+            else
+            {
+                // The position was set directly, so there are no moves to log; start over from a snapshot
+                state = new LogState(chessGame.getHistoryId(), logged.moveCount() - history.size(), logged.moveCount());
+                snapshots.add(new Object[] {game.gameID(), state.moveCount(), gson.toJson(chessGame)});
+            }
+            Object[] row = logRow(game, state);
+            Object[] update = new Object[row.length + 1];
+            System.arraycopy(row, 0, update, 0, row.length);
+            update[row.length] = game.gameID();
+            rows.add(update);
+            written.put(game.gameID(), state);
+        }
+        // One transaction: a direct-set snapshot replaces the one the committed row points to
+        DatabaseManager.executeTransaction(conn -> {
+            DatabaseManager.executeBatch(conn, INSERT_MOVE, moves);
+            DatabaseManager.executeBatch(conn, INSERT_SNAPSHOT, snapshots);
+            DatabaseManager.executeUpdateBatch(conn, UPDATE, rows);
+        });
+        logStates.putAll(written);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        DatabaseManager.executeStatements(List.of("TRUNCATE TABLE game_log", "TRUNCATE TABLE game_log_move",
+                "TRUNCATE TABLE game_log_snapshot"));
+        logStates.clear();
+    }
+
+    // Method to find what is logged for a game, reading its row if this DAO has not seen it yet
+    private LogState logStateOf(int gameID) throws DataAccessException
+    {
+        LogState state = logStates.get(gameID);
+        if (state != null)
+        {
+            return state;
+        }
+        List<LogRow> rows = DatabaseManager.executeQuery(String.format(SELECT, BY_ID), this::readRow, gameID);
+        if (rows.isEmpty())
+        {
+            throw new DataAccessException("No game with id " + gameID);
+        }
+        return rows.get(0).state();
+    }
+
+    // Method to rebuild games from their latest snapshots and the moves logged after them
+    private List<GameData> loadGames(String filter, Object... params) throws DataAccessException
+    {
+        List<LogRow> rows = DatabaseManager.executeQuery(String.format(SELECT, filter), this::readRow, params);
+        if (rows.isEmpty())
+        {
+            return List.of();
+        }
+        Map<Integer, Snapshot> snapshots = new HashMap<>();
+        for (Map.Entry<Integer, Snapshot> snapshot : DatabaseManager.executeQuery(String.format(SELECT_SNAPSHOTS, filter),
+                row -> Map.entry(row.getInt("gameID"),
+                        new Snapshot(row.getInt("seq"), gson.fromJson(row.getString("game"), ChessGame.class))), params))
+        {
+            snapshots.put(snapshot.getKey(), snapshot.getValue());
+        }
+        Map<Integer, List<Integer>> moves = new HashMap<>();
+        for (Map.Entry<Integer, Integer> move : DatabaseManager.executeQuery(String.format(SELECT_MOVES, filter),
+                row -> Map.entry(row.getInt("gameID"), row.getInt("move")), params))
+        {
+            moves.computeIfAbsent(move.getKey(), gameID -> new ArrayList<>()).add(move.getValue());
+        }
+
+        List<GameData> games = new ArrayList<>(rows.size());
+        for (LogRow row : rows)
+        {
+            Snapshot snapshot = snapshots.get(row.gameID());
+            if (snapshot == null)
+            {
+                throw new DataAccessException("No snapshot for game " + row.gameID());
+            }
+            ChessGame game = snapshot.game();
+            game.setClock(null); // Replayed moves must not punch the clock
+            try
+            {
+                for (int move : moves.getOrDefault(row.gameID(), List.of()))
+                {
+                    game.makeMove(ChessMove.decode(move));
+                }
+            }
+            catch (InvalidMoveException e)
+            {
+                throw new DataAccessException("Damaged move log for game " + row.gameID() + ": " + e.getMessage());
+            }
+            game.setClock((row.clock() == null) ? null : gson.fromJson(row.clock(), ChessClock.class));
+            // The replayed moves are the whole history, so it starts at the snapshot
+            game.restoreHistory(game.getMoveHistory(), row.state().historyId());
+            logStates.put(row.gameID(), new LogState(row.state().historyId(), snapshot.seq(), row.state().moveCount()));
+            games.add(new GameData(row.gameID(), row.whiteUsername(), row.blackUsername(), row.gameName(), game));
+        }
+        return games;
+    }
+
+    private Object[] logRow(GameData game, LogState state)
+    {
+        ChessClock clock = game.game().getClock();
+        return new Object[] {game.whiteUsername(), game.blackUsername(), game.gameName(), state.historyId(),
+                state.historyOffset(), state.moveCount(), (clock == null) ? null : gson.toJson(clock)};
+    }
+
+    private LogRow readRow(ResultSet row) throws SQLException
+    {
+        LogState state = new LogState(row.getLong("historyId"), row.getInt("historyOffset"), row.getInt("moveCount"));
+        return new LogRow(row.getInt("gameID"), row.getString("whiteUsername"), row.getString("blackUsername"),
+                row.getString("gameName"), state, row.getString("clock"));
+    }
+}
@@ -0,0 +1,38 @@
+package dataaccess;
+
+import model.UserData;
+
+import java.util.List;
+
+/**
+ * UserDAO backed by the MySQL user table
+ */
+public class MySqlUserDAO implements UserDAO
+{
+    public MySqlUserDAO() throws DataAccessException
+    {
+        DatabaseManager.configureDatabase();
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException
+    {
+        DatabaseManager.executeUpdate("INSERT INTO user (username, password, email) VALUES (?, ?, ?)",
+                user.username(), user.password(), user.email());
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException
+    {
+        List<UserData> users = DatabaseManager.executeQuery("SELECT username, password, email FROM user WHERE username = ?",
+                row -> new UserData(row.getString("username"), row.getString("password"), row.getString("email")),
+                username);
+        return users.isEmpty() ? null : users.get(0);
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        DatabaseManager.executeUpdate("TRUNCATE TABLE user");
+    }
+}
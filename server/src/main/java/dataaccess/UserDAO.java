@@ -0,0 +1,18 @@
+package dataaccess;
+
+import model.UserData;
+
+/**
+ * Storage for registered users
+ */
+public interface UserDAO
+{
+    // Method to store a new user, failing if the username is taken
+    void createUser(UserData user) throws DataAccessException;
+
+    // Method to get a user by name, or null if there is none
+    UserData getUser(String username) throws DataAccessException;
+
+    // Method to remove every user
+    void clear() throws DataAccessException;
+}
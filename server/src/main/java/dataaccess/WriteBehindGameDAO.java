@@ -0,0 +1,379 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * GameDAO that keeps games in memory and writes changes to a backing GameDAO in the background.
+ * <p>
+ * The cache is authoritative: updateGame changes the cached game and returns at once,
+ * and reads never wait for the database. Updated games are remembered in a dirty set,
+ * and the flush thread writes them every flushIntervalMillis as one batch, so a game
+ * moved many times in one interval costs one write. Flushes never overlap and always
+ * write games in their latest state, so an older state can never overwrite a newer
+ * one. When a batch fails, its games are written one at a time, so one bad game cannot
+ * hold back the rest: a game the backing DAO no longer has is dropped and logged, and
+ * any other failure leaves the game dirty for the next attempt.
+ * <p>
+ * The dirty set is bounded by maxDirtyGames; when it is full, updateGame waits for
+ * the next flush instead of letting unsaved state grow without limit. New games are
+ * written through so they get their id from the database. close(), also run by a JVM
+ * shutdown hook, stops the flush thread and writes every remaining change before
+ * returning. A crash can lose at most the moves of the last flush interval.
+ * <p>
+ * Cached games are shared with callers, so code that changes a game must hold the
+ * ChessGame's monitor while doing so; the flush thread takes it while copying the game.
+ * The cache's own waits use ReentrantLocks rather than monitors, so a virtual thread
+ * blocked on a full dirty set or on a running flush unmounts instead of pinning its
+ * carrier thread.
+ */
+public class WriteBehindGameDAO implements GameDAO, AutoCloseable
+{
+
+    private static final Logger LOG = LoggerFactory.getLogger(WriteBehindGameDAO.class);
+
+    private final GameDAO backing;
+    private final int maxDirtyGames;
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+
+    // Ids of games changed since the last flush, guarded by dirtyLock
+    private final Set<Integer> dirty = new LinkedHashSet<>();
+    private final ReentrantLock dirtyLock = new ReentrantLock();
+    private final Condition dirtyHasRoom = dirtyLock.newCondition();
+
+    // Held while writing to the backing DAO, so flushes and clear() never overlap
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    /**
+     * @param backing             DAO the games are persisted to
+     * @param flushIntervalMillis time between background flushes
+     * @param maxDirtyGames       most games allowed to wait for a flush before updates block
+     */
+    public WriteBehindGameDAO(GameDAO backing, long flushIntervalMillis, int maxDirtyGames)
+    {
+        this.backing = backing;
+        this.maxDirtyGames = maxDirtyGames;
+        flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::close, "game-flusher-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    public int createGame(GameData game) throws DataAccessException
+    {
+        int gameID = backing.createGame(game);
+        games.put(gameID, withId(game, gameID));
+        return gameID;
+    }
+
+    @Override
+    public List<Integer> createGames(List<GameData> newGames) throws DataAccessException
+    {
+        List<Integer> ids = backing.createGames(newGames);
+        for (int i = 0; i < ids.size(); i++)
+        {
+            games.put(ids.get(i), withId(newGames.get(i), ids.get(i)));
+        }
+        return ids;
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException
+    {
+        GameData game = games.get(gameID);
+        if (game != null)
+        {
+            return game;
+        }
+        game = backing.getGame(gameID);
+        if (game != null)
+        {
+            GameData cached = games.putIfAbsent(gameID, game);
+            return (cached != null) ? cached : game;
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException
+    {
+        Map<Integer, GameData> merged = new LinkedHashMap<>();
+        for (GameData game : backing.listGames())
+        {
+            merged.put(game.gameID(), game);
+        }
+        merged.putAll(games); // Cached games may be newer than what was flushed
+        return new ArrayList<>(merged.values());
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException
+    {
+        if (closed)
+        {
+            throw new DataAccessException("Game cache is closed");
+        }
+        if (!games.containsKey(game.gameID()) && backing.getGame(game.gameID()) == null)
+        {
+            throw new DataAccessException("No game with id " + game.gameID());
+        }
+        dirtyLock.lock();
+        try
+        {
+            while (dirty.size() >= maxDirtyGames && !dirty.contains(game.gameID()))
+            {
+                dirtyHasRoom.await();
+            }
+            games.put(game.gameID(), game);
+            dirty.add(game.gameID());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for the game cache to flush");
+        }
+        finally
+        {
+            dirtyLock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException
+    {
+        flushLock.lock();
+        try
+        {
+            dirtyLock.lock();
+            try
+            {
+                dirty.clear();
+                games.clear();
+                dirtyHasRoom.signalAll();
+            }
+            finally
+            {
+                dirtyLock.unlock();
+            }
+            backing.clear();
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes every game changed since the last flush, in one batch; waits for a flush
+     * already running on another thread
+     *
+     * @throws DataAccessException if a game could not be written; it stays dirty and is retried
+     */
+    public void flush() throws DataAccessException
+    {
+        flushLock.lock();
+        try
+        {
+            List<Integer> changedIds;
+            dirtyLock.lock();
+            try
+            {
+                changedIds = new ArrayList<>(dirty);
+                dirty.clear();
+                dirtyHasRoom.signalAll();
+            }
+            finally
+            {
+                dirtyLock.unlock();
+            }
+
+            // Copied outside the dirty lock so updates are not held up by the copying
+            List<GameData> changed = new ArrayList<>(changedIds.size());
+            for (int gameID : changedIds)
+            {
+                GameData game = games.get(gameID);
+                if (game != null)
+                {
+                    changed.add(snapshot(game));
+                }
+            }
+            if (changed.isEmpty())
+            {
+                return;
+            }
+            try
+            {
+                backing.updateGames(changed);
+            }
+            catch (DataAccessException | RuntimeException e)
+            {
+                LOG.warn("Game batch failed, writing its {} games one at a time", changed.size(), e);
+                writeEach(changed);
+            }
+        }
+        finally
+        {
+            flushLock.unlock();
+        }
+    }
+
+    // Method to write the games of a failed batch one at a time, dropping games the backing DAO does not have
+    private void writeEach(List<GameData> changed) throws DataAccessException
+    {
+        List<Integer> failed = new ArrayList<>();
+        Exception failure = null;
+        for (GameData game : changed)
+        {
+            try
+            {
+                backing.updateGame(game);
+            }
+            catch (DataAccessException | RuntimeException e)
+            {
+                if (isMissing(game.gameID()))
+                {
+                    LOG.error("Dropping changes to game {}, which the backing store does not have", game.gameID(), e);
+                    games.remove(game.gameID());
+                }
+                else
+                {
+                    failed.add(game.gameID());
+                    failure = e;
+                }
+            }
+        }
+        if (failure == null)
+        {
+            return;
+        }
+        dirtyLock.lock();
+        try
+        {
+            for (int gameID : failed)
+            {
+                // A newer update may already have re-marked it
+                if (games.containsKey(gameID))
+                {
+                    dirty.add(gameID);
+                }
+            }
+        }
+        finally
+        {
+            dirtyLock.unlock();
+        }
+        if (failure instanceof RuntimeException runtimeFailure)
+        {
+            throw runtimeFailure;
+        }
+        throw (DataAccessException) failure;
+    }
+
+    private boolean isMissing(int gameID)
+    {
+        try
+        {
+            return backing.getGame(gameID) == null;
+        }
+        catch (DataAccessException | RuntimeException e)
+        {
+            return false; // Unknown, so keep the changes and retry
+        }
+    }
+
+    // Method to get the number of games waiting to be written
+    public int getDirtyCount()
+    {
+        dirtyLock.lock();
+        try
+        {
+            return dirty.size();
+        }
+        finally
+        {
+            dirtyLock.unlock();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try
+        {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+            flush();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (DataAccessException e)
+        {
+            LOG.error("Could not save {} games on shutdown", getDirtyCount(), e);
+        }
+        if (Thread.currentThread() != shutdownHook)
+        {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+    }
+
+    // Method run by the flush thread, which must survive a failed flush
+    private void flushQuietly()
+    {
+        try
+        {
+            flush();
+        }
+        catch (DataAccessException | RuntimeException e)
+        {
+            LOG.warn("Game flush failed, will retry", e);
+        }
+    }
+
+    // Method to copy a game so it can be written while players keep moving
+    private static GameData snapshot(GameData game)
+    {
+        ChessGame copy;
+        synchronized (game.game())
+        {
+            copy = game.game().fullCopy(); // Keeps the move history a move-log backing DAO needs
+        }
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(), copy);
+    }
+
+    private static GameData withId(GameData game, int gameID)
+    {
+        return new GameData(gameID, game.whiteUsername(), game.blackUsername(), game.gameName(), game.game());
+    }
+}
@@ -0,0 +1,119 @@
+package server;
+
+import chess.ChessJson;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataaccess.DataAccess;
+import dataaccess.DataAccessException;
+import model.UserData;
+import service.PasswordHasher;
+import service.ServiceException;
+import service.UserService;
+import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * HTTP server for the chess API.
+ * <p>
+ * Settings come from the server.properties resource, and a JVM system property of the
+ * same name overrides each one. With server.virtualThreads=true every request,
+ * including the JDBC and password hashing it waits on, runs on its own virtual thread
+ * instead of on Jetty's bounded pool of platform threads.
+ */
+public class Server {
+    private final Gson gson = ChessJson.gson();
+    private DataAccess dataAccess;
+    private PasswordHasher hasher;
+
+    public int run(int desiredPort) {
+        Properties settings = loadSettings();
+        if (Boolean.parseBoolean(settings.getProperty("server.virtualThreads", "false"))) {
+            // Must be registered before Spark creates its embedded Jetty server
+            EmbeddedServers.add(EmbeddedServers.defaultIdentifier(),
+                    new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+        }
+
+        Spark.port(desiredPort);
+
+        Spark.staticFiles.location("web");
+
+        try {
+            dataAccess = DataAccess.configured();
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Unable to open storage: " + e.getMessage());
+        }
+        hasher = new PasswordHasher(
+                Integer.parseInt(settings.getProperty("server.bcryptCost", "10")),
+                Integer.parseInt(settings.getProperty("server.hashQueueCapacity", "64")),
+                Long.parseLong(settings.getProperty("server.hashMaxWaitMillis", "2000")));
+        UserService userService = new UserService(dataAccess.getUserDAO(), dataAccess.getAuthDAO(), hasher);
+
+        Spark.post("/user", (req, res) -> toJson(userService.register(gson.fromJson(req.body(), UserData.class))));
+        Spark.post("/session", (req, res) -> {
+            UserData login = gson.fromJson(req.body(), UserData.class);
+            if (login == null) {
+                throw new ServiceException(400, "Error: bad request");
+            }
+            return toJson(userService.login(login.username(), login.password()));
+        });
+        Spark.delete("/session", (req, res) -> {
+            userService.logout(req.headers("authorization"));
+            return "{}";
+        });
+
+        Spark.exception(ServiceException.class, (e, req, res) -> {
+            res.status(e.getStatusCode());
+            if (e.getStatusCode() == 503) {
+                res.header("Retry-After", "1");
+            }
+            res.body(toJson(Map.of("message", e.getMessage())));
+        });
+        Spark.exception(JsonParseException.class, (e, req, res) -> {
+            res.status(400);
+            res.body(toJson(Map.of("message", "Error: bad request")));
+        });
+        Spark.exception(DataAccessException.class, (e, req, res) -> {
+            res.status(500);
+            res.body(toJson(Map.of("message", "Error: " + e.getMessage())));
+        });
+
+        Spark.awaitInitialization();
+        return Spark.port();
+    }
+
+    public void stop() {
+        Spark.stop();
+        Spark.awaitStop();
+        if (hasher != null) {
+            hasher.close();
+        }
+        if (dataAccess != null) {
+            dataAccess.close();
+        }
+    }
+
+    private String toJson(Object body) {
+        return gson.toJson(body);
+    }
+
+    private static Properties loadSettings() {
+        var settings = new Properties();
+        try (InputStream propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("server.properties")) {
+            if (propStream != null) {
+                settings.load(propStream);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to load server.properties: " + e.getMessage());
+        }
+        for (var name : settings.stringPropertyNames()) {
+            settings.setProperty(name, System.getProperty(name, settings.getProperty(name)));
+        }
+        return settings;
+    }
+}
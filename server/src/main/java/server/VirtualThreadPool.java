@@ -0,0 +1,99 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool that runs every task on a new virtual thread.
+ * <p>
+ * Request handlers block on JDBC and on the password hasher; on virtual threads a
+ * blocked request parks instead of holding an OS thread, so thousands of requests can
+ * wait at once without thousands of platform threads. Nothing is pooled, since virtual
+ * threads are cheap to create, and the pool is never low on threads. Limits on the work
+ * behind the requests stay where they were: the connection pool bounds concurrent JDBC
+ * calls and PasswordHasher bounds concurrent hashing.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool
+{
+    private final ThreadFactory factory = Thread.ofVirtual().name("http-", 1).factory();
+    private final AtomicInteger runningTasks = new AtomicInteger();
+
+    // Whether the pool is started, guarded by runState so join() can wait for a stop
+    private final Object runState = new Object();
+    private boolean started;
+
+    @Override
+    public void execute(Runnable task)
+    {
+        if (isStopped())
+        {
+            throw new RejectedExecutionException("Thread pool is stopped");
+        }
+        factory.newThread(() -> {
+            runningTasks.incrementAndGet();
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                runningTasks.decrementAndGet();
+            }
+        }).start();
+    }
+
+    @Override
+    public void join() throws InterruptedException
+    {
+        synchronized (runState)
+        {
+            while (started)
+            {
+                runState.wait();
+            }
+        }
+    }
+
+    @Override
+    public int getThreads()
+    {
+        return runningTasks.get();
+    }
+
+    @Override
+    public int getIdleThreads()
+    {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads()
+    {
+        return false;
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        super.doStart();
+        synchronized (runState)
+        {
+            started = true;
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        super.doStop();
+        synchronized (runState)
+        {
+            started = false;
+            runState.notifyAll();
+        }
+    }
+}
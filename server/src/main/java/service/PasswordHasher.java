@@ -0,0 +1,123 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hashes and checks passwords with bcrypt on a dedicated pool of worker threads.
+ * <p>
+ * bcrypt is deliberately slow, tens to hundreds of milliseconds per call, so running it
+ * on request threads lets a burst of logins stall every other endpoint. Here at most one
+ * hash per core runs at once, and at most queueCapacity wait for a worker. Once the
+ * queue is full, or as soon as a queued request has waited maxWaitMillis without a worker
+ * taking it, the future fails with a RejectedExecutionException, which UserService answers with 503
+ * so clients back off instead of timing out.
+ */
+public class PasswordHasher implements AutoCloseable
+{
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    private final long maxWaitMillis;
+
+    /**
+     * @param cost          bcrypt log2 work factor for new hashes
+     * @param queueCapacity most requests allowed to wait for a free worker
+     * @param maxWaitMillis longest a request may wait in the queue before it is rejected
+     */
+    public PasswordHasher(int cost, int queueCapacity, long maxWaitMillis)
+    {
+        this.cost = cost;
+        this.maxWaitMillis = maxWaitMillis;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hashes a password with a fresh salt
+     *
+     * @param password password to hash
+     * @return future completed with the bcrypt hash, or exceptionally if the hasher is overloaded
+     */
+    public CompletableFuture<String> hash(String password)
+    {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Checks a password against a stored hash
+     *
+     * @param password   password given by the user
+     * @param storedHash hash made by hash()
+     * @return future completed with whether they match, or exceptionally if the hasher is overloaded
+     */
+    public CompletableFuture<Boolean> verify(String password, String storedHash)
+    {
+        return submit(() -> BCrypt.checkpw(password, storedHash));
+    }
+
+    // Method to get the number of requests waiting for a worker
+    public int getQueuedRequests()
+    {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+
+    // Method to run work on a worker, failing the future if no worker takes it within maxWaitMillis
+    <T> CompletableFuture<T> submit(Supplier<T> work)
+    {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean claimed = new AtomicBoolean(); // Set by whichever of the worker and the timer runs first
+        Runnable task = () -> {
+            if (!claimed.compareAndSet(false, true) || result.isDone())
+            {
+                return; // Timed out or cancelled while it was queued
+            }
+            try
+            {
+                result.complete(work.get());
+            }
+            catch (RuntimeException e)
+            {
+                result.completeExceptionally(e); // e.g. a stored hash that is not bcrypt
+            }
+        };
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            result.completeExceptionally(e);
+            return result;
+        }
+        // Not orTimeout: a hash already running is left to finish rather than thrown away
+        CompletableFuture.delayedExecutor(maxWaitMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if (claimed.compareAndSet(false, true))
+            {
+                executor.remove(task); // Frees its queue slot at once
+                result.completeExceptionally(new RejectedExecutionException("Password check waited too long"));
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package service;
+
+/**
+ * Indicates a request a service could not carry out, with the HTTP status to answer it with
+ */
+public class ServiceException extends Exception
+{
+    private final int statusCode;
+
+    public ServiceException(int statusCode, String message)
+    {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+}
@@ -0,0 +1,106 @@
+package service;
+
+import dataaccess.AuthDAO;
+import dataaccess.DataAccessException;
+import dataaccess.UserDAO;
+import model.AuthData;
+import model.UserData;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Registers users and manages their sessions. Passwords are stored as bcrypt hashes made
+ * on the PasswordHasher's workers; when it is overloaded the request fails with 503.
+ */
+public class UserService
+{
+    private final UserDAO userDAO;
+    private final AuthDAO authDAO;
+    private final PasswordHasher hasher;
+
+    public UserService(UserDAO userDAO, AuthDAO authDAO, PasswordHasher hasher)
+    {
+        this.userDAO = userDAO;
+        this.authDAO = authDAO;
+        this.hasher = hasher;
+    }
+
+    // Method to register a new user and log them in
+    public AuthData register(UserData user) throws ServiceException, DataAccessException
+    {
+        if (user == null || user.username() == null || user.password() == null || user.email() == null)
+        {
+            throw new ServiceException(400, "Error: bad request");
+        }
+        if (userDAO.getUser(user.username()) != null)
+        {
+            throw new ServiceException(403, "Error: already taken"); // Checked first so no hash is wasted
+        }
+        String passwordHash = await(hasher.hash(user.password()));
+        try
+        {
+            userDAO.createUser(new UserData(user.username(), passwordHash, user.email()));
+        }
+        catch (DataAccessException e)
+        {
+            if (userDAO.getUser(user.username()) != null)
+            {
+                throw new ServiceException(403, "Error: already taken"); // Registered by a concurrent request
+            }
+            throw e;
+        }
+        return createSession(user.username());
+    }
+
+    // Method to log a user in, checking their password against the stored hash
+    public AuthData login(String username, String password) throws ServiceException, DataAccessException
+    {
+        if (username == null || password == null)
+        {
+            throw new ServiceException(400, "Error: bad request");
+        }
+        UserData user = userDAO.getUser(username);
+        if (user == null || !await(hasher.verify(password, user.password())))
+        {
+            throw new ServiceException(401, "Error: unauthorized");
+        }
+        return createSession(username);
+    }
+
+    // Method to end the session of a token
+    public void logout(String authToken) throws ServiceException, DataAccessException
+    {
+        if (authToken == null || authDAO.getAuth(authToken) == null)
+        {
+            throw new ServiceException(401, "Error: unauthorized");
+        }
+        authDAO.deleteAuth(authToken);
+    }
+
+    private AuthData createSession(String username) throws DataAccessException
+    {
+        AuthData auth = new AuthData(UUID.randomUUID().toString(), username);
+        authDAO.createAuth(auth);
+        return auth;
+    }
+
+    // Method to wait for the hasher, turning overload into 503
+    private static <T> T await(CompletableFuture<T> result) throws ServiceException
+    {
+        try
+        {
+            return result.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RejectedExecutionException)
+            {
+                throw new ServiceException(503, "Error: server busy, try again later");
+            }
+            throw new ServiceException(500, "Error: " + e.getCause().getMessage());
+        }
+    }
+}
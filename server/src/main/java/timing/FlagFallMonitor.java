@@ -0,0 +1,111 @@
+package timing;
+
+import chess.ChessClock;
+import chess.ChessGame;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Detects when a player in a timed game runs out of time.
+ * <p>
+ * Every watched game has one timeout on a shared TimingWheel, set for the moment the
+ * side to move would run out of time. Each move re-arms it, so no thread or scheduled
+ * future is kept per game. When the timeout fires the clock is checked again; if the
+ * player really flagged, the clock is stopped and the listener is told. A timeout that
+ * was replaced while it fired does nothing, so a flag is never reported twice and never
+ * drops the newer timeout. Times come from ChessClock.currentMillis(). The listener is
+ * called on the wheel thread and should only hand the result off, e.g. to the code that
+ * ends the game and notifies both players.
+ */
+public class FlagFallMonitor
+{
+
+    // Receives flag falls
+    public interface FlagListener
+    {
+        void onFlagFall(int gameID, ChessGame.TeamColor flaggedColor);
+    }
+
+    private final TimingWheel wheel;
+    private final FlagListener listener;
+    // Each game's current timeout, in a holder that is mapped before it is scheduled so it can never fire unmapped
+    private final ConcurrentHashMap<Integer, AtomicReference<TimingWheel.Timeout>> timeouts = new ConcurrentHashMap<>();
+
+    public FlagFallMonitor(TimingWheel wheel, FlagListener listener)
+    {
+        this.wheel = wheel;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts or re-arms flag detection for a game; call after every move
+     *
+     * @param gameID id of the game
+     * @param clock  the game's clock
+     */
+    public void watch(int gameID, ChessClock clock)
+    {
+        long millisUntilFlag = clock.millisUntilFlag(ChessClock.currentMillis());
+        AtomicReference<TimingWheel.Timeout> previous;
+        if (millisUntilFlag < 0)
+        {
+            previous = timeouts.remove(gameID); // Clock is stopped
+        }
+        else
+        {
+            AtomicReference<TimingWheel.Timeout> armed = new AtomicReference<>();
+            previous = timeouts.put(gameID, armed);
+            armed.set(wheel.schedule(millisUntilFlag, () -> checkFlag(gameID, clock, armed)));
+        }
+        cancel(previous);
+    }
+
+    // Method to stop watching a game, e.g. when it ends
+    public void unwatch(int gameID)
+    {
+        cancel(timeouts.remove(gameID));
+    }
+
+    // Method to get the number of games being watched
+    public int getWatchedGames()
+    {
+        return timeouts.size();
+    }
+
+    // Method run when a timeout fires, acting only if it is still the game's current timeout
+    void checkFlag(int gameID, ChessClock clock, AtomicReference<TimingWheel.Timeout> timeout)
+    {
+        if (timeouts.get(gameID) != timeout)
+        {
+            return; // Re-armed or unwatched since it was scheduled
+        }
+        ChessGame.TeamColor side = clock.getRunningSide();
+        if (side == null)
+        {
+            timeouts.remove(gameID, timeout);
+            return;
+        }
+        long now = ChessClock.currentMillis();
+        if (!clock.hasFlagged(side, now))
+        {
+            watch(gameID, clock); // Time was added after the timeout was set
+            return;
+        }
+        if (!timeouts.remove(gameID, timeout))
+        {
+            return; // Re-armed while the clock was being read
+        }
+        clock.stop(now);
+        listener.onFlagFall(gameID, side);
+    }
+
+    // A timeout still being scheduled has no handle yet; it finds itself replaced when it fires
+    private void cancel(AtomicReference<TimingWheel.Timeout> armed)
+    {
+        if (armed != null && armed.get() != null)
+        {
+            wheel.cancel(armed.get());
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package timing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel that runs many timeouts from a single thread.
+ * <p>
+ * Time is split into ticks of tickMillis. The wheel has LEVELS levels of WHEEL_SIZE
+ * slots; a slot on level l covers WHEEL_SIZE^l ticks, so four levels of 64 slots reach
+ * about 16.7 million ticks (46 hours with 10 ms ticks). Scheduling and cancelling are
+ * O(1): timeouts are handed to the wheel thread through lock-free queues and kept in
+ * intrusive linked lists, so a cancelled timeout is unlinked right away rather than
+ * lingering until its slot comes around. Whenever a lower level wraps around, the
+ * matching slot of the level above is cascaded down.
+ * <p>
+ * Expired tasks run on the wheel thread and must be short; longer work should be
+ * handed to another executor. A timeout never fires early, and fires at most one tick
+ * late while the wheel thread keeps up.
+ */
+public class TimingWheel implements AutoCloseable
+{
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // Handle for a scheduled task
+    public static final class Timeout
+    {
+        private final long deadlineTick;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Position in the wheel, only touched by the wheel thread
+        private Timeout previous;
+        private Timeout next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(long deadlineTick, Runnable task)
+        {
+            this.deadlineTick = deadlineTick;
+            this.task = task;
+        }
+
+        public boolean isCancelled()
+        {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired()
+        {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final Timeout[][] heads = new Timeout[LEVELS][WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Last tick processed, only touched by the wheel thread
+    private long currentTick;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param name       name of the wheel thread
+     */
+    public TimingWheel(long tickMillis, String name)
+    {
+        this(tickMillis, name, System::nanoTime, true);
+    }
+
+    // Constructor for tests, which drive the wheel with their own clock through catchUp instead of a thread
+    TimingWheel(long tickMillis, String name, LongSupplier nanoClock, boolean startThread)
+    {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        if (startThread)
+        {
+            worker.start();
+        }
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param delayMillis time from now after which the task runs
+     * @param task        task to run on the wheel thread
+     * @return handle that can cancel the task
+     */
+    public Timeout schedule(long delayMillis, Runnable task)
+    {
+        if (!running)
+        {
+            throw new IllegalStateException("Timing wheel is closed");
+        }
+        long delayTicks = (TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)) + tickNanos - 1) / tickNanos;
+        // One extra tick because the current tick is already partly over
+        Timeout timeout = new Timeout(elapsedTicks() + delayTicks + 1, task);
+        pendingCount.incrementAndGet();
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Cancels a task that has not run yet
+     *
+     * @param timeout handle returned by schedule
+     * @return true if the task will not run, false if it already ran or was cancelled
+     */
+    public boolean cancel(Timeout timeout)
+    {
+        if (!timeout.state.compareAndSet(PENDING, CANCELLED))
+        {
+            return false;
+        }
+        pendingCount.decrementAndGet();
+        cancelled.add(timeout);
+        return true;
+    }
+
+    // Method to get the number of tasks waiting to run
+    public int getPendingCount()
+    {
+        return pendingCount.get();
+    }
+
+    @Override
+    public void close()
+    {
+        running = false;
+        worker.interrupt();
+    }
+
+    private long elapsedTicks()
+    {
+        return (nanoClock.getAsLong() - startNanos) / tickNanos;
+    }
+
+    // Method to process every tick up to the current time, running what expired
+    void catchUp()
+    {
+        long targetTick = elapsedTicks();
+        while (currentTick < targetTick)
+        {
+            advance();
+        }
+    }
+
+    // Method run by the wheel thread: catch up to the current time, then sleep until the next tick
+    private void run()
+    {
+        while (running)
+        {
+            catchUp();
+            long sleepNanos = startNanos + (currentTick + 1) * tickNanos - nanoClock.getAsLong();
+            if (sleepNanos > 0)
+            {
+                try
+                {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Method to move the wheel forward by one tick and run what expires on it
+    private void advance()
+    {
+        currentTick++;
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0)
+            {
+                cascade(level, (int) (currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            }
+        }
+
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null)
+        {
+            unlink(timeout);
+        }
+        while ((timeout = scheduled.poll()) != null)
+        {
+            if (!timeout.isCancelled())
+            {
+                insert(timeout);
+            }
+        }
+
+        int slot = (int) currentTick & WHEEL_MASK;
+        timeout = heads[0][slot];
+        heads[0][slot] = null;
+        while (timeout != null)
+        {
+            Timeout next = timeout.next;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.level = -1;
+            expire(timeout);
+            timeout = next;
+        }
+    }
+
+    // Method to spread the timeouts of a higher-level slot over the levels below it
+    private void cascade(int level, int slot)
+    {
+        Timeout timeout = heads[level][slot];
+        heads[level][slot] = null;
+        while (timeout != null)
+        {
+            Timeout next = timeout.next;
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.level = -1;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+
+    // Method to put a timeout in the slot matching how far away its deadline is
+    private void insert(Timeout timeout)
+    {
+        long ticksLeft = timeout.deadlineTick - currentTick;
+        if (ticksLeft <= 0)
+        {
+            expire(timeout);
+            return;
+        }
+        // Deadlines beyond the wheel wait in the farthest top-level slot and are re-inserted when it cascades
+        long tick = (ticksLeft < MAX_TICKS) ? timeout.deadlineTick : currentTick + MAX_TICKS - 1;
+        int level = 0;
+        while (level < LEVELS - 1 && ticksLeft >= (1L << (WHEEL_BITS * (level + 1))))
+        {
+            level++;
+        }
+        int slot = (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = heads[level][slot];
+        if (timeout.next != null)
+        {
+            timeout.next.previous = timeout;
+        }
+        heads[level][slot] = timeout;
+    }
+
+    private void unlink(Timeout timeout)
+    {
+        if (timeout.level < 0)
+        {
+            return; // Cancelled before it left the scheduled queue
+        }
+        if (timeout.previous != null)
+        {
+            timeout.previous.next = timeout.next;
+        }
+        else
+        {
+            heads[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null)
+        {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    private void expire(Timeout timeout)
+    {
+        if (!timeout.state.compareAndSet(PENDING, EXPIRED))
+        {
+            return;
+        }
+        pendingCount.decrementAndGet();
+        try
+        {
+            timeout.task.run();
+        }
+        catch (RuntimeException e)
+        {
+            // A failing task must not stop the wheel for every other timeout
+            LOG.error("Timing wheel task failed", e);
+        }
+    }
+}
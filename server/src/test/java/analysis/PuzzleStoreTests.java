@@ -0,0 +1,85 @@
+package analysis;
+
+import chess.ChessMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class PuzzleStoreTests {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Stored Puzzles Read Back After Reopening")
+    public void roundTrip() throws Exception {
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            Assertions.assertTrue(store.add(puzzle(1)));
+            Assertions.assertTrue(store.add(puzzle(2)));
+            Assertions.assertFalse(store.add(puzzle(1)), "Stored position was added twice");
+        }
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            Assertions.assertEquals(2, store.size());
+            Assertions.assertEquals(puzzle(1), store.get(0));
+            Assertions.assertEquals(puzzle(2), store.get(1));
+            Assertions.assertTrue(store.contains(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Crash Between Data And Index Writes Is Cut Back On Open")
+    public void crashBetweenWrites() throws Exception {
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            store.add(puzzle(1));
+            store.add(puzzle(2));
+        }
+        // A line whose index entry was never written, and a torn entry for it
+        Files.writeString(directory.resolve(PuzzleStore.DATA_FILE), "8/8/8/8/8/8/8/8 w - - 0 1\te2e4\t9",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        Files.write(directory.resolve(PuzzleStore.INDEX_FILE), new byte[] {1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            Assertions.assertEquals(2, store.size());
+            Assertions.assertEquals(puzzle(2), store.get(1));
+            Assertions.assertTrue(store.add(puzzle(3)));
+            Assertions.assertEquals(puzzle(2), store.get(1));
+            Assertions.assertEquals(puzzle(3), store.get(2));
+        }
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            Assertions.assertEquals(3, store.size());
+            Assertions.assertEquals(puzzle(3), store.get(2));
+        }
+    }
+
+    @Test
+    @DisplayName("Indexed Line Cut Short Is Dropped On Open")
+    public void tornLine() throws Exception {
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            store.add(puzzle(1));
+            store.add(puzzle(2));
+        }
+        Path data = directory.resolve(PuzzleStore.DATA_FILE);
+        byte[] bytes = Files.readAllBytes(data);
+        Files.write(data, Arrays.copyOf(bytes, bytes.length - 3));
+
+        try (PuzzleStore store = new PuzzleStore(directory)) {
+            Assertions.assertEquals(1, store.size());
+            Assertions.assertFalse(store.contains(2));
+            Assertions.assertTrue(store.add(puzzle(2)));
+            Assertions.assertEquals(puzzle(2), store.get(1));
+        }
+    }
+
+    private static PuzzleStore.Puzzle puzzle(int number) {
+        List<ChessMove> solution = List.of(ChessMove.fromNotation("d1h5"), ChessMove.fromNotation("g7g6"),
+                ChessMove.fromNotation("h5e5"));
+        return new PuzzleStore.Puzzle("4k3/6p1/8/8/8/8/8/3QK3 w - - 0 " + number, number, solution, 100 + number, number);
+    }
+}
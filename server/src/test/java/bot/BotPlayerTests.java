@@ -0,0 +1,81 @@
+package bot;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class BotPlayerTests {
+    private BotPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new BotPool(2, 8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Pondered Search Answers Predicted Reply")
+    public void ponderHit() throws Exception {
+        BotPlayer bot = new BotPlayer("bot", ChessGame.TeamColor.WHITE, BotStrength.ofDepth(3), pool);
+        ChessGame game = new ChessGame();
+
+        ChessMove botMove = bot.onGameUpdate(game).get();
+        game.makeMove(botMove);
+
+        // The ponder starts when the bot's search finishes, before anything else calls the bot
+        ChessMove predicted = bot.getPonderMove();
+        Assertions.assertNotNull(predicted, "Bot did not start pondering after its own move");
+
+        game.makeMove(predicted);
+        CompletableFuture<ChessMove> answer = bot.onOpponentMove(predicted, game);
+        Assertions.assertTrue(game.isLegal(answer.get()), "Pondered answer is not legal");
+        Assertions.assertEquals(1, bot.getPonderHits(), "Predicted reply was not answered from the ponder");
+        Assertions.assertEquals(0, bot.getPonderMisses());
+    }
+
+    @Test
+    @DisplayName("Unexpected Reply Searches Again")
+    public void ponderMiss() throws Exception {
+        BotPlayer bot = new BotPlayer("bot", ChessGame.TeamColor.WHITE, BotStrength.ofDepth(3), pool);
+        ChessGame game = new ChessGame();
+        game.makeMove(bot.onGameUpdate(game).get());
+
+        ChessMove predicted = bot.getPonderMove();
+        ChessMove other = game.teamValidMoves(ChessGame.TeamColor.BLACK).stream()
+                .filter(move -> !move.equals(predicted)).findFirst().orElseThrow();
+        game.makeMove(other);
+        ChessMove answer = bot.onOpponentMove(other, game).get();
+        Assertions.assertTrue(game.isLegal(answer), "Answer to an unexpected reply is not legal");
+        Assertions.assertEquals(0, bot.getPonderHits());
+        Assertions.assertEquals(1, bot.getPonderMisses());
+    }
+
+    @Test
+    @DisplayName("Real Search Cancels Ponders When Queue Is Full")
+    public void realSearchBeatsPonder() throws Exception {
+        BotPool smallPool = new BotPool(1, 1);
+        try {
+            // A long search on the worker, and a ponder holding the only queue slot
+            CompletableFuture<?> running = smallPool.submitSearch(new ChessGame(), BotStrength.ofTime(2000));
+            CompletableFuture<?> ponder = smallPool.submitPonder(new ChessGame(), BotStrength.ofTime(2000));
+            CompletableFuture<?> real = smallPool.submitSearch(new ChessGame(), BotStrength.ofDepth(1));
+
+            Assertions.assertTrue(ponder.isCancelled(), "Ponder was not cancelled to make room");
+            Assertions.assertFalse(real.isCompletedExceptionally(), "Real search was rejected");
+            running.cancel(false);
+            Assertions.assertNotNull(real.get());
+        } finally {
+            smallPool.close();
+        }
+    }
+}
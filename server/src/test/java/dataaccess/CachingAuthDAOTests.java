@@ -0,0 +1,126 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CachingAuthDAOTests {
+    private final CountingAuthDAO backing = new CountingAuthDAO();
+
+    @Test
+    @DisplayName("One-Off Lookups Do Not Evict Active Sessions")
+    public void scanResistance() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, 3_600_000, 3_600_000);
+        for (int i = 0; i < 50; i++) {
+            backing.createAuth(new AuthData("hot" + i, "user" + i));
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.getAuth("hot" + i);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertNull(cache.getAuth("bad" + i));
+        }
+
+        int before = backing.lookups.get();
+        for (int i = 0; i < 50; i++) {
+            Assertions.assertEquals("user" + i, cache.getAuth("hot" + i).username());
+        }
+        Assertions.assertEquals(before, backing.lookups.get(), "Scan of bad tokens evicted active sessions");
+        Assertions.assertTrue(cache.getStats().size() <= 100);
+    }
+
+    @Test
+    @DisplayName("Logout Drops Cached Token")
+    public void logout() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, 3_600_000, 3_600_000);
+        cache.createAuth(new AuthData("token", "user"));
+        Assertions.assertEquals("user", cache.getAuth("token").username());
+        Assertions.assertEquals("user", cache.getAuth("token").username());
+        Assertions.assertEquals(1, backing.lookups.get());
+
+        cache.deleteAuth("token");
+        Assertions.assertNull(cache.getAuth("token"));
+        Assertions.assertEquals(2, backing.lookups.get(), "Logged out token was answered from the cache");
+    }
+
+    @Test
+    @DisplayName("Lookup Racing Logout Is Not Cached")
+    public void lookupRacingLogout() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, 3_600_000, 3_600_000);
+        cache.createAuth(new AuthData("token", "user"));
+        CountDownLatch release = new CountDownLatch(1);
+        backing.paused = new CountDownLatch(1);
+        backing.pause = release;
+
+        Thread reader = new Thread(() -> {
+            try {
+                cache.getAuth("token");
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+        backing.paused.await();
+        cache.deleteAuth("token");
+        release.countDown();
+        reader.join();
+
+        Assertions.assertNull(cache.getAuth("token"), "Lookup that raced the logout was cached");
+    }
+
+    @Test
+    @DisplayName("Lookup Racing Another Login Is Cached")
+    public void lookupRacingOtherLogin() throws Exception {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, 3_600_000, 3_600_000);
+        cache.createAuth(new AuthData("token", "user"));
+        CountDownLatch release = new CountDownLatch(1);
+        backing.paused = new CountDownLatch(1);
+        backing.pause = release;
+
+        Thread reader = new Thread(() -> {
+            try {
+                cache.getAuth("token");
+            } catch (DataAccessException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        reader.start();
+        backing.paused.await();
+        cache.createAuth(new AuthData("other", "someone"));
+        release.countDown();
+        reader.join();
+
+        Assertions.assertEquals("user", cache.getAuth("token").username());
+        Assertions.assertEquals(1, backing.lookups.get(), "Login of another token kept the lookup from being cached");
+    }
+
+    // Memory DAO that counts lookups, and can hold one after reading until the test releases it
+    private static class CountingAuthDAO extends MemoryAuthDAO {
+        private final AtomicInteger lookups = new AtomicInteger();
+        private volatile CountDownLatch pause;
+        private volatile CountDownLatch paused;
+
+        @Override
+        public AuthData getAuth(String authToken) {
+            lookups.incrementAndGet();
+            AuthData auth = super.getAuth(authToken);
+            CountDownLatch held = pause;
+            if (held != null) {
+                pause = null;
+                paused.countDown();
+                try {
+                    held.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return auth;
+        }
+    }
+}
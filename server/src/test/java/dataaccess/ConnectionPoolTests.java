@@ -0,0 +1,191 @@
+package dataaccess;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTests {
+    private final List<FakeConnection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Borrow Times Out When Pool Is Exhausted")
+    public void timeout() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(1, 0, 50, 0, 30_000, 0, 0));
+        try (Connection first = pool.getConnection()) {
+            long start = System.nanoTime();
+            Assertions.assertThrows(DataAccessException.class, pool::getConnection);
+            Assertions.assertTrue(System.nanoTime() - start >= 40_000_000L, "Gave up before the timeout");
+            Assertions.assertEquals(1, pool.getStats().timeouts());
+        }
+        try (Connection again = pool.getConnection()) {
+            Assertions.assertEquals(1, opened.size(), "Returned connection was not reused");
+        }
+    }
+
+    @Test
+    @DisplayName("Dead Idle Connection Is Replaced")
+    public void validation() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(2, 0, 1000, 0, 0, 0, 0));
+        pool.getConnection().close();
+        opened.get(0).valid = false;
+
+        try (Connection connection = pool.getConnection()) {
+            Assertions.assertEquals(2, opened.size(), "Dead connection was handed out");
+            Assertions.assertTrue(opened.get(0).closed.get() > 0, "Dead connection was not closed");
+            Assertions.assertEquals(1, pool.getStats().validationFailures());
+        }
+    }
+
+    @Test
+    @DisplayName("Housekeeping Evicts Idle Connections Down To Minimum")
+    public void eviction() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(5, 1, 1000, 1, 30_000, 0, 0));
+        Connection[] connections = new Connection[3];
+        for (int i = 0; i < connections.length; i++) {
+            connections[i] = pool.getConnection();
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        Thread.sleep(10);
+        pool.houseKeep();
+
+        ConnectionPool.PoolStats stats = pool.getStats();
+        Assertions.assertEquals(1, stats.idle(), "Pool did not keep minIdle connections");
+        Assertions.assertEquals(2, stats.destroyed());
+    }
+
+    @Test
+    @DisplayName("Housekeeping Reports Leaks And Survives Failures")
+    public void leaksAndFailures() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(5, 0, 1000, 1, 30_000, 1, 0));
+        Connection leaked = pool.getConnection();
+        pool.getConnection().close();
+        opened.get(1).failOnClose = true;
+        Thread.sleep(10);
+
+        pool.houseKeep();
+        Assertions.assertEquals(1, pool.getStats().leaksDetected(), "Failed eviction stopped the leak check");
+        pool.houseKeep();
+        Assertions.assertEquals(1, pool.getStats().leaksDetected(), "Leak was reported twice");
+        leaked.close();
+    }
+
+    @Test
+    @DisplayName("Prepared Statements Are Reused Per Connection")
+    public void statementCache() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(1, 0, 1000, 0, 30_000, 0, 2));
+        String sql = "SELECT 1";
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, i);
+            }
+        }
+        FakeConnection connection = opened.get(0);
+        Assertions.assertEquals(1, connection.prepared.get(), "Statement was prepared more than once");
+        Assertions.assertEquals(3, connection.clearedParameters.get(), "Closing did not clear parameters");
+
+        try (Connection borrowed = pool.getConnection();
+             PreparedStatement outer = borrowed.prepareStatement(sql);
+             PreparedStatement nested = borrowed.prepareStatement(sql)) {
+            Assertions.assertNotSame(outer, nested);
+            Assertions.assertEquals(2, connection.prepared.get(), "Open statement was handed out twice");
+        }
+
+        try (Connection borrowed = pool.getConnection()) {
+            borrowed.prepareStatement("SELECT 2").close();
+            borrowed.prepareStatement("SELECT 3").close();
+        }
+        Assertions.assertTrue(connection.statementsClosed.get() >= 1, "Cache grew past its size");
+    }
+
+    @Test
+    @DisplayName("New Statement Survives Eviction From A Full Cache")
+    public void newStatementNotEvicted() throws Exception {
+        pool = newPool(new ConnectionPool.Settings(1, 0, 1000, 0, 30_000, 0, 1));
+        try (Connection borrowed = pool.getConnection();
+             PreparedStatement open = borrowed.prepareStatement("SELECT 1");
+             PreparedStatement added = borrowed.prepareStatement("SELECT 2")) {
+            // The only closable entry is the one just prepared, which must stay open for its caller
+            Assertions.assertEquals(0, opened.get(0).statementsClosed.get(), "Statement was closed as it was handed out");
+        }
+
+        // The next new statement shrinks the cache back to its size
+        try (Connection borrowed = pool.getConnection()) {
+            borrowed.prepareStatement("SELECT 3").close();
+        }
+        Assertions.assertEquals(2, opened.get(0).statementsClosed.get(), "Cache stayed past its size");
+    }
+
+    private ConnectionPool newPool(ConnectionPool.Settings settings) {
+        return new ConnectionPool(() -> {
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }, settings);
+    }
+
+    // A connection that records what the pool does with it
+    private static class FakeConnection {
+        private final AtomicInteger closed = new AtomicInteger();
+        private final AtomicInteger prepared = new AtomicInteger();
+        private final AtomicInteger clearedParameters = new AtomicInteger();
+        private final AtomicInteger statementsClosed = new AtomicInteger();
+        private volatile boolean valid = true;
+        private volatile boolean failOnClose;
+
+        Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "close" -> {
+                            closed.incrementAndGet();
+                            if (failOnClose) {
+                                throw new IllegalStateException("expected by the test");
+                            }
+                            yield null;
+                        }
+                        case "isClosed" -> closed.get() > 0;
+                        case "isValid" -> valid;
+                        case "getAutoCommit" -> true;
+                        case "prepareStatement" -> {
+                            prepared.incrementAndGet();
+                            yield statement();
+                        }
+                        default -> null;
+                    });
+        }
+
+        private PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "clearParameters" -> {
+                            clearedParameters.incrementAndGet();
+                            yield null;
+                        }
+                        case "close" -> {
+                            statementsClosed.incrementAndGet();
+                            yield null;
+                        }
+                        case "isClosed" -> false;
+                        default -> null;
+                    });
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package dataaccess;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import chess.ChessJson;
+import chess.ChessMove;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+public class GameDAOTests {
+    @TempDir
+    Path directory;
+
+    private DataAccess dataAccess;
+
+    @AfterEach
+    public void tearDown() {
+        if (dataAccess != null) {
+            dataAccess.close();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "mapped"})
+    @DisplayName("Updated Game Reads Back")
+    public void roundTrip(String backend) throws Exception {
+        GameDAO games = open(backend).getGameDAO();
+        int gameID = games.createGame(new GameData(0, "white", null, "game", new ChessGame()));
+        ChessGame game = games.getGame(gameID).game();
+        playMoves(game, 30, new Random(1));
+        games.updateGame(new GameData(gameID, "white", "black", "game", game));
+
+        GameData stored = games.getGame(gameID);
+        Assertions.assertEquals("black", stored.blackUsername());
+        Assertions.assertEquals(game.getBoard(), stored.game().getBoard());
+        Assertions.assertEquals(game.getTeamTurn(), stored.game().getTeamTurn());
+        Assertions.assertEquals(1, games.listGames().size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"memory", "mapped"})
+    @DisplayName("Updating Missing Game Fails")
+    public void updateMissing(String backend) throws Exception {
+        GameDAO games = open(backend).getGameDAO();
+        Assertions.assertThrows(DataAccessException.class,
+                () -> games.updateGame(new GameData(42, null, null, "game", new ChessGame())));
+        Assertions.assertThrows(DataAccessException.class,
+                () -> games.updateGames(List.of(new GameData(42, null, null, "game", new ChessGame()))));
+    }
+
+    @Test
+    @DisplayName("Stored Game Does Not Grow With Its Moves")
+    public void storedSizeIsFlat() throws Exception {
+        try (MappedStore store = new MappedStore(new MappedStore.Settings(directory, 1 << 20, 0, false))) {
+            MappedGameDAO games = new MappedGameDAO(store);
+            ChessGame game = new ChessGame();
+            int gameID = games.createGame(new GameData(0, "white", "black", "game", game));
+            Random random = new Random(2);
+
+            playMoves(game, 4, random);
+            games.updateGame(new GameData(gameID, "white", "black", "game", game));
+            int early = store.get(MappedGameDAO.TABLE, Integer.toString(gameID)).length;
+            playMoves(game, 60, random);
+            games.updateGame(new GameData(gameID, "white", "black", "game", game));
+            int late = store.get(MappedGameDAO.TABLE, Integer.toString(gameID)).length;
+
+            Assertions.assertFalse(game.getMoveHistory().isEmpty());
+            Assertions.assertTrue(late <= early + 8, "Record grew from " + early + " to " + late + " bytes");
+            Assertions.assertFalse(ChessJson.gson().toJson(game).contains("moveHistory"));
+        }
+    }
+
+    @Test
+    @DisplayName("New Game Never Overwrites A Stored Id")
+    public void idCollision() throws Exception {
+        try (MappedStore store = new MappedStore(new MappedStore.Settings(directory, 1 << 20, 0, false))) {
+            MappedGameDAO games = new MappedGameDAO(store);
+            byte[] existing = "{\"gameID\":1,\"gameName\":\"existing\"}".getBytes(StandardCharsets.UTF_8);
+            store.put(MappedGameDAO.TABLE, "1", existing);
+
+            int gameID = games.createGame(new GameData(0, "white", null, "new", new ChessGame()));
+            Assertions.assertEquals(2, gameID);
+            Assertions.assertEquals("existing", games.getGame(1).gameName());
+
+            games.clear();
+            Assertions.assertEquals(1, games.createGame(new GameData(0, null, null, "after clear", new ChessGame())));
+        }
+    }
+
+    @Test
+    @DisplayName("Full Copy Keeps History And Clock")
+    public void fullCopy() throws Exception {
+        ChessGame game = new ChessGame();
+        game.setClock(new ChessClock(60_000, 1_000, 0));
+        playMoves(game, 6, new Random(3));
+
+        ChessGame copy = game.fullCopy();
+        Assertions.assertEquals(game.getMoveHistory(), copy.getMoveHistory());
+        Assertions.assertEquals(game.getHistoryId(), copy.getHistoryId());
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertNotSame(game.getClock(), copy.getClock());
+
+        playMoves(game, 1, new Random(4));
+        Assertions.assertEquals(6, copy.getMoveHistory().size(), "Copy shares its history with the original");
+    }
+
+    private DataAccess open(String backend) throws DataAccessException {
+        Properties props = new Properties();
+        props.setProperty("db.backend", backend);
+        props.setProperty("db.mapped.directory", directory.toString());
+        props.setProperty("db.mapped.segmentSize", Integer.toString(1 << 20));
+        dataAccess = DataAccess.fromProperties(props);
+        return dataAccess;
+    }
+
+    // Plays random legal moves, stopping early if the game ends
+    static void playMoves(ChessGame game, int count, Random random) throws Exception {
+        for (int i = 0; i < count; i++) {
+            List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+            if (moves.isEmpty()) {
+                return;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+}
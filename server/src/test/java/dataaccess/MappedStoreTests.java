@@ -0,0 +1,164 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+public class MappedStoreTests {
+    private static final byte TABLE = 1;
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path backup;
+
+    @Test
+    @DisplayName("Torn Last Record Ends The Log")
+    public void tornLastRecord() throws Exception {
+        try (MappedStore store = open(4096)) {
+            put(store, "a", "first");
+            put(store, "b", "second");
+            put(store, "c", "third");
+        }
+        // Each record is a 16 byte header, a 1 byte key and a 5 or 6 byte value; break the last value
+        Path segment = segmentFiles().get(0);
+        flipByte(segment, (16 + 1 + 5) + (16 + 1 + 6) + 16 + 1);
+
+        try (MappedStore store = open(4096)) {
+            Assertions.assertEquals(Map.of("a", "first", "b", "second"), contents(store));
+            put(store, "d", "fourth");
+        }
+        try (MappedStore store = open(4096)) {
+            Assertions.assertEquals(Map.of("a", "first", "b", "second", "d", "fourth"), contents(store));
+        }
+    }
+
+    @Test
+    @DisplayName("Damaged Earlier Segment Fails The Open")
+    public void damagedEarlierSegment() throws Exception {
+        try (MappedStore store = open(256)) {
+            for (int i = 0; i < 40; i++) {
+                put(store, "key" + i, "value" + i);
+            }
+        }
+        List<Path> segments = segmentFiles();
+        Assertions.assertTrue(segments.size() > 1, "Records did not span segments");
+        flipByte(segments.get(0), 16 + 2);
+
+        Assertions.assertThrows(DataAccessException.class, () -> open(256));
+    }
+
+    @Test
+    @DisplayName("Crash During Compaction Replays To The Same State")
+    public void compactionCrash() throws Exception {
+        Map<String, String> expected;
+        List<Path> old;
+        try (MappedStore store = open(256)) {
+            for (int i = 0; i < 40; i++) {
+                put(store, "key" + (i % 12), "value" + i);
+                if (i % 5 == 0) {
+                    store.delete(TABLE, "key" + (i % 7));
+                }
+            }
+            expected = contents(store);
+            old = segmentFiles();
+            for (Path segment : old) {
+                Files.copy(segment, backup.resolve(segment.getFileName()));
+            }
+            store.compact();
+            Assertions.assertEquals(expected, contents(store));
+        }
+        List<Path> compacted = segmentFiles();
+
+        // Crash before any old segment was deleted
+        restore(old);
+        try (MappedStore store = open(256)) {
+            Assertions.assertEquals(expected, contents(store));
+        }
+
+        // Crash part way through deleting; old segments go oldest first
+        Files.delete(old.get(0));
+        try (MappedStore store = open(256)) {
+            Assertions.assertEquals(expected, contents(store));
+        }
+
+        // Crash while the last compacted record was being written
+        flipByte(compacted.get(compacted.size() - 1), 16 + 2);
+        restore(old);
+        try (MappedStore store = open(256)) {
+            Assertions.assertEquals(expected, contents(store));
+        }
+    }
+
+    @Test
+    @DisplayName("Replace Only Stores Existing Keys")
+    public void replace() throws Exception {
+        try (MappedStore store = open(4096)) {
+            Assertions.assertFalse(store.replace(TABLE, "a", bytes("first")));
+            Assertions.assertNull(store.get(TABLE, "a"));
+
+            put(store, "a", "first");
+            Assertions.assertTrue(store.replace(TABLE, "a", bytes("second")));
+            Assertions.assertEquals("second", new String(store.get(TABLE, "a"), StandardCharsets.UTF_8));
+
+            store.clear(TABLE);
+            Assertions.assertFalse(store.replace(TABLE, "a", bytes("third")));
+            Assertions.assertTrue(contents(store).isEmpty(), "Replace brought back a cleared key");
+        }
+    }
+
+    private MappedStore open(int segmentSize) throws DataAccessException {
+        return new MappedStore(new MappedStore.Settings(directory, segmentSize, 0, false));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted((a, b) -> Long.compare(segmentId(a), segmentId(b))).toList();
+        }
+    }
+
+    private void restore(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.copy(backup.resolve(segment.getFileName()), segment, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.replaceAll("\\D", ""));
+    }
+
+    private static void flipByte(Path file, int offset) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        data[offset] ^= 0x5A;
+        Files.write(file, data);
+    }
+
+    private static void put(MappedStore store, String key, String value) throws DataAccessException {
+        store.put(TABLE, key, bytes(value));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> contents(MappedStore store) {
+        Map<String, String> contents = new TreeMap<>();
+        for (String key : store.keys(TABLE)) {
+            contents.put(key, new String(store.get(TABLE, key), StandardCharsets.UTF_8));
+        }
+        return contents;
+    }
+}
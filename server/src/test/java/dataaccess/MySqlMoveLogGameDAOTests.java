@@ -0,0 +1,104 @@
+package dataaccess;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs against the MySQL server configured in db.properties, and is skipped when none is reachable.
+ */
+public class MySqlMoveLogGameDAOTests {
+    private MySqlMoveLogGameDAO games;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try {
+            games = new MySqlMoveLogGameDAO();
+            games.clear();
+        } catch (DataAccessException e) {
+            Assumptions.abort("No MySQL server available: " + e.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Game Replays From Snapshot And Logged Moves")
+    public void replay() throws Exception {
+        ChessGame game = new ChessGame();
+        int gameID = games.createGame(new GameData(0, "white", "black", "game", game));
+        Random random = new Random(5);
+        // Written a few moves at a time, across several snapshot intervals
+        for (int round = 0; round < 20; round++) {
+            GameDAOTests.playMoves(game, 5, random);
+            games.updateGame(new GameData(gameID, "white", "black", "game", game));
+        }
+
+        GameData loaded = new MySqlMoveLogGameDAO().getGame(gameID);
+        Assertions.assertEquals(game.getBoard(), loaded.game().getBoard());
+        Assertions.assertEquals(game.getTeamTurn(), loaded.game().getTeamTurn());
+        Assertions.assertTrue(loaded.game().getMoveHistory().size() < MySqlMoveLogGameDAO.SNAPSHOT_INTERVAL,
+                "Load replayed more than one snapshot interval");
+
+        // A DAO that loaded the game keeps logging onto it
+        MySqlMoveLogGameDAO reloaded = new MySqlMoveLogGameDAO();
+        ChessGame continued = reloaded.getGame(gameID).game();
+        GameDAOTests.playMoves(continued, 7, random);
+        reloaded.updateGame(new GameData(gameID, "white", "black", "game", continued));
+        Assertions.assertEquals(continued.getBoard(), new MySqlMoveLogGameDAO().getGame(gameID).game().getBoard());
+    }
+
+    @Test
+    @DisplayName("Position Set Directly Starts A New Snapshot")
+    public void setBoard() throws Exception {
+        ChessGame game = new ChessGame();
+        int gameID = games.createGame(new GameData(0, null, null, "game", game));
+        GameDAOTests.playMoves(game, 10, new Random(6));
+        games.updateGame(new GameData(gameID, null, null, "game", game));
+
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        GameDAOTests.playMoves(game, 3, new Random(7));
+        games.updateGame(new GameData(gameID, null, null, "game", game));
+
+        Assertions.assertEquals(game.getBoard(), new MySqlMoveLogGameDAO().getGame(gameID).game().getBoard());
+    }
+
+    @Test
+    @DisplayName("Failed Batch Leaves Snapshot Of Directly Set Game")
+    public void failedBatchKeepsSnapshot() throws Exception {
+        ChessGame game = new ChessGame();
+        int gameID = games.createGame(new GameData(0, null, null, "game", game));
+        ChessBoard startBoard = new ChessBoard();
+        startBoard.resetBoard();
+
+        // Known to the DAO but gone from the table, so the batch fails at its row update
+        ChessGame vanished = new ChessGame();
+        int vanishedID = games.createGame(new GameData(0, null, null, "vanished", vanished));
+        DatabaseManager.executeUpdate("DELETE FROM game_log WHERE gameID = ?", vanishedID);
+
+        // Set directly at move 0, so its new snapshot has the same seq as the stored one
+        ChessGame changed = new ChessGame();
+        GameDAOTests.playMoves(changed, 4, new Random(8));
+        game.setBoard(changed.getBoard());
+        Assertions.assertThrows(DataAccessException.class, () -> games.updateGames(List.of(
+                new GameData(gameID, null, null, "game", game),
+                new GameData(vanishedID, null, null, "vanished", vanished))));
+
+        Assertions.assertEquals(startBoard, new MySqlMoveLogGameDAO().getGame(gameID).game().getBoard());
+    }
+
+    @Test
+    @DisplayName("Updating Missing Game Fails")
+    public void updateMissing() {
+        Assertions.assertThrows(DataAccessException.class,
+                () -> games.updateGames(List.of(new GameData(12345, null, null, "game", new ChessGame()))));
+    }
+}
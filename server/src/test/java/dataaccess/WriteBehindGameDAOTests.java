@@ -0,0 +1,161 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindGameDAOTests {
+    private RecordingGameDAO backing;
+    private WriteBehindGameDAO cache;
+
+    @BeforeEach
+    public void setUp() {
+        backing = new RecordingGameDAO();
+        // Flushed by the tests only
+        cache = new WriteBehindGameDAO(backing, 3_600_000, 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    @DisplayName("Updates Between Flushes Are Written Once")
+    public void coalesce() throws Exception {
+        int gameID = cache.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        for (int version = 1; version <= 50; version++) {
+            cache.updateGame(new GameData(gameID, "white", null, "v" + version, new ChessGame()));
+        }
+        Assertions.assertEquals(0, backing.batches.size(), "Update was written through");
+
+        cache.flush();
+        Assertions.assertEquals(List.of(List.of("v50")), backing.batches);
+        Assertions.assertEquals("v50", backing.getGame(gameID).gameName());
+        Assertions.assertEquals(0, cache.getDirtyCount());
+    }
+
+    @Test
+    @DisplayName("Failed Flush Is Retried")
+    public void retry() throws Exception {
+        int gameID = cache.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        cache.updateGame(new GameData(gameID, null, null, "changed", new ChessGame()));
+        backing.failWrites.set(2); // The batch, then the game written on its own
+
+        Assertions.assertThrows(DataAccessException.class, cache::flush);
+        Assertions.assertEquals(1, cache.getDirtyCount(), "Failed game was not kept dirty");
+        cache.flush();
+        Assertions.assertEquals("changed", backing.getGame(gameID).gameName());
+    }
+
+    @Test
+    @DisplayName("Missing Game Does Not Block Others")
+    public void missingGame() throws Exception {
+        Assertions.assertThrows(DataAccessException.class,
+                () -> cache.updateGame(new GameData(999, null, null, "unknown", new ChessGame())));
+        Assertions.assertEquals(0, cache.getDirtyCount());
+
+        int kept = cache.createGame(new GameData(0, null, null, "kept", new ChessGame()));
+        int lost = cache.createGame(new GameData(0, null, null, "lost", new ChessGame()));
+        // The backing store loses the second game behind the cache's back
+        backing.clear();
+        Assertions.assertEquals(kept, backing.createGame(new GameData(0, null, null, "kept", new ChessGame())));
+        cache.updateGame(new GameData(lost, null, null, "lost changed", new ChessGame()));
+        cache.updateGame(new GameData(kept, null, null, "kept changed", new ChessGame()));
+
+        cache.flush();
+        Assertions.assertEquals("kept changed", backing.getGame(kept).gameName());
+        Assertions.assertEquals(0, cache.getDirtyCount(), "Missing game was kept dirty");
+        Assertions.assertNull(cache.getGame(lost));
+    }
+
+    @Test
+    @DisplayName("Cleared Games Are Not Written")
+    public void clearDropsPending() throws Exception {
+        int gameID = cache.createGame(new GameData(0, null, null, "game", new ChessGame()));
+        cache.updateGame(new GameData(gameID, null, null, "changed", new ChessGame()));
+        cache.clear();
+
+        cache.flush();
+        Assertions.assertTrue(backing.batches.isEmpty());
+        Assertions.assertNull(cache.getGame(gameID));
+    }
+
+    @Test
+    @DisplayName("Concurrent Flushes Never Write An Older State")
+    public void concurrentFlushes() throws Exception {
+        int gameID = cache.createGame(new GameData(0, null, null, "0", new ChessGame()));
+        AtomicBoolean done = new AtomicBoolean();
+        List<Thread> flushers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread flusher = new Thread(() -> {
+                while (!done.get()) {
+                    try {
+                        cache.flush();
+                    } catch (DataAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            flusher.start();
+            flushers.add(flusher);
+        }
+        for (int version = 1; version <= 2000; version++) {
+            cache.updateGame(new GameData(gameID, null, null, String.valueOf(version), new ChessGame()));
+        }
+        done.set(true);
+        for (Thread flusher : flushers) {
+            flusher.join();
+        }
+        cache.flush();
+
+        int previous = 0;
+        for (List<String> batch : backing.batches) {
+            int version = Integer.parseInt(batch.get(0));
+            Assertions.assertTrue(version >= previous, "Version " + version + " was written after " + previous);
+            previous = version;
+        }
+        Assertions.assertEquals("2000", backing.getGame(gameID).gameName());
+    }
+
+    // Memory DAO that records the game names of every batch written to it, and can fail its next writes
+    private static class RecordingGameDAO extends MemoryGameDAO {
+        private final List<List<String>> batches = new ArrayList<>();
+        private final AtomicInteger failWrites = new AtomicInteger();
+
+        @Override
+        public void updateGame(GameData game) throws DataAccessException {
+            failIfAsked();
+            super.updateGame(game);
+        }
+
+        @Override
+        public void updateGames(Collection<GameData> games) throws DataAccessException {
+            failIfAsked();
+            List<String> names = new ArrayList<>();
+            for (GameData game : games) {
+                names.add(game.gameName());
+            }
+            synchronized (batches) {
+                batches.add(names);
+            }
+            super.updateGames(games);
+        }
+
+        private void failIfAsked() throws DataAccessException {
+            if (failWrites.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+                throw new DataAccessException("expected by the test");
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package service;
+
+import dataaccess.MemoryAuthDAO;
+import dataaccess.MemoryUserDAO;
+import model.UserData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class UserServiceTests {
+
+    @Test
+    @DisplayName("Queued Password Check Fails After Max Wait")
+    public void queuedTimeout() throws Exception {
+        try (PasswordHasher hasher = new PasswordHasher(4, 10, 100)) {
+            CountDownLatch release = new CountDownLatch(1);
+            List<CompletableFuture<Boolean>> busy = new ArrayList<>();
+            for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+                busy.add(hasher.submit(() -> {
+                    awaitQuietly(release);
+                    return true;
+                }));
+            }
+
+            CompletableFuture<String> queued = hasher.hash("password");
+            ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+                    () -> queued.get(5, TimeUnit.SECONDS), "Queued request did not time out while workers were busy");
+            Assertions.assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+            Assertions.assertEquals(0, hasher.getQueuedRequests());
+
+            release.countDown();
+            for (CompletableFuture<Boolean> task : busy) {
+                Assertions.assertTrue(task.get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent Duplicate Registration Is Forbidden")
+    public void concurrentDuplicate() throws Exception {
+        // The other registration lands between the service's check and its insert
+        MemoryUserDAO users = new MemoryUserDAO() {
+            private boolean raced;
+
+            @Override
+            public UserData getUser(String username) {
+                if (!raced) {
+                    raced = true;
+                    try {
+                        createUser(new UserData(username, "otherHash", "other@mail.com"));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return null;
+                }
+                return super.getUser(username);
+            }
+        };
+        try (PasswordHasher hasher = new PasswordHasher(4, 10, 10_000)) {
+            UserService service = new UserService(users, new MemoryAuthDAO(), hasher);
+            ServiceException failure = Assertions.assertThrows(ServiceException.class,
+                    () -> service.register(new UserData("alice", "password", "alice@mail.com")));
+            Assertions.assertEquals(403, failure.getStatusCode());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
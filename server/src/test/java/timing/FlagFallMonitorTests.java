@@ -0,0 +1,76 @@
+package timing;
+
+import chess.ChessClock;
+import chess.ChessGame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class FlagFallMonitorTests {
+    private long nowNanos;
+    private TimingWheel wheel;
+    private final List<ChessGame.TeamColor> flagged = new ArrayList<>();
+    private FlagFallMonitor monitor;
+
+    @BeforeEach
+    public void setUp() {
+        nowNanos = 0;
+        wheel = new TimingWheel(1, "test-wheel", () -> nowNanos, false);
+        monitor = new FlagFallMonitor(wheel, (gameID, color) -> flagged.add(color));
+    }
+
+    @Test
+    @DisplayName("Flag Falls Once And Stops The Clock")
+    public void flagFalls() {
+        ChessClock clock = new ChessClock(0, 0, 0);
+        clock.start(ChessGame.TeamColor.WHITE, ChessClock.currentMillis());
+        monitor.watch(1, clock);
+        advance(5);
+
+        Assertions.assertEquals(List.of(ChessGame.TeamColor.WHITE), flagged);
+        Assertions.assertNull(clock.getRunningSide());
+        Assertions.assertEquals(0, monitor.getWatchedGames());
+    }
+
+    @Test
+    @DisplayName("Replaced Timeout Leaves The Current One Armed")
+    public void staleTimeout() {
+        ChessClock clock = new ChessClock(60_000, 0, 0);
+        clock.start(ChessGame.TeamColor.WHITE, ChessClock.currentMillis());
+        monitor.watch(1, clock);
+
+        // A timeout that fires after a newer one replaced it, on a clock that has since flagged
+        ChessClock flaggedClock = new ChessClock(0, 0, 0);
+        flaggedClock.start(ChessGame.TeamColor.WHITE, ChessClock.currentMillis());
+        monitor.checkFlag(1, flaggedClock, new AtomicReference<>(wheel.schedule(1, () -> { })));
+
+        Assertions.assertTrue(flagged.isEmpty(), "Stale timeout reported a flag fall");
+        Assertions.assertEquals(1, monitor.getWatchedGames());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, flaggedClock.getRunningSide());
+    }
+
+    @Test
+    @DisplayName("Clock Time Never Goes Back And Stays Near Epoch Time")
+    public void monotonicTime() {
+        long previous = ChessClock.currentMillis();
+        for (int i = 0; i < 1000; i++) {
+            long now = ChessClock.currentMillis();
+            Assertions.assertTrue(now >= previous);
+            previous = now;
+        }
+        Assertions.assertTrue(Math.abs(ChessClock.currentMillis() - System.currentTimeMillis()) < TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private void advance(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            nowNanos += TimeUnit.MILLISECONDS.toNanos(1);
+            wheel.catchUp();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package timing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TimingWheelTests {
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long nowNanos;
+    private TimingWheel wheel;
+
+    @BeforeEach
+    public void setUp() {
+        nowNanos = 0;
+        wheel = new TimingWheel(1, "test-wheel", () -> nowNanos, false);
+    }
+
+    @Test
+    @DisplayName("Timeouts Fire On Their Tick Across Levels")
+    public void firesAcrossLevels() {
+        // Deadlines on every level: below 64 ticks, below 4096, below 262144 and beyond
+        long[] delays = {0, 1, 63, 64, 65, 4095, 4096, 4097, 100_000, 262_143, 262_144, 300_000};
+        long[] firedAt = new long[delays.length];
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            firedAt[i] = -1;
+            wheel.schedule(delays[i], () -> firedAt[index] = currentTick());
+        }
+        advanceTo(300_001);
+        for (int i = 0; i < delays.length; i++) {
+            Assertions.assertEquals(delays[i] + 1, firedAt[i], "Timeout of " + delays[i] + " ticks fired on the wrong tick");
+        }
+        Assertions.assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Random Deadlines Never Fire Early Or Late")
+    public void randomDeadlines() {
+        Random random = new Random(42);
+        List<long[]> timeouts = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            if (step % 10 == 0) {
+                long[] timeout = {currentTick() + 1 + random.nextInt(10_000), -1};
+                timeouts.add(timeout);
+                wheel.schedule(timeout[0] - currentTick() - 1, () -> timeout[1] = currentTick());
+            }
+            advanceTo(currentTick() + 1);
+        }
+        advanceTo(currentTick() + 10_001);
+        for (long[] timeout : timeouts) {
+            Assertions.assertEquals(timeout[0], timeout[1], "Timeout fired on the wrong tick");
+        }
+    }
+
+    @Test
+    @DisplayName("Deadline Beyond The Wheel Wraps Around")
+    public void beyondWheel() {
+        long maxTicks = 1L << 24;
+        AtomicInteger fired = new AtomicInteger();
+        long[] firedAt = {-1};
+        wheel.schedule(maxTicks + 100, () -> {
+            fired.incrementAndGet();
+            firedAt[0] = currentTick();
+        });
+        advanceTo(maxTicks);
+        Assertions.assertEquals(0, fired.get(), "Timeout beyond the wheel fired early");
+        advanceTo(maxTicks + 200);
+        Assertions.assertEquals(1, fired.get());
+        Assertions.assertEquals(maxTicks + 101, firedAt[0]);
+    }
+
+    @Test
+    @DisplayName("Cancelled Timeouts Do Not Fire")
+    public void cancel() {
+        AtomicInteger fired = new AtomicInteger();
+        TimingWheel.Timeout queued = wheel.schedule(10, fired::incrementAndGet);
+        Assertions.assertTrue(wheel.cancel(queued), "Cancel before the wheel saw the timeout failed");
+
+        TimingWheel.Timeout levelOne = wheel.schedule(100, fired::incrementAndGet);
+        TimingWheel.Timeout levelTwo = wheel.schedule(5000, fired::incrementAndGet);
+        TimingWheel.Timeout kept = wheel.schedule(5000, fired::incrementAndGet);
+        advanceTo(50);
+        Assertions.assertTrue(wheel.cancel(levelOne));
+        advanceTo(4500);
+        // Cancelled after its slot cascaded down to a lower level
+        Assertions.assertTrue(wheel.cancel(levelTwo));
+        Assertions.assertFalse(wheel.cancel(levelTwo), "Second cancel succeeded");
+
+        advanceTo(6000);
+        Assertions.assertEquals(1, fired.get(), "A cancelled timeout fired");
+        Assertions.assertTrue(kept.isExpired());
+        Assertions.assertTrue(levelOne.isCancelled());
+        Assertions.assertFalse(wheel.cancel(kept), "Cancelled a timeout that already ran");
+        Assertions.assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Failing Task Does Not Stop The Wheel")
+    public void failingTask() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(5, () -> {
+            throw new IllegalStateException("expected by the test");
+        });
+        wheel.schedule(5, fired::incrementAndGet);
+        wheel.schedule(20, fired::incrementAndGet);
+        advanceTo(30);
+        Assertions.assertEquals(2, fired.get());
+    }
+
+    private long currentTick() {
+        return nowNanos / TICK_NANOS;
+    }
+
+    // Moves the clock forward one tick at a time, so every task sees the tick it fired on
+    private void advanceTo(long tick) {
+        while (currentTick() < tick) {
+            nowNanos += TICK_NANOS;
+            wheel.catchUp();
+        }
+    }
+}
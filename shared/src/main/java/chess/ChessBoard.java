@@ -5,9 +5,39 @@ import java.util.Arrays;
 public class ChessBoard implements Cloneable
 {
 
+    // Step directions as {row step, column step} for attack detection
+    private static final int[][] ORTHOGONAL_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] DIAGONAL_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+
+    // One shared instance of every piece, indexed by ChessPiece.getIndex(); pieces are immutable
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static
+    {
+
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values())
+        {
+
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values())
+            {
+
+                ChessPiece piece = new ChessPiece(color, type);
+                PIECES[piece.getIndex()] = piece;
+            }
+        }
+    }
+
     // 2D array to represent the chessboard squares
     private ChessPiece[][] boardSquares = new ChessPiece[8][8];
 
+    // Dense mirror of the squares for equals and hashCode: 0 for empty, else ChessPiece.getIndex() + 1
+    // Built on first use so a board filled in by Gson, which bypasses addPiece, is mirrored correctly
+    private transient byte[] squareCodes;
+
+    // Bumped by every write to a square, so callers can tell a board changed without comparing it
+    private transient int modCount;
+
     // Constructor to initialize the chessboard
     public ChessBoard()
     {
@@ -19,11 +49,17 @@ public class ChessBoard implements Cloneable
     private void initializeBoard()
     {
 
+        modCount++;
         for (ChessPiece[] row : boardSquares)
         {
 
             Arrays.fill(row, null); // Fill each row with null
         }
+        if (squareCodes != null)
+        {
+
+            Arrays.fill(squareCodes, (byte) 0);
+        }
     }
 
     // Method to add a piece to the board at a specific position
@@ -32,7 +68,14 @@ public class ChessBoard implements Cloneable
 
         int rowIdx = position.getRow() - 1; // Convert to 0-based index
         int colIdx = position.getColumn() - 1; // Convert to 0-based index
-        boardSquares[rowIdx][colIdx] = piece; // Place the piece on the board
+        setSquare(rowIdx, colIdx, piece); // Place the piece on the board
+    }
+
+    // Method to get a count that changes whenever a square is written, including by addPiece and resetBoard
+    int getModCount()
+    {
+
+        return modCount;
     }
 
     // Method to get a piece from a specific position on the board
@@ -53,6 +96,43 @@ public class ChessBoard implements Cloneable
         placeBlackPieces();
     }
 
+    // Method to write a 0-based square, keeping the mirror in step once it exists
+    private void setSquare(int row, int col, ChessPiece piece)
+    {
+
+        boardSquares[row][col] = piece;
+        modCount++;
+        if (squareCodes != null)
+        {
+
+            squareCodes[row * 8 + col] = codeOf(piece);
+        }
+    }
+
+    // Method to get the mirror, building it from the squares the first time it is needed
+    private byte[] squareCodes()
+    {
+
+        if (squareCodes == null)
+        {
+
+            byte[] codes = new byte[64];
+            for (int square = 0; square < 64; square++)
+            {
+
+                codes[square] = codeOf(boardSquares[square / 8][square % 8]);
+            }
+            squareCodes = codes;
+        }
+        return squareCodes;
+    }
+
+    private static byte codeOf(ChessPiece piece)
+    {
+
+        return (piece == null) ? 0 : (byte) (piece.getIndex() + 1);
+    }
+
     // Method to place white pieces on the board
     private void placeWhitePieces()
     {
@@ -73,14 +153,14 @@ public class ChessBoard implements Cloneable
     private void placeMajorPieces(int row, ChessGame.TeamColor color)
     {
 
-        boardSquares[row][0] = new ChessPiece(color, ChessPiece.PieceType.ROOK);
-        boardSquares[row][7] = new ChessPiece(color, ChessPiece.PieceType.ROOK);
-        boardSquares[row][1] = new ChessPiece(color, ChessPiece.PieceType.KNIGHT);
-        boardSquares[row][6] = new ChessPiece(color, ChessPiece.PieceType.KNIGHT);
-        boardSquares[row][2] = new ChessPiece(color, ChessPiece.PieceType.BISHOP);
-        boardSquares[row][5] = new ChessPiece(color, ChessPiece.PieceType.BISHOP);
-        boardSquares[row][3] = new ChessPiece(color, ChessPiece.PieceType.QUEEN);
-        boardSquares[row][4] = new ChessPiece(color, ChessPiece.PieceType.KING);
+        setSquare(row, 0, new ChessPiece(color, ChessPiece.PieceType.ROOK));
+        setSquare(row, 7, new ChessPiece(color, ChessPiece.PieceType.ROOK));
+        setSquare(row, 1, new ChessPiece(color, ChessPiece.PieceType.KNIGHT));
+        setSquare(row, 6, new ChessPiece(color, ChessPiece.PieceType.KNIGHT));
+        setSquare(row, 2, new ChessPiece(color, ChessPiece.PieceType.BISHOP));
+        setSquare(row, 5, new ChessPiece(color, ChessPiece.PieceType.BISHOP));
+        setSquare(row, 3, new ChessPiece(color, ChessPiece.PieceType.QUEEN));
+        setSquare(row, 4, new ChessPiece(color, ChessPiece.PieceType.KING));
     }
 
     // Method to place pawns on the board
@@ -90,8 +170,203 @@ public class ChessBoard implements Cloneable
         for (int col = 0; col < 8; col++)
         {
 
-            boardSquares[row][col] = new ChessPiece(color, ChessPiece.PieceType.PAWN);
+            setSquare(row, col, new ChessPiece(color, ChessPiece.PieceType.PAWN));
+        }
+    }
+
+    /**
+     * Predicts the material outcome of a capture by playing out the full exchange
+     * on the target square, each side recapturing with its least valuable attacker
+     * and stopping whenever continuing would lose material.
+     *
+     * @param move the capture to evaluate
+     * @return net material gain in centipawns for the side making the move
+     */
+    public int staticExchangeEvaluation(ChessMove move)
+    {
+
+        ChessPiece attacker = getPiece(move.getStartPosition());
+        if (attacker == null)
+        {
+
+            return 0;
+        }
+        ChessPiece victim = getPiece(move.getEndPosition());
+        int targetRow = move.getEndPosition().getRow() - 1;
+        int targetCol = move.getEndPosition().getColumn() - 1;
+
+        int[] gains = new int[32];
+        int depth = 0;
+        gains[0] = (victim == null) ? 0 : victim.pieceType().getValue();
+        int attackerValue = attacker.pieceType().getValue();
+        if (move.getPromotionPiece() != null)
+        {
+
+            gains[0] += move.getPromotionPiece().getValue() - ChessPiece.PieceType.PAWN.getValue();
+            attackerValue = move.getPromotionPiece().getValue();
         }
+
+        long removed = 1L << move.getStartPosition().getIndex();
+        ChessGame.TeamColor side = opponentOf(attacker.teamColor());
+        int attackerSquare;
+        do
+        {
+
+            depth++;
+            gains[depth] = attackerValue - gains[depth - 1]; // Speculative, only counts if the square is defended
+            attackerSquare = findLeastValuableAttacker(targetRow, targetCol, side, removed);
+            if (attackerSquare >= 0)
+            {
+
+                removed |= 1L << attackerSquare;
+                attackerValue = boardSquares[attackerSquare / 8][attackerSquare % 8].pieceType().getValue();
+                side = opponentOf(side);
+            }
+        }
+        while (attackerSquare >= 0 && depth < gains.length - 1);
+
+        while (--depth > 0)
+        {
+
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    // Method to check whether any piece of a color attacks a square
+    boolean isAttacked(ChessPosition position, ChessGame.TeamColor byColor)
+    {
+
+        return findLeastValuableAttacker(position.getRow() - 1, position.getColumn() - 1, byColor, 0L) >= 0;
+    }
+
+    // Method to find the square index of the cheapest piece of a color attacking a square, or -1 if none
+    // Squares set in the removed mask are treated as empty so x-ray attackers show up behind them
+    int findLeastValuableAttacker(int row, int col, ChessGame.TeamColor color, long removed)
+    {
+
+        int bestSquare = -1;
+        int bestValue = Integer.MAX_VALUE;
+
+        int pawnRow = (color == ChessGame.TeamColor.WHITE) ? row - 1 : row + 1;
+        for (int colStep = -1; colStep <= 1; colStep += 2)
+        {
+
+            if (isAttackerAt(pawnRow, col + colStep, color, ChessPiece.PieceType.PAWN, removed))
+            {
+
+                return pawnRow * 8 + col + colStep; // Nothing is cheaper than a pawn
+            }
+        }
+
+        for (int[] offset : KNIGHT_OFFSETS)
+        {
+
+            if (isAttackerAt(row + offset[0], col + offset[1], color, ChessPiece.PieceType.KNIGHT, removed))
+            {
+
+                return (row + offset[0]) * 8 + col + offset[1];
+            }
+        }
+
+        for (int[] direction : DIAGONAL_DIRECTIONS)
+        {
+
+            int square = firstPieceInDirection(row, col, direction, removed);
+            if (square >= 0)
+            {
+
+                ChessPiece piece = boardSquares[square / 8][square % 8];
+                ChessPiece.PieceType type = piece.pieceType();
+                if (piece.teamColor() == color && (type == ChessPiece.PieceType.BISHOP || type == ChessPiece.PieceType.QUEEN)
+                        && type.getValue() < bestValue)
+                {
+
+                    bestSquare = square;
+                    bestValue = type.getValue();
+                }
+            }
+        }
+
+        for (int[] direction : ORTHOGONAL_DIRECTIONS)
+        {
+
+            int square = firstPieceInDirection(row, col, direction, removed);
+            if (square >= 0)
+            {
+
+                ChessPiece piece = boardSquares[square / 8][square % 8];
+                ChessPiece.PieceType type = piece.pieceType();
+                if (piece.teamColor() == color && (type == ChessPiece.PieceType.ROOK || type == ChessPiece.PieceType.QUEEN)
+                        && type.getValue() < bestValue)
+                {
+
+                    bestSquare = square;
+                    bestValue = type.getValue();
+                }
+            }
+        }
+
+        if (bestSquare < 0)
+        {
+
+            for (int rowStep = -1; rowStep <= 1; rowStep++)
+            {
+
+                for (int colStep = -1; colStep <= 1; colStep++)
+                {
+
+                    if ((rowStep != 0 || colStep != 0)
+                            && isAttackerAt(row + rowStep, col + colStep, color, ChessPiece.PieceType.KING, removed))
+                    {
+
+                        return (row + rowStep) * 8 + col + colStep;
+                    }
+                }
+            }
+        }
+        return bestSquare;
+    }
+
+    // Method to check whether a 0-based square holds a given piece that is not in the removed mask
+    private boolean isAttackerAt(int row, int col, ChessGame.TeamColor color, ChessPiece.PieceType type, long removed)
+    {
+
+        if (row < 0 || row > 7 || col < 0 || col > 7 || (removed & (1L << (row * 8 + col))) != 0)
+        {
+
+            return false;
+        }
+        ChessPiece piece = boardSquares[row][col];
+        return piece != null && piece.teamColor() == color && piece.pieceType() == type;
+    }
+
+    // Method to find the first occupied square index from a square along a direction, or -1 if none
+    private int firstPieceInDirection(int row, int col, int[] direction, long removed)
+    {
+
+        int currentRow = row + direction[0];
+        int currentCol = col + direction[1];
+        while (currentRow >= 0 && currentRow <= 7 && currentCol >= 0 && currentCol <= 7)
+        {
+
+            int square = currentRow * 8 + currentCol;
+            if (boardSquares[currentRow][currentCol] != null && (removed & (1L << square)) == 0)
+            {
+
+                return square;
+            }
+            currentRow += direction[0];
+            currentCol += direction[1];
+        }
+        return -1;
+    }
+
+    // Method to get the opposing team color
+    private static ChessGame.TeamColor opponentOf(ChessGame.TeamColor color)
+    {
+
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
     }
 
     @Override
@@ -109,14 +384,15 @@ public class ChessBoard implements Cloneable
             return false;
         }
         ChessBoard otherBoard = (ChessBoard) obj;
-        return Arrays.deepEquals(boardSquares, otherBoard.boardSquares);
+        // Byte array equality and hashing are JIT intrinsics that compare and hash whole vectors at a time
+        return Arrays.equals(squareCodes(), otherBoard.squareCodes());
     }
 
     @Override
     public int hashCode()
     {
 
-        return Arrays.deepHashCode(boardSquares);
+        return Arrays.hashCode(squareCodes());
     }
 
     @Override
@@ -142,6 +418,11 @@ public class ChessBoard implements Cloneable
                     }
                 }
             }
+            if (squareCodes != null)
+            {
+
+                clonedBoard.squareCodes = squareCodes.clone();
+            }
             return clonedBoard;
         }
         catch (CloneNotSupportedException e)
@@ -151,6 +432,143 @@ public class ChessBoard implements Cloneable
         }
     }
 
+    /**
+     * Describes the pieces in the placement field of Forsyth-Edwards Notation, ranks 8 to 1
+     * separated by '/', with white pieces in upper case and runs of empty squares as digits
+     *
+     * @return the placement, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR" for a reset board
+     */
+    public String toPlacement()
+    {
+
+        StringBuilder placement = new StringBuilder(71);
+        for (int row = 7; row >= 0; row--)
+        {
+
+            int emptySquares = 0;
+            for (int col = 0; col < 8; col++)
+            {
+
+                ChessPiece piece = boardSquares[row][col];
+                if (piece == null)
+                {
+
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0)
+                {
+
+                    placement.append((char) ('0' + emptySquares));
+                    emptySquares = 0;
+                }
+                char letter = letterOf(piece.pieceType());
+                placement.append((piece.teamColor() == ChessGame.TeamColor.WHITE) ? letter : Character.toLowerCase(letter));
+            }
+            if (emptySquares > 0)
+            {
+
+                placement.append((char) ('0' + emptySquares));
+            }
+            if (row > 0)
+            {
+
+                placement.append('/');
+            }
+        }
+        return placement.toString();
+    }
+
+    /**
+     * Builds a board from a placement written by toPlacement
+     *
+     * @param placement the FEN placement field
+     * @return the board
+     * @throws IllegalArgumentException if the placement does not describe 8 ranks of 8 squares
+     */
+    public static ChessBoard fromPlacement(String placement)
+    {
+
+        ChessBoard board = new ChessBoard();
+        int row = 7;
+        int col = 0;
+        for (int i = 0; i < placement.length(); i++)
+        {
+
+            char symbol = placement.charAt(i);
+            if (symbol == '/')
+            {
+
+                if (col != 8 || row == 0)
+                {
+
+                    throw new IllegalArgumentException("Bad placement: " + placement);
+                }
+                row--;
+                col = 0;
+            }
+            else if (symbol >= '1' && symbol <= '8')
+            {
+
+                col += symbol - '0';
+            }
+            else if (col < 8)
+            {
+
+                ChessGame.TeamColor color = Character.isUpperCase(symbol) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                ChessPiece.PieceType type = typeOf(Character.toUpperCase(symbol));
+                board.setSquare(row, col++, PIECES[color.ordinal() * 6 + type.ordinal()]);
+            }
+            else
+            {
+
+                throw new IllegalArgumentException("Bad placement: " + placement);
+            }
+            if (col > 8)
+            {
+
+                throw new IllegalArgumentException("Bad placement: " + placement);
+            }
+        }
+        if (row != 0 || col != 8)
+        {
+
+            throw new IllegalArgumentException("Bad placement: " + placement);
+        }
+        return board;
+    }
+
+    // Method to get the upper case placement letter of a piece type
+    private static char letterOf(ChessPiece.PieceType type)
+    {
+
+        return switch (type)
+        {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    // Method to get the piece type of an upper case placement letter
+    private static ChessPiece.PieceType typeOf(char letter)
+    {
+
+        return switch (letter)
+        {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'P' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Bad piece letter: " + letter);
+        };
+    }
+
     @Override
     public String toString()
     {
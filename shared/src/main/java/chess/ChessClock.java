@@ -0,0 +1,165 @@
+package chess;
+
+/**
+ * Chess clock for both players with optional increment and delay.
+ * <p>
+ * Only the side to move has a running clock. With a delay, the first delayMillis of
+ * each turn are free; with an increment, incrementMillis is added after each move
+ * made in time. Times are passed in so the same clock works with live, replayed or
+ * simulated time; live callers pass currentMillis(), which is monotonic.
+ */
+public class ChessClock
+{
+
+    // Moves a player is assumed to still need when budgeting time per move
+    private static final int EXPECTED_MOVES_LEFT = 30;
+
+    // Epoch time when this class loaded, and System.nanoTime at that moment
+    private static final long START_EPOCH_MILLIS = System.currentTimeMillis();
+    private static final long START_NANOS = System.nanoTime();
+
+    private long whiteRemainingMillis;
+    private long blackRemainingMillis;
+    private final long incrementMillis;
+    private final long delayMillis;
+
+    // Side whose clock is running, or null while stopped
+    private ChessGame.TeamColor running;
+    private long turnStartedAt;
+
+    // Constructor to give both players the same starting time
+    public ChessClock(long initialMillis, long incrementMillis, long delayMillis)
+    {
+        this.whiteRemainingMillis = initialMillis;
+        this.blackRemainingMillis = initialMillis;
+        this.incrementMillis = incrementMillis;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Gets the time to pass to a live clock: epoch milliseconds when this class loaded,
+     * advanced by System.nanoTime. A wall-clock step, e.g. an NTP correction, can neither
+     * flag a player nor hand them time, while a saved turn start still names about the
+     * same moment after a restart.
+     *
+     * @return current time in milliseconds
+     */
+    public static long currentMillis()
+    {
+        return START_EPOCH_MILLIS + (System.nanoTime() - START_NANOS) / 1_000_000;
+    }
+
+    // Method to create an independent copy of the clock in its current state
+    public synchronized ChessClock copy()
+    {
+        ChessClock copiedClock = new ChessClock(0, incrementMillis, delayMillis);
+        copiedClock.whiteRemainingMillis = whiteRemainingMillis;
+        copiedClock.blackRemainingMillis = blackRemainingMillis;
+        copiedClock.running = running;
+        copiedClock.turnStartedAt = turnStartedAt;
+        return copiedClock;
+    }
+
+    // Method to start the clock of the side to move
+    public synchronized void start(ChessGame.TeamColor sideToMove, long nowMillis)
+    {
+        running = sideToMove;
+        turnStartedAt = nowMillis;
+    }
+
+    // Method to stop both clocks, e.g. when the game ends
+    public synchronized void stop(long nowMillis)
+    {
+        if (running != null)
+        {
+            setRemaining(running, getRemainingMillis(running, nowMillis));
+            running = null;
+        }
+    }
+
+    /**
+     * Ends the mover's turn and starts the opponent's clock
+     *
+     * @param mover     side that just moved
+     * @param nowMillis time of the move
+     * @return false if the mover had already run out of time
+     */
+    public synchronized boolean punch(ChessGame.TeamColor mover, long nowMillis)
+    {
+        long remaining = getRemainingMillis(mover, nowMillis);
+        boolean inTime = remaining > 0;
+        setRemaining(mover, inTime ? remaining + incrementMillis : 0);
+        running = (mover == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        turnStartedAt = nowMillis;
+        return inTime;
+    }
+
+    // Method to get a player's time left, counting the current turn if their clock is running
+    public synchronized long getRemainingMillis(ChessGame.TeamColor color, long nowMillis)
+    {
+        long remaining = (color == ChessGame.TeamColor.WHITE) ? whiteRemainingMillis : blackRemainingMillis;
+        if (color == running)
+        {
+            remaining -= Math.max(0, nowMillis - turnStartedAt - delayMillis);
+        }
+        return Math.max(0, remaining);
+    }
+
+    // Method to check whether a player has run out of time
+    public boolean hasFlagged(ChessGame.TeamColor color, long nowMillis)
+    {
+        return getRemainingMillis(color, nowMillis) <= 0;
+    }
+
+    // Method to get how long until the running side runs out of time, or -1 if stopped
+    public synchronized long millisUntilFlag(long nowMillis)
+    {
+        if (running == null)
+        {
+            return -1;
+        }
+        return getRemainingMillis(running, nowMillis) + Math.max(0, turnStartedAt + delayMillis - nowMillis);
+    }
+
+    /**
+     * Budgets thinking time for a player's next move, e.g. for a bot
+     *
+     * @param color     player about to move
+     * @param nowMillis current time
+     * @return milliseconds the player can spend without endangering later moves
+     */
+    public long allocateMoveTime(ChessGame.TeamColor color, long nowMillis)
+    {
+        long remaining = getRemainingMillis(color, nowMillis);
+        long budget = remaining / EXPECTED_MOVES_LEFT + incrementMillis * 3 / 4 + delayMillis;
+        return Math.max(1, Math.min(budget, remaining / 2));
+    }
+
+    // Method to get which side's clock is running, or null while stopped
+    public synchronized ChessGame.TeamColor getRunningSide()
+    {
+        return running;
+    }
+
+    public long getIncrementMillis()
+    {
+        return incrementMillis;
+    }
+
+    public long getDelayMillis()
+    {
+        return delayMillis;
+    }
+
+    private void setRemaining(ChessGame.TeamColor color, long millis)
+    {
+        if (color == ChessGame.TeamColor.WHITE)
+        {
+            whiteRemainingMillis = millis;
+        }
+        else
+        {
+            blackRemainingMillis = millis;
+        }
+    }
+}
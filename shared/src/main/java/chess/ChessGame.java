@@ -2,6 +2,9 @@ package chess;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -26,6 +29,21 @@ public class ChessGame
     // Chessboard for the game
     private ChessBoard board;
 
+    // Clock for timed games, or null for untimed games
+    private ChessClock clock;
+
+    // Moves made through makeMove since the position was last set, packed with ChessMove.encode; not serialized,
+    // so stored and sent games stay the same size however long they get
+    private transient List<Integer> moveHistory = new ArrayList<>();
+
+    // Id of the current move history, changed whenever the position is set directly
+    private transient long historyId = ThreadLocalRandom.current().nextLong();
+
+    // Destination masks of both sides, valid while board is legalMoveMasksBoard at modification count legalMoveMasksModCount
+    private transient long[] legalMoveMasks;
+    private transient ChessBoard legalMoveMasksBoard;
+    private transient int legalMoveMasksModCount;
+
     // Constructor to initialize a new chess game
     public ChessGame()
     {
@@ -34,6 +52,13 @@ public class ChessGame
         board.resetBoard(); // Set up the board with initial positions
     }
 
+    // Constructor to rebuild a saved game, e.g. in ChessJson, without setting up a board first
+    ChessGame(TeamColor currentTurn, ChessBoard board)
+    {
+        this.currentTurn = currentTurn;
+        this.board = board;
+    }
+
     // Method to get the current team's turn
     public TeamColor getTeamTurn()
     {
@@ -44,6 +69,7 @@ public class ChessGame
     public void setTeamTurn(TeamColor team)
     {
         this.currentTurn = team;
+        resetHistory();
     }
 
     /**
@@ -62,22 +88,77 @@ public class ChessGame
             return null;
         }
 
-        Collection<ChessMove> validMoves = new ArrayList<>();
-        Collection<ChessMove> possibleMoves = currentPiece.pieceMoves(board, startPosition);
+        return legalMoves(startPosition, currentPiece, new LegalMoveFilter(board, currentPiece.teamColor()));
+    }
 
-        for (ChessMove move : possibleMoves)
+    // Method to keep the pseudo-legal moves of a piece that the position's check and pin masks allow
+    private Collection<ChessMove> legalMoves(ChessPosition startPosition, ChessPiece piece, LegalMoveFilter filter)
+    {
+        Collection<ChessMove> validMoves = new ArrayList<>();
+        for (ChessMove move : piece.pieceMoves(board, startPosition))
         {
-            ChessBoard tempBoard = board.clone();
-            testMove(move);
-            if (!isInCheck(currentPiece.teamColor()))
+            if (filter.allows(move))
             {
                 validMoves.add(move);
             }
-            board = tempBoard;
         }
         return validMoves;
     }
 
+    // Method to get every valid move for all pieces of a team
+    public List<ChessMove> teamValidMoves(TeamColor teamColor)
+    {
+        List<ChessMove> teamMoves = new ArrayList<>();
+        LegalMoveFilter filter = new LegalMoveFilter(board, teamColor);
+        for (ChessPosition pos : getTeamPositions(teamColor))
+        {
+            teamMoves.addAll(legalMoves(pos, board.getPiece(pos), filter));
+        }
+        return teamMoves;
+    }
+
+    /**
+     * Gets the legal destinations of every piece on the board as bitmasks, built once
+     * per position and cached until a square of the board is written, whether by
+     * makeMove, testMove, setBoard or directly through getBoard(); checking the cache
+     * costs two comparisons
+     *
+     * @return 64 masks indexed by from-square, as in ChessPosition.getIndex; bit n of a
+     * mask is set if the piece on that square can legally move to square n
+     */
+    public long[] getLegalMoveMasks()
+    {
+        return legalMoveMasks().clone();
+    }
+
+    // Method to get the legal destinations of the piece on a square as a bitmask, 0 if the square is empty
+    public long getLegalDestinations(ChessPosition startPosition)
+    {
+        return legalMoveMasks()[startPosition.getIndex()];
+    }
+
+    // Method to get the cached masks, rebuilding them if the board changed since they were built
+    private long[] legalMoveMasks()
+    {
+        // Masks cover both sides, so a change of turn alone leaves them valid
+        if (legalMoveMasks != null && legalMoveMasksBoard == board && legalMoveMasksModCount == board.getModCount())
+        {
+            return legalMoveMasks;
+        }
+        long[] masks = new long[64];
+        for (TeamColor color : TeamColor.values())
+        {
+            for (ChessMove move : teamValidMoves(color))
+            {
+                masks[move.getStartPosition().getIndex()] |= 1L << move.getEndPosition().getIndex();
+            }
+        }
+        legalMoveMasks = masks;
+        legalMoveMasksBoard = board;
+        legalMoveMasksModCount = board.getModCount();
+        return masks;
+    }
+
     // Method to test a move
     public void testMove(ChessMove move)
     {
@@ -117,11 +198,17 @@ public class ChessGame
             throw new InvalidMoveException("Not your turn!");
         }
 
-        if (!validMoves(move.getStartPosition()).contains(move))
+        if (!isLegal(move))
         {
             throw new InvalidMoveException("Invalid move.");
         }
 
+        long now = ChessClock.currentMillis();
+        if (clock != null && clock.hasFlagged(piece.teamColor(), now))
+        {
+            throw new InvalidMoveException("Out of time.");
+        }
+
         if (move.getPromotionPiece() == null)
         {
             board.addPiece(move.getEndPosition(), piece);
@@ -132,9 +219,150 @@ public class ChessGame
         }
         board.addPiece(move.getStartPosition(), null);
 
+        if (clock != null)
+        {
+            clock.punch(piece.teamColor(), now);
+        }
+        if (moveHistory == null)
+        {
+            moveHistory = new ArrayList<>(); // Games saved before histories were kept
+        }
+        moveHistory.add(move.encode());
         switchTurn();
     }
 
+    /**
+     * Checks a single move without generating the piece's other moves: the move must
+     * fit the piece's movement pattern, and after playing it on the board the mover's
+     * king must not be attacked. The board is restored before returning, but it holds
+     * the half-made move meanwhile: a game shared between threads must be locked on its
+     * monitor around this call, as around makeMove, and read under that same lock.
+     *
+     * @param move move to check, for the piece on its start square whatever the turn
+     * @return true if the move is legal
+     */
+    public boolean isLegal(ChessMove move)
+    {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (!isValidPosition(start) || !isValidPosition(end))
+        {
+            return false;
+        }
+        ChessPiece piece = board.getPiece(start);
+        if (piece == null || !isPseudoLegal(piece, move))
+        {
+            return false;
+        }
+
+        ChessPiece captured = board.getPiece(end);
+        ChessPiece placed = (move.getPromotionPiece() == null) ? piece : new ChessPiece(piece.teamColor(), move.getPromotionPiece());
+        board.addPiece(end, placed);
+        board.addPiece(start, null);
+        ChessPosition kingPosition = (piece.pieceType() == ChessPiece.PieceType.KING) ? end : findKing(piece.teamColor());
+        TeamColor opponentColor = (piece.teamColor() == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+        boolean legal = kingPosition == null || !board.isAttacked(kingPosition, opponentColor);
+        board.addPiece(start, piece);
+        board.addPiece(end, captured);
+        return legal;
+    }
+
+    // Method to check a move against the piece's movement pattern, ignoring checks
+    private boolean isPseudoLegal(ChessPiece piece, ChessMove move)
+    {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece target = board.getPiece(end);
+        if (target != null && target.teamColor() == piece.teamColor())
+        {
+            return false;
+        }
+        int rowStep = end.getRow() - start.getRow();
+        int colStep = end.getColumn() - start.getColumn();
+        if (rowStep == 0 && colStep == 0)
+        {
+            return false;
+        }
+
+        if (piece.pieceType() == ChessPiece.PieceType.PAWN)
+        {
+            return isPseudoLegalPawnMove(piece.teamColor(), move, target, rowStep, colStep);
+        }
+        if (move.getPromotionPiece() != null)
+        {
+            return false;
+        }
+        switch (piece.pieceType())
+        {
+            case KNIGHT:
+                return Math.abs(rowStep * colStep) == 2;
+            case KING:
+                return Math.abs(rowStep) <= 1 && Math.abs(colStep) <= 1;
+            case BISHOP:
+                return Math.abs(rowStep) == Math.abs(colStep) && isPathClear(start, end);
+            case ROOK:
+                return (rowStep == 0 || colStep == 0) && isPathClear(start, end);
+            case QUEEN:
+                return (rowStep == 0 || colStep == 0 || Math.abs(rowStep) == Math.abs(colStep)) && isPathClear(start, end);
+            default:
+                return false;
+        }
+    }
+
+    // Method to check pawn pushes, double pushes from the start row, captures and promotions
+    private boolean isPseudoLegalPawnMove(TeamColor color, ChessMove move, ChessPiece target, int rowStep, int colStep)
+    {
+        int forward = (color == TeamColor.WHITE) ? 1 : -1;
+        int startRow = (color == TeamColor.WHITE) ? 2 : 7;
+        int lastRow = (color == TeamColor.WHITE) ? 8 : 1;
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        if (move.getEndPosition().getRow() == lastRow)
+        {
+            if (promotion == null || promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN)
+            {
+                return false;
+            }
+        }
+        else if (promotion != null)
+        {
+            return false;
+        }
+
+        if (colStep == 0)
+        {
+            if (target != null)
+            {
+                return false;
+            }
+            if (rowStep == forward)
+            {
+                return true;
+            }
+            return rowStep == 2 * forward && move.getStartPosition().getRow() == startRow
+                    && board.getPiece(new ChessPosition(startRow + forward, move.getStartPosition().getColumn())) == null;
+        }
+        return Math.abs(colStep) == 1 && rowStep == forward && target != null;
+    }
+
+    // Method to check that every square strictly between two squares on a line is empty
+    private boolean isPathClear(ChessPosition start, ChessPosition end)
+    {
+        int rowDirection = Integer.signum(end.getRow() - start.getRow());
+        int colDirection = Integer.signum(end.getColumn() - start.getColumn());
+        int row = start.getRow() + rowDirection;
+        int col = start.getColumn() + colDirection;
+        while (row != end.getRow() || col != end.getColumn())
+        {
+            if (board.getPiece(new ChessPosition(row, col)) != null)
+            {
+                return false;
+            }
+            row += rowDirection;
+            col += colDirection;
+        }
+        return true;
+    }
+
     // Method to check if a position is valid
     private boolean isValidPosition(ChessPosition position)
     {
@@ -146,14 +374,7 @@ public class ChessGame
     // Method to switch turns
     private void switchTurn()
     {
-        if (currentTurn == TeamColor.WHITE)
-        {
-            setTeamTurn(TeamColor.BLACK);
-        }
-        else
-        {
-            setTeamTurn(TeamColor.WHITE);
-        }
+        currentTurn = (currentTurn == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
     }
 
     /**
@@ -262,7 +483,8 @@ public class ChessGame
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
-        throw new RuntimeException("Not implemented");
+        this.board = board;
+        resetHistory();
     }
 
     /**
@@ -271,6 +493,101 @@ public class ChessGame
      * @return the chessboard
      */
     public ChessBoard getBoard() {
-        throw new RuntimeException("Not implemented");
+        return board;
+    }
+
+    // Method to get the game's clock, or null if the game is untimed
+    public ChessClock getClock()
+    {
+        return clock;
+    }
+
+    // Method to make the game timed; the clock is punched on every move made through makeMove
+    public void setClock(ChessClock clock)
+    {
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the moves made through makeMove since the game started or its position was
+     * last set with setBoard or setTeamTurn, oldest first
+     *
+     * @return the moves packed with ChessMove.encode, as an unmodifiable view
+     */
+    public List<Integer> getMoveHistory()
+    {
+        return (moveHistory == null) ? List.of() : Collections.unmodifiableList(moveHistory);
+    }
+
+    /**
+     * Gets an id for the current move history. It changes whenever the position is set
+     * directly, so two snapshots of a game with the same id and history lengths m and n,
+     * m &lt;= n, differ exactly by the moves m to n of the longer history
+     *
+     * @return the history id
+     */
+    public long getHistoryId()
+    {
+        return historyId;
+    }
+
+    /**
+     * Replaces the move history, e.g. after a game was rebuilt from a stored move log
+     *
+     * @param moveHistory moves packed with ChessMove.encode, oldest first
+     * @param historyId   id the history had when it was stored
+     */
+    public void restoreHistory(List<Integer> moveHistory, long historyId)
+    {
+        this.moveHistory = new ArrayList<>(moveHistory);
+        this.historyId = historyId;
+    }
+
+    // Method to start a new, empty move history after the position was replaced; cheap, searches call it per node
+    private void resetHistory()
+    {
+        if (moveHistory == null || !moveHistory.isEmpty())
+        {
+            moveHistory = new ArrayList<>();
+        }
+        historyId++;
+    }
+
+    // Method to get the 64-bit Zobrist hash of the current position and side to move
+    public long getPositionHash()
+    {
+        return ZobristHash.hash(board, currentTurn);
+    }
+
+    /**
+     * Describes the position in Forsyth-Edwards Notation. This game has no castling
+     * or en passant, so those fields are always "-"
+     *
+     * @param fullMoveNumber move number to write, starting at 1
+     * @return the FEN string
+     */
+    public String toFen(int fullMoveNumber)
+    {
+        StringBuilder fen = new StringBuilder(board.toPlacement());
+        fen.append((currentTurn == TeamColor.WHITE) ? " w" : " b").append(" - - 0 ").append(fullMoveNumber);
+        return fen.toString();
+    }
+
+    // Method to create an independent copy of the game, e.g. for searching on another thread
+    public ChessGame copy()
+    {
+        ChessGame copiedGame = new ChessGame();
+        copiedGame.setBoard(board.clone());
+        copiedGame.setTeamTurn(currentTurn);
+        return copiedGame;
+    }
+
+    // Method to copy the game with its clock and move history, e.g. to save it while play goes on
+    public ChessGame fullCopy()
+    {
+        ChessGame copiedGame = new ChessGame(currentTurn, board.clone());
+        copiedGame.clock = (clock == null) ? null : clock.copy();
+        copiedGame.restoreHistory(getMoveHistory(), historyId);
+        return copiedGame;
     }
 }
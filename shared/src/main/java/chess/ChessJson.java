@@ -0,0 +1,338 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson type adapters for the chess types that are serialized on every request and every save.
+ * <p>
+ * Gson's default adapters find fields by reflection and write the board as 64 nested
+ * array entries; these adapters read and write the JSON stream directly. Positions, moves
+ * and pieces keep the JSON shape reflection gives them, so clients see no change. The
+ * board is written as its FEN placement string, e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR",
+ * and the old {"boardSquares": [[...]]} form is still read, so games saved before keep
+ * loading. The clock is rare and still goes through Gson's reflective adapter. The move
+ * history is not written, as with reflection, since ChessGame keeps it transient.
+ */
+public final class ChessJson
+{
+
+    private static final Gson GSON = register(new GsonBuilder()).create();
+
+    private ChessJson()
+    {
+    }
+
+    // Method to get a shared Gson with the chess adapters; Gson instances are thread safe
+    public static Gson gson()
+    {
+        return GSON;
+    }
+
+    // Method to add the chess adapters to a builder, for callers that need other settings too
+    public static GsonBuilder register(GsonBuilder builder)
+    {
+        return builder.registerTypeAdapterFactory(new Factory());
+    }
+
+    private static final class Factory implements TypeAdapterFactory
+    {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+        {
+            Class<?> rawType = type.getRawType();
+            if (rawType == ChessPosition.class)
+            {
+                return (TypeAdapter<T>) new PositionAdapter().nullSafe();
+            }
+            if (rawType == ChessPiece.class)
+            {
+                return (TypeAdapter<T>) new PieceAdapter().nullSafe();
+            }
+            if (rawType == ChessMove.class)
+            {
+                return (TypeAdapter<T>) new MoveAdapter().nullSafe();
+            }
+            if (rawType == ChessBoard.class)
+            {
+                return (TypeAdapter<T>) new BoardAdapter().nullSafe();
+            }
+            if (rawType == ChessGame.class)
+            {
+                return (TypeAdapter<T>) new GameAdapter(gson.getAdapter(ChessClock.class)).nullSafe();
+            }
+            return null;
+        }
+    }
+
+    private static final class PositionAdapter extends TypeAdapter<ChessPosition>
+    {
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException
+        {
+            out.beginObject();
+            out.name("rank").value(position.getRow());
+            out.name("file").value(position.getColumn());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException
+        {
+            int rank = 0;
+            int file = 0;
+            in.beginObject();
+            while (in.hasNext())
+            {
+                switch (in.nextName())
+                {
+                    case "rank" -> rank = in.nextInt();
+                    case "file" -> file = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessPosition(rank, file);
+        }
+    }
+
+    private static final class PieceAdapter extends TypeAdapter<ChessPiece>
+    {
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException
+        {
+            out.beginObject();
+            out.name("teamColor").value(piece.teamColor().name());
+            out.name("pieceType").value(piece.pieceType().name());
+            out.endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException
+        {
+            ChessGame.TeamColor teamColor = null;
+            ChessPiece.PieceType pieceType = null;
+            in.beginObject();
+            while (in.hasNext())
+            {
+                switch (in.nextName())
+                {
+                    case "teamColor" -> teamColor = readEnum(in, ChessGame.TeamColor.class);
+                    case "pieceType" -> pieceType = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (teamColor == null || pieceType == null)
+            {
+                throw new JsonParseException("Piece needs both a teamColor and a pieceType");
+            }
+            return new ChessPiece(teamColor, pieceType);
+        }
+    }
+
+    private static final class MoveAdapter extends TypeAdapter<ChessMove>
+    {
+        private final PositionAdapter positionAdapter = new PositionAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessMove move) throws IOException
+        {
+            out.beginObject();
+            if (move.getStartPosition() != null)
+            {
+                out.name("initialPosition");
+                positionAdapter.write(out, move.getStartPosition());
+            }
+            if (move.getEndPosition() != null)
+            {
+                out.name("finalPosition");
+                positionAdapter.write(out, move.getEndPosition());
+            }
+            if (move.getPromotionPiece() != null)
+            {
+                out.name("promotedPiece").value(move.getPromotionPiece().name());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessMove read(JsonReader in) throws IOException
+        {
+            ChessPosition initialPosition = null;
+            ChessPosition finalPosition = null;
+            ChessPiece.PieceType promotedPiece = null;
+            in.beginObject();
+            while (in.hasNext())
+            {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL)
+                {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name)
+                {
+                    case "initialPosition" -> initialPosition = positionAdapter.read(in);
+                    case "finalPosition" -> finalPosition = positionAdapter.read(in);
+                    case "promotedPiece" -> promotedPiece = readEnum(in, ChessPiece.PieceType.class);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return new ChessMove(initialPosition, finalPosition, promotedPiece);
+        }
+    }
+
+    private static final class BoardAdapter extends TypeAdapter<ChessBoard>
+    {
+        private final PieceAdapter pieceAdapter = new PieceAdapter();
+
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException
+        {
+            out.value(board.toPlacement());
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException
+        {
+            if (in.peek() == JsonToken.STRING)
+            {
+                try
+                {
+                    return ChessBoard.fromPlacement(in.nextString());
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new JsonParseException(e.getMessage(), e);
+                }
+            }
+
+            // Boards saved before the placement form: {"boardSquares": [[rank 1], ..., [rank 8]]}
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while (in.hasNext())
+            {
+                if (!in.nextName().equals("boardSquares"))
+                {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                for (int rank = 1; in.hasNext(); rank++)
+                {
+                    if (rank > 8)
+                    {
+                        throw new JsonParseException("Board has more than 8 ranks");
+                    }
+                    in.beginArray();
+                    for (int file = 1; in.hasNext(); file++)
+                    {
+                        if (file > 8)
+                        {
+                            throw new JsonParseException("Rank " + rank + " has more than 8 files");
+                        }
+                        if (in.peek() == JsonToken.NULL)
+                        {
+                            in.nextNull();
+                        }
+                        else
+                        {
+                            board.addPiece(new ChessPosition(rank, file), pieceAdapter.read(in));
+                        }
+                    }
+                    in.endArray();
+                }
+                in.endArray();
+            }
+            in.endObject();
+            return board;
+        }
+    }
+
+    private static final class GameAdapter extends TypeAdapter<ChessGame>
+    {
+        private final BoardAdapter boardAdapter = new BoardAdapter();
+        private final TypeAdapter<ChessClock> clockAdapter;
+
+        GameAdapter(TypeAdapter<ChessClock> clockAdapter)
+        {
+            this.clockAdapter = clockAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException
+        {
+            out.beginObject();
+            out.name("currentTurn").value(game.getTeamTurn().name());
+            out.name("board");
+            boardAdapter.write(out, game.getBoard());
+            if (game.getClock() != null)
+            {
+                out.name("clock");
+                clockAdapter.write(out, game.getClock());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException
+        {
+            ChessGame.TeamColor currentTurn = ChessGame.TeamColor.WHITE;
+            ChessBoard board = null;
+            ChessClock clock = null;
+            in.beginObject();
+            while (in.hasNext())
+            {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL)
+                {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name)
+                {
+                    case "currentTurn" -> currentTurn = readEnum(in, ChessGame.TeamColor.class);
+                    case "board" -> board = boardAdapter.read(in);
+                    case "clock" -> clock = clockAdapter.read(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (board == null)
+            {
+                board = new ChessBoard();
+                board.resetBoard();
+            }
+            ChessGame game = new ChessGame(currentTurn, board);
+            game.setClock(clock);
+            return game;
+        }
+    }
+
+    // Method to read an enum constant by name, the way Gson writes enums
+    private static <E extends Enum<E>> E readEnum(JsonReader in, Class<E> enumType) throws IOException
+    {
+        String name = in.nextString();
+        try
+        {
+            return Enum.valueOf(enumType, name);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new JsonParseException("Unknown " + enumType.getSimpleName() + " " + name, e);
+        }
+    }
+}
@@ -57,6 +57,115 @@ public class ChessMove
         return promotedPiece;
     }
 
+    /**
+     * Packs the move into 15 bits using the Polyglot book layout: bits 0-2 end column,
+     * 3-5 end row, 6-8 start column, 9-11 start row (all 0-based), and 12-14 the
+     * promotion piece (0 none, 1 knight, 2 bishop, 3 rook, 4 queen)
+     *
+     * @return the encoded move
+     */
+    public int encode()
+    {
+
+        int promotionCode = (promotedPiece == null) ? 0 : switch (promotedPiece)
+        {
+            case KNIGHT -> 1;
+            case BISHOP -> 2;
+            case ROOK -> 3;
+            case QUEEN -> 4;
+            default -> 0;
+        };
+        return (finalPosition.getColumn() - 1)
+                | (finalPosition.getRow() - 1) << 3
+                | (initialPosition.getColumn() - 1) << 6
+                | (initialPosition.getRow() - 1) << 9
+                | promotionCode << 12;
+    }
+
+    // Method to rebuild a move packed with encode()
+    public static ChessMove decode(int code)
+    {
+
+        ChessPosition start = new ChessPosition(((code >> 9) & 7) + 1, ((code >> 6) & 7) + 1);
+        ChessPosition end = new ChessPosition(((code >> 3) & 7) + 1, (code & 7) + 1);
+        ChessPiece.PieceType promotion = switch ((code >> 12) & 7)
+        {
+            case 1 -> ChessPiece.PieceType.KNIGHT;
+            case 2 -> ChessPiece.PieceType.BISHOP;
+            case 3 -> ChessPiece.PieceType.ROOK;
+            case 4 -> ChessPiece.PieceType.QUEEN;
+            default -> null;
+        };
+        return new ChessMove(start, end, promotion);
+    }
+
+    // Method to write the move in coordinate notation, e.g. "e2e4" or "a7a8q"
+    public String toNotation()
+    {
+
+        String notation = squareName(initialPosition) + squareName(finalPosition);
+        if (promotedPiece != null)
+        {
+
+            notation += Character.toLowerCase(promotedPiece == ChessPiece.PieceType.KNIGHT ? 'n' : promotedPiece.name().charAt(0));
+        }
+        return notation;
+    }
+
+    /**
+     * Reads a move written in coordinate notation
+     *
+     * @param notation move such as "e2e4" or "a7a8q"
+     * @return the move
+     * @throws IllegalArgumentException if the text is not a move
+     */
+    public static ChessMove fromNotation(String notation)
+    {
+
+        if (notation.length() != 4 && notation.length() != 5)
+        {
+
+            throw new IllegalArgumentException("Not a move: " + notation);
+        }
+        ChessPosition start = parseSquare(notation, 0);
+        ChessPosition end = parseSquare(notation, 2);
+        ChessPiece.PieceType promotion = null;
+        if (notation.length() == 5)
+        {
+
+            promotion = switch (notation.charAt(4))
+            {
+                case 'q' -> ChessPiece.PieceType.QUEEN;
+                case 'r' -> ChessPiece.PieceType.ROOK;
+                case 'b' -> ChessPiece.PieceType.BISHOP;
+                case 'n' -> ChessPiece.PieceType.KNIGHT;
+                default -> throw new IllegalArgumentException("Not a move: " + notation);
+            };
+        }
+        return new ChessMove(start, end, promotion);
+    }
+
+    // Method to name a square, e.g. "e4"
+    private static String squareName(ChessPosition position)
+    {
+
+        return "" + (char) ('a' + position.getColumn() - 1) + position.getRow();
+    }
+
+    // Method to read a square name starting at an offset of the text
+    private static ChessPosition parseSquare(String notation, int offset)
+    {
+
+        int col = notation.charAt(offset) - 'a' + 1;
+        int row = notation.charAt(offset + 1) - '0';
+        if (col < 1 || col > 8 || row < 1 || row > 8)
+        {
+
+            throw new IllegalArgumentException("Not a move: " + notation);
+        }
+        return new ChessPosition(row, col);
+    }
+
     @Override
     public boolean equals(Object obj)
     {
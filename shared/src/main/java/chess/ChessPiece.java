@@ -22,12 +22,32 @@ public record ChessPiece(ChessGame.TeamColor teamColor, chess.ChessPiece.PieceTy
     // Enum to represent piece types
     public enum PieceType {
 
-        PAWN,
-        KNIGHT,
-        BISHOP,
-        ROOK,
-        QUEEN,
-        KING
+        PAWN(100),
+        KNIGHT(320),
+        BISHOP(330),
+        ROOK(500),
+        QUEEN(900),
+        KING(20000);
+
+        // Material value in centipawns, used for move ordering and exchange evaluation
+        private final int value;
+
+        PieceType(int value) {
+
+            this.value = value;
+        }
+
+        // Method to get the material value of the piece type
+        public int getValue() {
+
+            return value;
+        }
+    }
+
+    // Method to get the index of this piece (0-11) for per-piece lookup tables
+    public int getIndex() {
+
+        return teamColor.ordinal() * 6 + pieceType.ordinal();
     }
 
     // Method to get possible moves for the piece
@@ -47,6 +47,13 @@ public class ChessPosition
         return file;
     }
 
+    // Method to get the 0-63 square index of this position (a1 = 0, h8 = 63)
+    public int getIndex()
+    {
+
+        return (rank - 1) * 8 + (file - 1);
+    }
+
     @Override
     public String toString()
     {
@@ -0,0 +1,544 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Iterative deepening alpha-beta search over a ChessGame.
+ * <p>
+ * The search works on its own copy of the game, so the caller's game is never
+ * modified. One instance keeps its killer and history tables between searches and
+ * must only be used by one thread at a time. Each search on an instance takes the next
+ * search id, and stops can be aimed at an id, so a stop sent just before a search starts
+ * still stops it, and a stop meant for an earlier search never stops a later one.
+ */
+public class ChessSearch
+{
+
+    // Score of being checkmated at the root, shorter mates score higher
+    public static final int MATE_SCORE = 100_000;
+
+    // Scores at least this far from zero are forced mates
+    public static final int MATE_THRESHOLD = MATE_SCORE - 1000;
+
+    private static final int INFINITY = 1_000_000;
+
+    // How many nodes are searched between clock checks
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final MoveOrdering moveOrdering = new MoveOrdering();
+
+    // Triangular principal variation table, row ply holds the best line from that ply
+    private final ChessMove[][] pvTable = new ChessMove[MoveOrdering.MAX_PLY][MoveOrdering.MAX_PLY];
+    private final int[] pvLength = new int[MoveOrdering.MAX_PLY];
+
+    // Optional endgame tables probed instead of searching small positions
+    private Tablebases tablebases;
+
+    // Optional table shared with other searches, e.g. across the positions of one game
+    private TranspositionTable transpositionTable;
+
+    // Leaf evaluation, kept up to date by makeMove and unmakeMove
+    private Evaluator evaluator = new HandcraftedEvaluator();
+
+    private ChessGame game;
+    private long hash;
+    private long deadline;
+    private boolean canStop;
+    private boolean stopped;
+    private BooleanSupplier stopCondition;
+
+    // Id of the last search started, times two, plus one while it is running, so stop() reads both at once
+    private final AtomicLong searchState = new AtomicLong();
+
+    // Highest search id a stop has been aimed at; every search up to it stops
+    private final AtomicLong stopThroughId = new AtomicLong();
+    private long searchId;
+    private long nodes;
+
+    /**
+     * Searches the position for the best move
+     *
+     * @param rootGame        position to search, left unchanged
+     * @param maxDepth        deepest iteration to run
+     * @param timeLimitMillis wall time budget, or 0 for no limit
+     * @return result of the deepest completed iteration, or null if stopped before the first one finished
+     */
+    public SearchResult search(ChessGame rootGame, int maxDepth, long timeLimitMillis)
+    {
+        return search(rootGame, maxDepth, timeLimitMillis, () -> false);
+    }
+
+    /**
+     * Searches the position for the best move until the stop condition turns true
+     *
+     * @param rootGame        position to search, left unchanged
+     * @param maxDepth        deepest iteration to run
+     * @param timeLimitMillis wall time budget, or 0 for no limit
+     * @param stopCondition   polled every few nodes, e.g. whether the caller cancelled the search
+     * @return result of the deepest completed iteration, or null if stopped before the first one finished
+     */
+    public SearchResult search(ChessGame rootGame, int maxDepth, long timeLimitMillis, BooleanSupplier stopCondition)
+    {
+        List<SearchResult> lines = searchMultiPv(rootGame, 1, maxDepth, timeLimitMillis, stopCondition, null);
+        return lines.isEmpty() ? null : lines.get(0);
+    }
+
+    /**
+     * Searches the best few moves of a position, each with its own line and score
+     *
+     * @param rootGame        position to search, left unchanged
+     * @param lineCount       how many distinct first moves to report
+     * @param maxDepth        deepest iteration to run
+     * @param timeLimitMillis wall time budget, or 0 for no limit
+     * @param stopCondition   polled every few nodes, e.g. whether the caller cancelled the search
+     * @param onIteration     given the lines after every completed depth, or null
+     * @return lines of the deepest completed iteration, best first; empty if stopped before the first one finished
+     */
+    public List<SearchResult> searchMultiPv(ChessGame rootGame, int lineCount, int maxDepth, long timeLimitMillis,
+                                            BooleanSupplier stopCondition, Consumer<List<SearchResult>> onIteration)
+    {
+        searchId = searchState.updateAndGet(state -> (((state >> 1) + 1) << 1) | 1) >> 1;
+        try
+        {
+            return runSearch(rootGame, lineCount, maxDepth, timeLimitMillis, stopCondition, onIteration);
+        }
+        finally
+        {
+            searchState.updateAndGet(state -> state & ~1L);
+        }
+    }
+
+    // Method to run one search once it has its id
+    private List<SearchResult> runSearch(ChessGame rootGame, int lineCount, int maxDepth, long timeLimitMillis,
+                                         BooleanSupplier stopCondition, Consumer<List<SearchResult>> onIteration)
+    {
+        this.stopCondition = stopCondition;
+        game = rootGame.copy();
+        hash = game.getPositionHash();
+        evaluator.reset(game.getBoard());
+        deadline = (timeLimitMillis > 0) ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        canStop = false;
+        stopped = false;
+        nodes = 0;
+
+        List<ChessMove> rootMoves = game.teamValidMoves(game.getTeamTurn());
+        if (rootMoves.isEmpty())
+        {
+            int score = game.isInCheck(game.getTeamTurn()) ? -MATE_SCORE : 0;
+            return List.of(new SearchResult(null, score, 0, List.of(), 0));
+        }
+
+        List<SearchResult> completed = List.of();
+        int depthLimit = Math.min(maxDepth, MoveOrdering.MAX_PLY - 1);
+        for (int depth = 1; depth <= depthLimit; depth++)
+        {
+            // Checked here too, as a small tree can finish a depth between two clock checks
+            if (isStopRequested())
+            {
+                break;
+            }
+            List<SearchResult> lines = new ArrayList<>();
+            List<ChessMove> remainingMoves = new ArrayList<>(rootMoves);
+            while (lines.size() < lineCount && !remainingMoves.isEmpty())
+            {
+                // Each line searches the root moves the better lines did not already take
+                ChessMove preferred = (lines.size() < completed.size()) ? completed.get(lines.size()).bestMove() : null;
+                int score = searchRoot(remainingMoves, depth, preferred);
+                if (stopped)
+                {
+                    break;
+                }
+                lines.add(new SearchResult(pvTable[0][0], score, depth, principalVariation(), nodes));
+                remainingMoves.remove(pvTable[0][0]);
+            }
+            if (stopped)
+            {
+                break;
+            }
+            lines.sort(Comparator.comparingInt(SearchResult::score).reversed());
+            completed = List.copyOf(lines);
+            canStop = true; // Depth 1 always completes so there is a move to play
+            if (onIteration != null)
+            {
+                onIteration.accept(completed);
+            }
+            if (lineCount == 1 && completed.get(0).isMateScore())
+            {
+                break;
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Asks the search running now to return as soon as possible or, if none is running,
+     * the next search to start not to run at all; callable from any thread. Prefer
+     * stop(long) when the stop belongs to one search, as this also stops the next search
+     * if the running one has just finished.
+     */
+    public void stop()
+    {
+        long state = searchState.get();
+        stop(((state & 1) != 0) ? state >> 1 : (state >> 1) + 1);
+    }
+
+    /**
+     * Asks one search to return as soon as possible, whether it is running, finished or
+     * yet to start; callable from any thread
+     *
+     * @param searchId id of the search, e.g. from getNextSearchId() before starting it
+     */
+    public void stop(long searchId)
+    {
+        stopThroughId.accumulateAndGet(searchId, Math::max);
+    }
+
+    // Method to get the id the next search will take, for the thread about to start it to hand to whoever may stop it
+    public long getNextSearchId()
+    {
+        return (searchState.get() >> 1) + 1;
+    }
+
+    // Method to let the search score positions covered by endgame tables exactly
+    public void setTablebases(Tablebases tablebases)
+    {
+        this.tablebases = tablebases;
+    }
+
+    // Method to share a transposition table, e.g. between searches of related positions
+    public void setTranspositionTable(TranspositionTable transpositionTable)
+    {
+        this.transpositionTable = transpositionTable;
+    }
+
+    // Method to replace the evaluation, e.g. with an NnueEvaluator; null restores the handcrafted one
+    public void setEvaluator(Evaluator evaluator)
+    {
+        this.evaluator = (evaluator == null) ? new HandcraftedEvaluator() : evaluator;
+    }
+
+    // Method to forget killer moves and history, e.g. before starting an unrelated game
+    public void clear()
+    {
+        moveOrdering.clear();
+    }
+
+    // Method to search root moves to the given depth, trying the preferred move first
+    private int searchRoot(List<ChessMove> rootMoves, int depth, ChessMove preferred)
+    {
+        moveOrdering.orderMoves(game.getBoard(), rootMoves, 0);
+        if (preferred != null && rootMoves.remove(preferred))
+        {
+            rootMoves.add(0, preferred);
+        }
+
+        int alpha = -INFINITY;
+        pvLength[0] = 0;
+        for (ChessMove move : rootMoves)
+        {
+            ChessPiece movedPiece = game.getBoard().getPiece(move.getStartPosition());
+            ChessPiece captured = makeMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            unmakeMove(move, movedPiece, captured);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+                updatePrincipalVariation(0, move);
+            }
+        }
+        return alpha;
+    }
+
+    // Method to run a fail-hard negamax alpha-beta search below the root
+    private int negamax(int depth, int ply, int alpha, int beta)
+    {
+        pvLength[ply] = ply;
+        if (depth <= 0 || ply >= MoveOrdering.MAX_PLY - 1)
+        {
+            return quiescence(ply, alpha, beta);
+        }
+        if (checkTime())
+        {
+            return 0;
+        }
+        if (tablebases != null)
+        {
+            int tableValue = tablebases.probe(game);
+            if (tableValue != Tablebases.NOT_FOUND)
+            {
+                return tablebaseScore(tableValue, ply);
+            }
+        }
+
+        ChessMove hashMove = null;
+        if (transpositionTable != null)
+        {
+            long entry = transpositionTable.probe(hash);
+            if (entry != TranspositionTable.MISS)
+            {
+                hashMove = TranspositionTable.entryMove(entry);
+                if (TranspositionTable.entryDepth(entry) >= depth)
+                {
+                    int storedScore = scoreFromTable(TranspositionTable.entryScore(entry), ply);
+                    int bound = TranspositionTable.entryBound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && storedScore >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && storedScore <= alpha))
+                    {
+                        return Math.max(alpha, Math.min(beta, storedScore));
+                    }
+                }
+            }
+        }
+
+        ChessGame.TeamColor sideToMove = game.getTeamTurn();
+        List<ChessMove> moves = game.teamValidMoves(sideToMove);
+        if (moves.isEmpty())
+        {
+            return game.isInCheck(sideToMove) ? -MATE_SCORE + ply : 0;
+        }
+        moveOrdering.orderMoves(game.getBoard(), moves, ply);
+        if (hashMove != null && moves.remove(hashMove))
+        {
+            moves.add(0, hashMove);
+        }
+
+        int originalAlpha = alpha;
+        ChessMove bestMove = null;
+        for (ChessMove move : moves)
+        {
+            ChessPiece movedPiece = game.getBoard().getPiece(move.getStartPosition());
+            ChessPiece captured = makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            unmakeMove(move, movedPiece, captured);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                if (captured == null && move.getPromotionPiece() == null)
+                {
+                    moveOrdering.recordKiller(move, ply);
+                    moveOrdering.recordHistory(movedPiece, move, depth);
+                }
+                storeInTable(depth, beta, TranspositionTable.LOWER_BOUND, move, ply);
+                return beta;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+                bestMove = move;
+                updatePrincipalVariation(ply, move);
+            }
+        }
+        storeInTable(depth, alpha, (alpha > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND,
+                bestMove, ply);
+        return alpha;
+    }
+
+    // Method to store a node's result, with mate scores made relative to the node
+    private void storeInTable(int depth, int score, int bound, ChessMove bestMove, int ply)
+    {
+        if (transpositionTable == null)
+        {
+            return;
+        }
+        int storedScore = score;
+        if (score >= MATE_THRESHOLD)
+        {
+            storedScore = score + ply;
+        }
+        else if (score <= -MATE_THRESHOLD)
+        {
+            storedScore = score - ply;
+        }
+        transpositionTable.store(hash, depth, storedScore, bound, bestMove);
+    }
+
+    // Method to turn a stored score back into one relative to the root
+    private static int scoreFromTable(int storedScore, int ply)
+    {
+        if (storedScore >= MATE_THRESHOLD)
+        {
+            return storedScore - ply;
+        }
+        if (storedScore <= -MATE_THRESHOLD)
+        {
+            return storedScore + ply;
+        }
+        return storedScore;
+    }
+
+    // Method to resolve captures at the leaves so the evaluation is not taken mid-exchange
+    private int quiescence(int ply, int alpha, int beta)
+    {
+        if (checkTime())
+        {
+            return 0;
+        }
+        ChessGame.TeamColor sideToMove = game.getTeamTurn();
+        int standPat = evaluator.evaluate(sideToMove);
+        if (standPat >= beta || ply >= MoveOrdering.MAX_PLY - 1)
+        {
+            return beta;
+        }
+        alpha = Math.max(alpha, standPat);
+
+        ChessBoard board = game.getBoard();
+        List<ChessMove> captures = new ArrayList<>();
+        for (ChessPosition pos : game.getTeamPositions(sideToMove))
+        {
+            for (ChessMove move : board.getPiece(pos).pieceMoves(board, pos))
+            {
+                // Losing captures are skipped, they almost never change the result
+                if (board.getPiece(move.getEndPosition()) != null && board.staticExchangeEvaluation(move) >= 0)
+                {
+                    captures.add(move);
+                }
+            }
+        }
+        moveOrdering.orderMoves(board, captures, ply);
+
+        for (ChessMove move : captures)
+        {
+            ChessPiece movedPiece = game.getBoard().getPiece(move.getStartPosition());
+            ChessPiece captured = makeMove(move);
+            if (game.isInCheck(sideToMove))
+            {
+                unmakeMove(move, movedPiece, captured);
+                continue;
+            }
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            unmakeMove(move, movedPiece, captured);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                return beta;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        return alpha;
+    }
+
+    // Method to turn a tablebase distance-to-mate value into a mate score at a ply
+    private static int tablebaseScore(int tableValue, int ply)
+    {
+        if (tableValue > 0)
+        {
+            return MATE_SCORE - ply - tableValue;
+        }
+        if (tableValue < 0)
+        {
+            return -MATE_SCORE + ply + (-tableValue - 1);
+        }
+        return 0;
+    }
+
+    // Method to play a move on the search board, returning the captured piece if any
+    private ChessPiece makeMove(ChessMove move)
+    {
+        nodes++;
+        ChessBoard board = game.getBoard();
+        ChessPiece piece = board.getPiece(move.getStartPosition());
+        ChessPiece captured = board.getPiece(move.getEndPosition());
+        ChessPiece placed = (move.getPromotionPiece() == null)
+                ? piece : new ChessPiece(piece.teamColor(), move.getPromotionPiece());
+        board.addPiece(move.getEndPosition(), placed);
+        board.addPiece(move.getStartPosition(), null);
+        int from = move.getStartPosition().getIndex();
+        int to = move.getEndPosition().getIndex();
+        evaluator.removePiece(piece, from);
+        if (captured != null)
+        {
+            evaluator.removePiece(captured, to);
+        }
+        evaluator.addPiece(placed, to);
+        game.setTeamTurn(piece.teamColor() == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+        hash ^= moveHashDelta(move, piece, captured);
+        return captured;
+    }
+
+    // Method to take back a move made with makeMove
+    private void unmakeMove(ChessMove move, ChessPiece movedPiece, ChessPiece captured)
+    {
+        ChessBoard board = game.getBoard();
+        int from = move.getStartPosition().getIndex();
+        int to = move.getEndPosition().getIndex();
+        evaluator.removePiece(board.getPiece(move.getEndPosition()), to);
+        if (captured != null)
+        {
+            evaluator.addPiece(captured, to);
+        }
+        evaluator.addPiece(movedPiece, from);
+        board.addPiece(move.getStartPosition(), movedPiece);
+        board.addPiece(move.getEndPosition(), captured);
+        game.setTeamTurn(movedPiece.teamColor());
+        hash ^= moveHashDelta(move, movedPiece, captured);
+    }
+
+    // Method to get the Zobrist keys a move toggles, the same for making and unmaking it
+    private static long moveHashDelta(ChessMove move, ChessPiece movedPiece, ChessPiece captured)
+    {
+        int from = move.getStartPosition().getIndex();
+        int to = move.getEndPosition().getIndex();
+        ChessPiece placed = (move.getPromotionPiece() == null)
+                ? movedPiece : new ChessPiece(movedPiece.teamColor(), move.getPromotionPiece());
+        long delta = ZobristHash.pieceKey(movedPiece, from) ^ ZobristHash.pieceKey(placed, to) ^ ZobristHash.sideToMoveKey();
+        if (captured != null)
+        {
+            delta ^= ZobristHash.pieceKey(captured, to);
+        }
+        return delta;
+    }
+
+    // Method to store a new best move at a ply followed by the best line found below it
+    private void updatePrincipalVariation(int ply, ChessMove move)
+    {
+        pvTable[ply][ply] = move;
+        int childLength = (ply + 1 < MoveOrdering.MAX_PLY) ? pvLength[ply + 1] : ply + 1;
+        for (int next = ply + 1; next < childLength; next++)
+        {
+            pvTable[ply][next] = pvTable[ply + 1][next];
+        }
+        pvLength[ply] = Math.max(childLength, ply + 1);
+    }
+
+    // Method to copy the root principal variation out of the table
+    private List<ChessMove> principalVariation()
+    {
+        return List.of(Arrays.copyOf(pvTable[0], pvLength[0]));
+    }
+
+    // Method to check the clock and stop condition every so often and stop once either says so
+    private boolean checkTime()
+    {
+        if ((nodes % TIME_CHECK_INTERVAL) == 0)
+        {
+            if ((canStop && System.nanoTime() > deadline) || isStopRequested())
+            {
+                stopped = true;
+            }
+        }
+        return stopped;
+    }
+
+    // Method to check whether the caller's condition or a stop aimed at this search asks it to end
+    private boolean isStopRequested()
+    {
+        return stopThroughId.get() >= searchId || stopCondition.getAsBoolean();
+    }
+}
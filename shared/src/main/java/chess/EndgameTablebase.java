@@ -0,0 +1,410 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Distance-to-mate table for every position of one piece set, e.g. "KQvK".
+ * <p>
+ * Positions are indexed by side to move, the placement of the two kings and the square
+ * of each other piece, so a probe is a single byte read from the memory-mapped file.
+ * Boards are first turned by the symmetries that keep the rules, mirroring files and,
+ * without pawns, ranks and the long diagonal, until the white king is on files a-d
+ * (without pawns, in the a1-d1-d4 triangle). That leaves 462 king placements without
+ * pawns and 1806 with them, adjacent kings excluded. Each other piece is numbered among
+ * the squares the kings and earlier pieces leave free, so no index puts two pieces on
+ * one square. A pawnless table holds 2 * 462 * 62 * 61 * ... entries, about 57 KB for
+ * three pieces, 3.5 MB for four and 210 MB for five; tables with pawns are about four
+ * times larger.
+ * <p>
+ * Stored values are from the side to move's point of view: 0 is a draw, v &gt; 0 wins
+ * with mate in v plies, and v &lt; 0 loses to mate in (-v - 1) plies, so -1 means
+ * already checkmated. Tables are built by TablebaseGenerator and normally probed
+ * through Tablebases.
+ */
+public class EndgameTablebase
+{
+
+    // Largest piece count a table can hold, kings included
+    public static final int MAX_PIECES = 5;
+
+    // Marks squares combinations that cannot occur, e.g. two pieces on one square
+    static final byte ILLEGAL = Byte.MIN_VALUE;
+
+    static final int MAGIC = 0x43544232; // "CTB2"
+    static final int HEADER_SIZE = 16;
+
+    // Entries per mapped segment, a single mapping cannot exceed 2 GiB
+    private static final int SEGMENT_BITS = 30;
+
+    // Symmetries turning a board, as flags applied in this order
+    private static final int MIRROR_FILES = 1;
+    private static final int MIRROR_RANKS = 2;
+    private static final int TRANSPOSE = 4;
+
+    // King pair numbering for tables without and with pawns: pair index by kings' squares, and squares by pair index
+    private static final int[][] KING_PAIR_INDEX = new int[2][];
+    private static final int[][] KING_PAIRS = new int[2][];
+
+    static
+    {
+        for (int pawns = 0; pawns < 2; pawns++)
+        {
+            int[] pairIndex = new int[64 * 64];
+            int[] pairs = new int[64 * 64];
+            int count = 0;
+            for (int whiteKing = 0; whiteKing < 64; whiteKing++)
+            {
+                for (int blackKing = 0; blackKing < 64; blackKing++)
+                {
+                    boolean touching = Math.abs((whiteKing >>> 3) - (blackKing >>> 3)) <= 1
+                            && Math.abs((whiteKing & 7) - (blackKing & 7)) <= 1;
+                    if (!touching && symmetryFor(whiteKing, blackKing, pawns == 1) == 0)
+                    {
+                        pairIndex[whiteKing * 64 + blackKing] = count;
+                        pairs[count++] = whiteKing * 64 + blackKing;
+                    }
+                    else
+                    {
+                        pairIndex[whiteKing * 64 + blackKing] = -1;
+                    }
+                }
+            }
+            KING_PAIR_INDEX[pawns] = pairIndex;
+            KING_PAIRS[pawns] = Arrays.copyOf(pairs, count);
+        }
+    }
+
+    private final String signature;
+    private final ChessPiece[] slots;
+    private final int longestMate;
+    private final ByteBuffer[] segments;
+
+    private EndgameTablebase(String signature, ChessPiece[] slots, int longestMate, ByteBuffer[] segments)
+    {
+        this.signature = signature;
+        this.slots = slots;
+        this.longestMate = longestMate;
+        this.segments = segments;
+    }
+
+    /**
+     * Memory-maps a table file written by TablebaseGenerator
+     *
+     * @param tableFile path of the table
+     * @return the mapped table
+     * @throws IOException if the file cannot be read or is not a table
+     */
+    public static EndgameTablebase open(Path tableFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(tableFile, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC)
+            {
+                throw new IOException("Not a tablebase file: " + tableFile);
+            }
+            int pieceCount = header.get();
+            int longestMate = header.get();
+            ChessPiece[] slots = new ChessPiece[pieceCount];
+            for (int i = 0; i < pieceCount; i++)
+            {
+                slots[i] = pieceForIndex(header.get());
+            }
+
+            long entries = positionCount(slots);
+            if (channel.size() != HEADER_SIZE + entries)
+            {
+                throw new IOException("Truncated tablebase file: " + tableFile);
+            }
+            int segmentCount = (int) ((entries + (1L << SEGMENT_BITS) - 1) >>> SEGMENT_BITS);
+            ByteBuffer[] segments = new ByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++)
+            {
+                long start = (long) i << SEGMENT_BITS;
+                long length = Math.min(1L << SEGMENT_BITS, entries - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + start, length);
+            }
+            return new EndgameTablebase(signatureOf(slots), slots, longestMate, segments);
+        }
+    }
+
+    /**
+     * Looks up a position with this table's piece set
+     *
+     * @param board      board to look up
+     * @param sideToMove team to move
+     * @param flipped    true to read the board with colors swapped and ranks mirrored
+     * @return stored value (see class comment), or ILLEGAL if the pieces do not match
+     */
+    int probe(ChessBoard board, ChessGame.TeamColor sideToMove, boolean flipped)
+    {
+        long index = indexOf(board, sideToMove, flipped, slots);
+        return (index < 0) ? ILLEGAL : valueAt(index);
+    }
+
+    // Method to read the stored value at a position index
+    int valueAt(long index)
+    {
+        return segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & ((1L << SEGMENT_BITS) - 1)));
+    }
+
+    // Method to get the table's piece set, e.g. "KRvK"
+    public String getSignature()
+    {
+        return signature;
+    }
+
+    // Method to get the number of pieces on the board, kings included
+    public int getPieceCount()
+    {
+        return slots.length;
+    }
+
+    // Method to get the longest mate in the table in plies
+    public int getLongestMate()
+    {
+        return longestMate;
+    }
+
+    // Method to get how many positions a table for a list of piece slots indexes
+    static long positionCount(ChessPiece[] slots)
+    {
+        long count = 2L * KING_PAIRS[hasPawns(slots) ? 1 : 0].length;
+        for (int piece = 0; piece < slots.length - 2; piece++)
+        {
+            count *= 62 - piece;
+        }
+        return count;
+    }
+
+    /**
+     * Computes a position's index for a list of piece slots
+     *
+     * @return the index, or -1 if the board's pieces are not exactly the slots' pieces
+     */
+    static long indexOf(ChessBoard board, ChessGame.TeamColor sideToMove, boolean flipped, ChessPiece[] slots)
+    {
+        int[] squares = new int[slots.length];
+        int filled = 0;
+        for (int row = 1; row <= 8; row++)
+        {
+            for (int col = 1; col <= 8; col++)
+            {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece == null)
+                {
+                    continue;
+                }
+                int square = position.getIndex();
+                if (flipped)
+                {
+                    piece = new ChessPiece(opponentOf(piece.teamColor()), piece.pieceType());
+                    square ^= 56; // Mirror the rank
+                }
+                int slot = freeSlotFor(piece, slots, filled);
+                if (slot < 0)
+                {
+                    return -1;
+                }
+                squares[slot] = square;
+                filled |= 1 << slot;
+            }
+        }
+        if (filled != (1 << slots.length) - 1)
+        {
+            return -1;
+        }
+
+        ChessGame.TeamColor side = flipped ? opponentOf(sideToMove) : sideToMove;
+        return indexOf(squares, side, slots);
+    }
+
+    /**
+     * Computes a position's index from the square of each slot's piece
+     *
+     * @return the index, or -1 if the kings touch
+     */
+    static long indexOf(int[] squares, ChessGame.TeamColor sideToMove, ChessPiece[] slots)
+    {
+        int kind = hasPawns(slots) ? 1 : 0;
+        int whiteKingSlot = kingSlot(slots, ChessGame.TeamColor.WHITE);
+        int blackKingSlot = kingSlot(slots, ChessGame.TeamColor.BLACK);
+        int symmetry = symmetryFor(squares[whiteKingSlot], squares[blackKingSlot], kind == 1);
+        int whiteKing = transform(squares[whiteKingSlot], symmetry);
+        int blackKing = transform(squares[blackKingSlot], symmetry);
+        int pair = KING_PAIR_INDEX[kind][whiteKing * 64 + blackKing];
+        if (pair < 0)
+        {
+            return -1;
+        }
+
+        long index = (long) ((sideToMove == ChessGame.TeamColor.WHITE) ? 0 : 1) * KING_PAIRS[kind].length + pair;
+        long occupied = (1L << whiteKing) | (1L << blackKing);
+        int freeSquares = 62;
+        for (int slot = 0; slot < slots.length; slot++)
+        {
+            if (slot == whiteKingSlot || slot == blackKingSlot)
+            {
+                continue;
+            }
+            int square = transform(squares[slot], symmetry);
+            index = index * freeSquares + square - Long.bitCount(occupied & ((1L << square) - 1));
+            occupied |= 1L << square;
+            freeSquares--;
+        }
+        return index;
+    }
+
+    /**
+     * Places the pieces of a position index, the inverse of indexOf
+     *
+     * @param squares filled with the square of each slot's piece
+     * @return the side to move
+     */
+    static ChessGame.TeamColor squaresOf(long index, ChessPiece[] slots, int[] squares)
+    {
+        int kind = hasPawns(slots) ? 1 : 0;
+        int whiteKingSlot = kingSlot(slots, ChessGame.TeamColor.WHITE);
+        int blackKingSlot = kingSlot(slots, ChessGame.TeamColor.BLACK);
+        int[] freeRanks = new int[slots.length];
+        for (int slot = slots.length - 1, freeSquares = 62 - (slots.length - 3); slot >= 0; slot--)
+        {
+            if (slot != whiteKingSlot && slot != blackKingSlot)
+            {
+                freeRanks[slot] = (int) (index % freeSquares);
+                index /= freeSquares++;
+            }
+        }
+        int kings = KING_PAIRS[kind][(int) (index % KING_PAIRS[kind].length)];
+        squares[whiteKingSlot] = kings / 64;
+        squares[blackKingSlot] = kings % 64;
+
+        long occupied = (1L << squares[whiteKingSlot]) | (1L << squares[blackKingSlot]);
+        for (int slot = 0; slot < slots.length; slot++)
+        {
+            if (slot != whiteKingSlot && slot != blackKingSlot)
+            {
+                squares[slot] = nthFreeSquare(occupied, freeRanks[slot]);
+                occupied |= 1L << squares[slot];
+            }
+        }
+        return (index / KING_PAIRS[kind].length == 0) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    // Method to pick the symmetry that brings the white king into the indexed region
+    private static int symmetryFor(int whiteKing, int blackKing, boolean pawns)
+    {
+        int symmetry = ((whiteKing & 7) > 3) ? MIRROR_FILES : 0;
+        if (pawns)
+        {
+            return symmetry; // Pawns only move up the board, so ranks cannot be mirrored
+        }
+        if ((whiteKing >>> 3) > 3)
+        {
+            symmetry |= MIRROR_RANKS;
+        }
+        int king = transform(whiteKing, symmetry);
+        int other = transform(blackKing, symmetry);
+        if ((king >>> 3) > (king & 7) || ((king >>> 3) == (king & 7) && (other >>> 3) > (other & 7)))
+        {
+            symmetry |= TRANSPOSE; // On the diagonal itself, the black king decides
+        }
+        return symmetry;
+    }
+
+    private static int transform(int square, int symmetry)
+    {
+        if ((symmetry & MIRROR_FILES) != 0)
+        {
+            square ^= 7;
+        }
+        if ((symmetry & MIRROR_RANKS) != 0)
+        {
+            square ^= 56;
+        }
+        if ((symmetry & TRANSPOSE) != 0)
+        {
+            square = ((square & 7) << 3) | (square >>> 3);
+        }
+        return square;
+    }
+
+    // Method to find the square that is the given number of free squares from a1
+    private static int nthFreeSquare(long occupied, int freeRank)
+    {
+        long free = ~occupied;
+        for (int i = 0; i < freeRank; i++)
+        {
+            free &= free - 1;
+        }
+        return Long.numberOfTrailingZeros(free);
+    }
+
+    private static int kingSlot(ChessPiece[] slots, ChessGame.TeamColor color)
+    {
+        for (int slot = 0; slot < slots.length; slot++)
+        {
+            if (slots[slot].pieceType() == ChessPiece.PieceType.KING && slots[slot].teamColor() == color)
+            {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException("No " + color + " king in " + signatureOf(slots));
+    }
+
+    private static boolean hasPawns(ChessPiece[] slots)
+    {
+        for (ChessPiece piece : slots)
+        {
+            if (piece.pieceType() == ChessPiece.PieceType.PAWN)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Method to find the first unfilled slot holding a piece, or -1 if none
+    private static int freeSlotFor(ChessPiece piece, ChessPiece[] slots, int filled)
+    {
+        for (int slot = 0; slot < slots.length; slot++)
+        {
+            if ((filled & (1 << slot)) == 0 && slots[slot].equals(piece))
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // Method to build the signature naming a list of piece slots
+    static String signatureOf(ChessPiece[] slots)
+    {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (ChessPiece piece : slots)
+        {
+            (piece.teamColor() == ChessGame.TeamColor.WHITE ? white : black).append(Tablebases.letterOf(piece.pieceType()));
+        }
+        return white + "v" + black;
+    }
+
+    // Method to rebuild a piece from its ChessPiece.getIndex value
+    static ChessPiece pieceForIndex(int pieceIndex)
+    {
+        return new ChessPiece(ChessGame.TeamColor.values()[pieceIndex / 6], ChessPiece.PieceType.values()[pieceIndex % 6]);
+    }
+
+    private static ChessGame.TeamColor opponentOf(ChessGame.TeamColor color)
+    {
+        return (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+    }
+}
@@ -0,0 +1,24 @@
+package chess;
+
+/**
+ * Static evaluation used at the leaves of ChessSearch.
+ * <p>
+ * The search reports every piece it puts on or takes off the board, in both
+ * directions of make and unmake, so an evaluator can keep its state up to date
+ * incrementally instead of rescanning the board at every leaf. One instance belongs
+ * to one search and is never used by two threads at once.
+ */
+public interface Evaluator
+{
+    // Method to rebuild the evaluator's state from a whole board, called before each search
+    void reset(ChessBoard board);
+
+    // Method to account for a piece placed on a square, squares as in ChessPosition.getIndex
+    void addPiece(ChessPiece piece, int square);
+
+    // Method to account for a piece taken off a square
+    void removePiece(ChessPiece piece, int square);
+
+    // Method to score the current position in centipawns for the side to move
+    int evaluate(ChessGame.TeamColor sideToMove);
+}
@@ -0,0 +1,78 @@
+package chess;
+
+/**
+ * Default evaluation: material plus small bonuses for advanced pawns and central
+ * pieces. Every term depends on a single piece, so the score is kept as a running
+ * sum that each added or removed piece adjusts.
+ */
+public class HandcraftedEvaluator implements Evaluator
+{
+
+    // Score from white's point of view
+    private int whiteScore;
+
+    @Override
+    public void reset(ChessBoard board)
+    {
+        whiteScore = 0;
+        for (int row = 1; row <= 8; row++)
+        {
+            for (int col = 1; col <= 8; col++)
+            {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null)
+                {
+                    whiteScore += pieceScore(piece, row, col);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addPiece(ChessPiece piece, int square)
+    {
+        whiteScore += pieceScore(piece, square / 8 + 1, square % 8 + 1);
+    }
+
+    @Override
+    public void removePiece(ChessPiece piece, int square)
+    {
+        whiteScore -= pieceScore(piece, square / 8 + 1, square % 8 + 1);
+    }
+
+    @Override
+    public int evaluate(ChessGame.TeamColor sideToMove)
+    {
+        return (sideToMove == ChessGame.TeamColor.WHITE) ? whiteScore : -whiteScore;
+    }
+
+    // Method to get a piece's contribution from white's point of view
+    private static int pieceScore(ChessPiece piece, int row, int col)
+    {
+        int score = positionalBonus(piece, row, col);
+        if (piece.pieceType() != ChessPiece.PieceType.KING)
+        {
+            score += piece.pieceType().getValue();
+        }
+        return (piece.teamColor() == ChessGame.TeamColor.WHITE) ? score : -score;
+    }
+
+    // Method to reward advanced pawns and centralized minor pieces and queens
+    private static int positionalBonus(ChessPiece piece, int row, int col)
+    {
+        int centrality = 6 - Math.abs(2 * row - 9) / 2 - Math.abs(2 * col - 9) / 2;
+        switch (piece.pieceType())
+        {
+            case PAWN:
+                int advance = (piece.teamColor() == ChessGame.TeamColor.WHITE) ? row - 2 : 7 - row;
+                return advance * 8 + ((col == 4 || col == 5) ? 10 : 0);
+            case KNIGHT:
+            case BISHOP:
+                return centrality * 5;
+            case QUEEN:
+                return centrality * 2;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package chess;
+
+/**
+ * Check and pin information for one side of a position, used to turn pseudo-legal
+ * moves into legal ones without playing them.
+ * <p>
+ * Built once per position by walking the eight rays and the knight and pawn squares
+ * around the king. A move by any piece but the king is legal when its destination is in
+ * the check mask (everywhere when not in check, the checker and the squares between it
+ * and the king in single check, nowhere in double check) and, for a pinned piece, on its
+ * pin ray. King moves are legal when the destination is not attacked with the king
+ * lifted off the board, so sliders see through the square it leaves.
+ */
+class LegalMoveFilter
+{
+    private static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+
+    private final ChessBoard board;
+    private final ChessGame.TeamColor opponent;
+
+    // Square index of the king, or -1 for boards without one
+    private final int kingSquare;
+
+    private long checkMask = -1L;
+    private long pinnedPieces;
+
+    // Squares a pinned piece may move to, indexed by the pinned piece's square
+    private final long[] pinRays = new long[64];
+
+    LegalMoveFilter(ChessBoard board, ChessGame.TeamColor color)
+    {
+        this.board = board;
+        this.opponent = (color == ChessGame.TeamColor.WHITE) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        this.kingSquare = findKing(color);
+        if (kingSquare >= 0)
+        {
+            findChecksAndPins(color);
+        }
+    }
+
+    // Method to check whether a pseudo-legal move leaves the mover's king safe
+    boolean allows(ChessMove move)
+    {
+        if (kingSquare < 0)
+        {
+            return true;
+        }
+        int from = move.getStartPosition().getIndex();
+        int to = move.getEndPosition().getIndex();
+        if (from == kingSquare)
+        {
+            return board.findLeastValuableAttacker(to / 8, to % 8, opponent, 1L << kingSquare) < 0;
+        }
+        long destination = 1L << to;
+        if ((checkMask & destination) == 0)
+        {
+            return false;
+        }
+        return (pinnedPieces & (1L << from)) == 0 || (pinRays[from] & destination) != 0;
+    }
+
+    private int findKing(ChessGame.TeamColor color)
+    {
+        for (int square = 0; square < 64; square++)
+        {
+            ChessPiece piece = pieceAt(square / 8, square % 8);
+            if (piece != null && piece.teamColor() == color && piece.pieceType() == ChessPiece.PieceType.KING)
+            {
+                return square;
+            }
+        }
+        return -1;
+    }
+
+    // Method to walk out from the king, collecting checkers with their block squares and pinned pieces with their rays
+    private void findChecksAndPins(ChessGame.TeamColor color)
+    {
+        int kingRow = kingSquare / 8;
+        int kingCol = kingSquare % 8;
+        int checkers = 0;
+        long blockSquares = 0;
+
+        for (int direction = 0; direction < DIRECTIONS.length; direction++)
+        {
+            boolean diagonal = direction >= 4;
+            long ray = 0;
+            int ownSquare = -1;
+            int row = kingRow + DIRECTIONS[direction][0];
+            int col = kingCol + DIRECTIONS[direction][1];
+            while (row >= 0 && row <= 7 && col >= 0 && col <= 7)
+            {
+                ray |= 1L << (row * 8 + col);
+                ChessPiece piece = pieceAt(row, col);
+                if (piece != null)
+                {
+                    if (piece.teamColor() == color)
+                    {
+                        if (ownSquare >= 0)
+                        {
+                            break; // Two of our pieces in a row, nothing is pinned
+                        }
+                        ownSquare = row * 8 + col;
+                    }
+                    else
+                    {
+                        if (isSlider(piece, diagonal))
+                        {
+                            if (ownSquare < 0)
+                            {
+                                checkers++;
+                                blockSquares |= ray;
+                            }
+                            else
+                            {
+                                pinnedPieces |= 1L << ownSquare;
+                                pinRays[ownSquare] = ray;
+                            }
+                        }
+                        break;
+                    }
+                }
+                row += DIRECTIONS[direction][0];
+                col += DIRECTIONS[direction][1];
+            }
+        }
+
+        for (int[] offset : KNIGHT_OFFSETS)
+        {
+            if (isOpponentPiece(kingRow + offset[0], kingCol + offset[1], ChessPiece.PieceType.KNIGHT))
+            {
+                checkers++;
+                blockSquares |= 1L << ((kingRow + offset[0]) * 8 + kingCol + offset[1]);
+            }
+        }
+
+        // Opponent pawns attack toward our side of the board
+        int pawnRow = (opponent == ChessGame.TeamColor.WHITE) ? kingRow - 1 : kingRow + 1;
+        for (int colStep = -1; colStep <= 1; colStep += 2)
+        {
+            if (isOpponentPiece(pawnRow, kingCol + colStep, ChessPiece.PieceType.PAWN))
+            {
+                checkers++;
+                blockSquares |= 1L << (pawnRow * 8 + kingCol + colStep);
+            }
+        }
+
+        if (checkers == 1)
+        {
+            checkMask = blockSquares;
+        }
+        else if (checkers > 1)
+        {
+            checkMask = 0; // Only the king can answer a double check
+        }
+    }
+
+    private static boolean isSlider(ChessPiece piece, boolean diagonal)
+    {
+        ChessPiece.PieceType type = piece.pieceType();
+        return type == ChessPiece.PieceType.QUEEN
+                || type == (diagonal ? ChessPiece.PieceType.BISHOP : ChessPiece.PieceType.ROOK);
+    }
+
+    private boolean isOpponentPiece(int row, int col, ChessPiece.PieceType type)
+    {
+        if (row < 0 || row > 7 || col < 0 || col > 7)
+        {
+            return false;
+        }
+        ChessPiece piece = pieceAt(row, col);
+        return piece != null && piece.teamColor() == opponent && piece.pieceType() == type;
+    }
+
+    private ChessPiece pieceAt(int row, int col)
+    {
+        return board.getPiece(new ChessPosition(row + 1, col + 1));
+    }
+}
@@ -0,0 +1,155 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Orders candidate moves so that a search tries the most promising ones first.
+ * <p>
+ * Captures are scored by MVV-LVA (most valuable victim, least valuable attacker),
+ * followed by the killer moves of the current ply, captures that lose material by
+ * static exchange evaluation, and then quiet moves ranked by the history table. Ordering is done in place with a reused score buffer, so no
+ * objects are allocated per call.
+ */
+public class MoveOrdering
+{
+
+    // Deepest ply that killer moves are tracked for
+    public static final int MAX_PLY = 64;
+
+    // Score bands keep captures, killers and quiet moves in separate ranges
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int PROMOTION_SCORE = 900_000;
+    private static final int FIRST_KILLER_SCORE = 800_000;
+    private static final int SECOND_KILLER_SCORE = 700_000;
+    private static final int LOSING_CAPTURE_SCORE = 500_000;
+
+    // History scores are halved once any entry reaches this limit
+    private static final int HISTORY_LIMIT = 100_000;
+
+    // Two quiet moves per ply that caused a beta cutoff
+    private final ChessMove[][] killerMoves = new ChessMove[MAX_PLY][2];
+
+    // Cutoff history indexed by piece index (see ChessPiece.getIndex) and to-square
+    private final int[][] historyTable = new int[12][64];
+
+    // Score buffer reused across calls, grown only when a longer list shows up
+    private int[] scores = new int[256];
+
+    // Method to sort moves in place from most to least promising
+    public void orderMoves(ChessBoard board, List<ChessMove> moves, int ply)
+    {
+        int count = moves.size();
+        if (scores.length < count)
+        {
+            scores = new int[count * 2];
+        }
+        for (int i = 0; i < count; i++)
+        {
+            scores[i] = scoreMove(board, moves.get(i), ply);
+        }
+
+        // Insertion sort, move lists are short and usually nearly ordered already
+        for (int i = 1; i < count; i++)
+        {
+            ChessMove move = moves.get(i);
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score)
+            {
+                scores[j + 1] = scores[j];
+                moves.set(j + 1, moves.get(j));
+                j--;
+            }
+            scores[j + 1] = score;
+            moves.set(j + 1, move);
+        }
+    }
+
+    // Method to score a single move for ordering, higher is tried first
+    public int scoreMove(ChessBoard board, ChessMove move, int ply)
+    {
+        ChessPiece attacker = board.getPiece(move.getStartPosition());
+        ChessPiece victim = board.getPiece(move.getEndPosition());
+        if (attacker == null)
+        {
+            return 0;
+        }
+
+        if (victim != null)
+        {
+            int mvvLva = victim.pieceType().getValue() * 10 - attacker.pieceType().getValue() / 10;
+            if (attacker.pieceType().getValue() > victim.pieceType().getValue()
+                    && board.staticExchangeEvaluation(move) < 0)
+            {
+                return LOSING_CAPTURE_SCORE + mvvLva;
+            }
+            return CAPTURE_SCORE + mvvLva;
+        }
+        if (move.getPromotionPiece() != null)
+        {
+            return PROMOTION_SCORE + move.getPromotionPiece().getValue();
+        }
+        if (ply < MAX_PLY)
+        {
+            if (move.equals(killerMoves[ply][0]))
+            {
+                return FIRST_KILLER_SCORE;
+            }
+            if (move.equals(killerMoves[ply][1]))
+            {
+                return SECOND_KILLER_SCORE;
+            }
+        }
+        return historyTable[attacker.getIndex()][move.getEndPosition().getIndex()];
+    }
+
+    // Method to record a quiet move that caused a beta cutoff at the given ply
+    public void recordKiller(ChessMove move, int ply)
+    {
+        if (ply >= MAX_PLY || move.equals(killerMoves[ply][0]))
+        {
+            return;
+        }
+        killerMoves[ply][1] = killerMoves[ply][0];
+        killerMoves[ply][0] = move;
+    }
+
+    // Method to reward a quiet move that caused a beta cutoff at the given depth
+    public void recordHistory(ChessPiece piece, ChessMove move, int depth)
+    {
+        int[] pieceHistory = historyTable[piece.getIndex()];
+        int square = move.getEndPosition().getIndex();
+        pieceHistory[square] += depth * depth;
+        if (pieceHistory[square] >= HISTORY_LIMIT)
+        {
+            ageHistory();
+        }
+    }
+
+    // Method to halve every history entry so recent cutoffs outweigh old ones
+    public void ageHistory()
+    {
+        for (int[] pieceHistory : historyTable)
+        {
+            for (int square = 0; square < pieceHistory.length; square++)
+            {
+                pieceHistory[square] /= 2;
+            }
+        }
+    }
+
+    // Method to forget all killer moves and history, e.g. between games
+    public void clear()
+    {
+        for (ChessMove[] plyKillers : killerMoves)
+        {
+            plyKillers[0] = null;
+            plyKillers[1] = null;
+        }
+        for (int[] pieceHistory : historyTable)
+        {
+            Arrays.fill(pieceHistory, 0);
+        }
+    }
+}
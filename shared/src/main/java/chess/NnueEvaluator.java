@@ -0,0 +1,109 @@
+package chess;
+
+/**
+ * Evaluation by an NnueNetwork with incrementally updated accumulators.
+ * <p>
+ * The first layer is only ever changed by the pieces that move, so each perspective's
+ * hidden layer is kept as an int16 accumulator and a piece added or removed costs one
+ * row add or subtract. Int16 arithmetic wraps, so unmaking a move restores the exact
+ * previous values. The loops are plain counted loops over short arrays, which HotSpot's
+ * superword pass compiles to SIMD adds and multiply-add reductions on x86. The output
+ * dot product sums blocks of DOT_BLOCK products in an int, which cannot overflow, and
+ * adds the blocks up in a long, so any hidden size is safe.
+ */
+public class NnueEvaluator implements Evaluator
+{
+
+    // Most products of an activation and an output weight whose sum always fits in an int
+    private static final int DOT_BLOCK = Integer.MAX_VALUE / (NnueNetwork.ACTIVATION_LIMIT * -Short.MIN_VALUE);
+
+    private final NnueNetwork network;
+    private final short[] whiteAccumulator;
+    private final short[] blackAccumulator;
+
+    NnueEvaluator(NnueNetwork network)
+    {
+        this.network = network;
+        this.whiteAccumulator = new short[network.hiddenSize];
+        this.blackAccumulator = new short[network.hiddenSize];
+    }
+
+    @Override
+    public void reset(ChessBoard board)
+    {
+        System.arraycopy(network.featureBiases, 0, whiteAccumulator, 0, network.hiddenSize);
+        System.arraycopy(network.featureBiases, 0, blackAccumulator, 0, network.hiddenSize);
+        for (int square = 0; square < 64; square++)
+        {
+            ChessPiece piece = board.getPiece(new ChessPosition(square / 8 + 1, square % 8 + 1));
+            if (piece != null)
+            {
+                addPiece(piece, square);
+            }
+        }
+    }
+
+    @Override
+    public void addPiece(ChessPiece piece, int square)
+    {
+        addRow(whiteAccumulator, NnueNetwork.featureIndex(piece, square, ChessGame.TeamColor.WHITE));
+        addRow(blackAccumulator, NnueNetwork.featureIndex(piece, square, ChessGame.TeamColor.BLACK));
+    }
+
+    @Override
+    public void removePiece(ChessPiece piece, int square)
+    {
+        subtractRow(whiteAccumulator, NnueNetwork.featureIndex(piece, square, ChessGame.TeamColor.WHITE));
+        subtractRow(blackAccumulator, NnueNetwork.featureIndex(piece, square, ChessGame.TeamColor.BLACK));
+    }
+
+    @Override
+    public int evaluate(ChessGame.TeamColor sideToMove)
+    {
+        short[] ours = (sideToMove == ChessGame.TeamColor.WHITE) ? whiteAccumulator : blackAccumulator;
+        short[] theirs = (sideToMove == ChessGame.TeamColor.WHITE) ? blackAccumulator : whiteAccumulator;
+        long output = clippedDot(ours, 0) + clippedDot(theirs, network.hiddenSize) + network.outputBias;
+        long score = output * NnueNetwork.EVAL_SCALE / (NnueNetwork.ACTIVATION_LIMIT * NnueNetwork.OUTPUT_SCALE);
+        // Keep network scores clear of the mate range
+        return (int) Math.max(-ChessSearch.MATE_THRESHOLD + 1, Math.min(ChessSearch.MATE_THRESHOLD - 1, score));
+    }
+
+    private void addRow(short[] accumulator, int feature)
+    {
+        short[] weights = network.featureWeights;
+        int offset = feature * network.hiddenSize;
+        for (int i = 0; i < accumulator.length; i++)
+        {
+            accumulator[i] += weights[offset + i];
+        }
+    }
+
+    private void subtractRow(short[] accumulator, int feature)
+    {
+        short[] weights = network.featureWeights;
+        int offset = feature * network.hiddenSize;
+        for (int i = 0; i < accumulator.length; i++)
+        {
+            accumulator[i] -= weights[offset + i];
+        }
+    }
+
+    // Method to apply the clipped ReLU to an accumulator and dot it with half of the output weights
+    private long clippedDot(short[] accumulator, int weightOffset)
+    {
+        short[] weights = network.outputWeights;
+        long sum = 0;
+        for (int start = 0; start < accumulator.length; start += DOT_BLOCK)
+        {
+            int end = Math.min(accumulator.length, start + DOT_BLOCK);
+            int blockSum = 0; // The inner loop stays in int so it still vectorizes
+            for (int i = start; i < end; i++)
+            {
+                int activation = Math.min(Math.max(accumulator[i], 0), NnueNetwork.ACTIVATION_LIMIT);
+                blockSum += activation * weights[weightOffset + i];
+            }
+            sum += blockSum;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,112 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Weights of a small quantized evaluation network (768 -> 2 x hidden -> 1).
+ * <p>
+ * The input has one feature per (piece relative to the perspective, piece type, square),
+ * seen once from each side's perspective with black's board mirrored, so both
+ * perspectives share one feature transformer. Its int16 output is kept per perspective
+ * by NnueEvaluator, clipped to [0, ACTIVATION_LIMIT] and fed to a single output neuron
+ * whose first half of weights reads the side to move. Weights are immutable, so one
+ * network is shared by the evaluators of all search threads.
+ * <p>
+ * File layout, little-endian: int MAGIC, int hiddenSize, short featureWeights[768][hiddenSize],
+ * short featureBiases[hiddenSize], short outputWeights[2 * hiddenSize], int outputBias.
+ * Feature weights are scaled by ACTIVATION_LIMIT and output weights by OUTPUT_SCALE.
+ */
+public class NnueNetwork
+{
+
+    public static final int FEATURE_COUNT = 2 * 6 * 64;
+
+    // Quantization of the hidden layer and of the output weights
+    public static final int ACTIVATION_LIMIT = 255;
+    public static final int OUTPUT_SCALE = 64;
+
+    // Centipawns per unit of network output
+    public static final int EVAL_SCALE = 400;
+
+    static final int MAGIC = 0x3155_4E4E; // "NNU1" read little-endian
+    private static final int MAX_HIDDEN_SIZE = 4096;
+
+    final int hiddenSize;
+    final short[] featureWeights;
+    final short[] featureBiases;
+    final short[] outputWeights;
+    final int outputBias;
+
+    private NnueNetwork(int hiddenSize, short[] featureWeights, short[] featureBiases, short[] outputWeights,
+                        int outputBias)
+    {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads a network file
+     *
+     * @param networkFile path of the network
+     * @return the loaded network
+     * @throws IOException if the file cannot be read or is not a network of the expected shape
+     */
+    public static NnueNetwork load(Path networkFile) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(networkFile)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC)
+        {
+            throw new IOException("Not a network file: " + networkFile);
+        }
+        int hiddenSize = buffer.getInt();
+        if (hiddenSize <= 0 || hiddenSize > MAX_HIDDEN_SIZE)
+        {
+            throw new IOException("Unsupported hidden layer size " + hiddenSize + ": " + networkFile);
+        }
+        long expectedSize = 8 + 2L * (FEATURE_COUNT * hiddenSize + hiddenSize + 2 * hiddenSize) + 4;
+        if (buffer.capacity() != expectedSize)
+        {
+            throw new IOException("Network file has the wrong size: " + networkFile);
+        }
+
+        short[] featureWeights = new short[FEATURE_COUNT * hiddenSize];
+        short[] featureBiases = new short[hiddenSize];
+        short[] outputWeights = new short[2 * hiddenSize];
+        buffer.asShortBuffer().get(featureWeights).get(featureBiases).get(outputWeights);
+        buffer.position(buffer.capacity() - 4);
+        return new NnueNetwork(hiddenSize, featureWeights, featureBiases, outputWeights, buffer.getInt());
+    }
+
+    // Method to create an evaluator using this network, one per search
+    public NnueEvaluator newEvaluator()
+    {
+        return new NnueEvaluator(this);
+    }
+
+    public int getHiddenSize()
+    {
+        return hiddenSize;
+    }
+
+    /**
+     * Gets the input feature of a piece as seen by one side
+     *
+     * @param piece       piece on the board
+     * @param square      square as in ChessPosition.getIndex
+     * @param perspective side the board is seen from
+     * @return feature number in [0, FEATURE_COUNT)
+     */
+    static int featureIndex(ChessPiece piece, int square, ChessGame.TeamColor perspective)
+    {
+        int relativeColor = (piece.teamColor() == perspective) ? 0 : 1;
+        int relativeSquare = (perspective == ChessGame.TeamColor.WHITE) ? square : square ^ 56;
+        return (relativeColor * 6 + piece.pieceType().ordinal()) * 64 + relativeSquare;
+    }
+}
@@ -0,0 +1,22 @@
+package chess;
+
+import java.util.List;
+
+/**
+ * Outcome of a search on one position
+ *
+ * @param bestMove            move the search would play, or null if the side to move has none
+ * @param score               score in centipawns from the side to move's point of view
+ * @param depth               deepest fully completed search depth
+ * @param principalVariation  expected line of play starting with bestMove
+ * @param nodes               number of positions visited
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, List<ChessMove> principalVariation, long nodes)
+{
+
+    // Method to check whether the score is a forced mate for either side
+    public boolean isMateScore()
+    {
+        return Math.abs(score) >= ChessSearch.MATE_THRESHOLD;
+    }
+}
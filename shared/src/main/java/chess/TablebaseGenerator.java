@@ -0,0 +1,363 @@
+package chess;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds endgame tables using the move rules of this package.
+ * <p>
+ * Generation works backwards from checkmate one ply at a time. Pass 0 marks illegal
+ * positions, checkmates and stalemates. Odd pass p marks positions with a move to a
+ * position lost in p - 1 plies as won in p, and even pass p marks positions whose
+ * every move reaches a won position as lost in p. Captures and promotions lead into
+ * smaller tables, which are generated first. Each pass is split across cores with
+ * fork/join; a pass only reads values written by earlier passes, so workers never
+ * depend on each other's writes.
+ * <p>
+ * Sizes are given in EndgameTablebase. Every position is set up on a ChessBoard and its
+ * moves generated by ChessGame, so time grows with the table: three-piece tables take
+ * seconds and four-piece tables minutes, while five-piece tables take hours per core.
+ * <p>
+ * Usage: TablebaseGenerator &lt;output directory&gt; &lt;signature&gt;... e.g. KQvK KRvK KPvK
+ */
+public class TablebaseGenerator
+{
+
+    // Temporary mark for stalemates so later passes skip them, written out as a draw
+    private static final byte STALEMATE = Byte.MAX_VALUE;
+
+    // Longest distance a byte can store, longer mates are recorded as draws
+    private static final int MAX_DISTANCE = 125;
+
+    // Positions per fork/join leaf task
+    private static final long TASK_SIZE = 1L << 12;
+
+    // Positions per in-memory segment while generating
+    private static final int SEGMENT_BITS = 24;
+
+    private final Path outputDirectory;
+    private final Tablebases tablebases;
+    private final ForkJoinPool pool;
+
+    public TablebaseGenerator(Path outputDirectory, Tablebases tablebases, ForkJoinPool pool)
+    {
+        this.outputDirectory = outputDirectory;
+        this.tablebases = tablebases;
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println("Usage: TablebaseGenerator <output directory> <signature>...");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory, Tablebases.openDirectory(directory),
+                ForkJoinPool.commonPool());
+        for (int i = 1; i < args.length; i++)
+        {
+            generator.generate(args[i]);
+        }
+    }
+
+    /**
+     * Generates a table and every smaller table it depends on, skipping ones already present
+     *
+     * @param signature piece set to generate, e.g. "KRvK"
+     * @return the generated (or already existing) table
+     * @throws IOException if a table cannot be written
+     */
+    public EndgameTablebase generate(String signature) throws IOException
+    {
+        String canonical = Tablebases.canonicalSignature(signature);
+        EndgameTablebase existing = tablebases.get(canonical);
+        if (existing != null)
+        {
+            return existing;
+        }
+        ChessPiece[] slots = Tablebases.parseSignature(canonical);
+        if (slots.length > EndgameTablebase.MAX_PIECES)
+        {
+            throw new IllegalArgumentException("Tables hold at most " + EndgameTablebase.MAX_PIECES + " pieces: " + signature);
+        }
+
+        int longestSubMate = 0;
+        for (String subSignature : subSignatures(slots))
+        {
+            if (!subSignature.equals("KvK"))
+            {
+                longestSubMate = Math.max(longestSubMate, generate(subSignature).getLongestMate());
+            }
+        }
+
+        long positions = EndgameTablebase.positionCount(slots);
+        byte[][] values = new byte[(int) ((positions + (1L << SEGMENT_BITS) - 1) >>> SEGMENT_BITS)][];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = new byte[(int) Math.min(1L << SEGMENT_BITS, positions - ((long) i << SEGMENT_BITS))];
+        }
+
+        int longestMate = 0;
+        int quietPasses = 0;
+        for (int pass = 0; pass <= MAX_DISTANCE; pass++)
+        {
+            long changed = pool.invoke(new PassTask(slots, values, pass, 0, positions));
+            if (changed > 0 && pass > 0)
+            {
+                longestMate = pass;
+            }
+            quietPasses = (changed == 0) ? quietPasses + 1 : 0;
+            if (quietPasses >= 2 && pass > longestSubMate + 1)
+            {
+                break;
+            }
+        }
+
+        Path file = outputDirectory.resolve(canonical + Tablebases.FILE_EXTENSION);
+        write(file, slots, longestMate, values);
+        EndgameTablebase table = EndgameTablebase.open(file);
+        tablebases.add(table);
+        return table;
+    }
+
+    // Method to list the piece sets reachable by one capture or promotion
+    private static Set<String> subSignatures(ChessPiece[] slots)
+    {
+        Set<String> signatures = new LinkedHashSet<>();
+        for (int slot = 0; slot < slots.length; slot++)
+        {
+            ChessPiece piece = slots[slot];
+            if (piece.pieceType() != ChessPiece.PieceType.KING)
+            {
+                ChessPiece[] captured = new ChessPiece[slots.length - 1];
+                for (int i = 0, j = 0; i < slots.length; i++)
+                {
+                    if (i != slot)
+                    {
+                        captured[j++] = slots[i];
+                    }
+                }
+                signatures.add(Tablebases.canonicalSignature(normalizedSignature(captured)));
+            }
+            if (piece.pieceType() == ChessPiece.PieceType.PAWN)
+            {
+                for (ChessPiece.PieceType promotion : List.of(ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+                        ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT))
+                {
+                    ChessPiece[] promoted = slots.clone();
+                    promoted[slot] = new ChessPiece(piece.teamColor(), promotion);
+                    signatures.add(Tablebases.canonicalSignature(normalizedSignature(promoted)));
+                }
+            }
+        }
+        return signatures;
+    }
+
+    // Method to spell a piece list as a signature in standard letter order
+    private static String normalizedSignature(ChessPiece[] pieces)
+    {
+        ChessBoard board = new ChessBoard();
+        for (int i = 0; i < pieces.length; i++)
+        {
+            board.addPiece(new ChessPosition(i / 8 + 1, i % 8 + 1), pieces[i]);
+        }
+        return Tablebases.signatureOf(board);
+    }
+
+    // Method to write the header and values of a finished table
+    private static void write(Path file, ChessPiece[] slots, int longestMate, byte[][] values) throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(EndgameTablebase.HEADER_SIZE);
+        header.putInt(EndgameTablebase.MAGIC);
+        header.put((byte) slots.length);
+        header.put((byte) longestMate);
+        for (ChessPiece piece : slots)
+        {
+            header.put((byte) piece.getIndex());
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))
+        {
+            out.write(header.array());
+            for (byte[] segment : values)
+            {
+                for (int i = 0; i < segment.length; i++)
+                {
+                    if (segment[i] == STALEMATE)
+                    {
+                        segment[i] = 0;
+                    }
+                }
+                out.write(segment);
+            }
+        }
+    }
+
+    // Runs one pass over a range of position indexes, returning how many positions were resolved
+    private class PassTask extends RecursiveTask<Long>
+    {
+        private final ChessPiece[] slots;
+        private final byte[][] values;
+        private final int pass;
+        private final long start;
+        private final long end;
+
+        PassTask(ChessPiece[] slots, byte[][] values, int pass, long start, long end)
+        {
+            this.slots = slots;
+            this.values = values;
+            this.pass = pass;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Long compute()
+        {
+            if (end - start > TASK_SIZE)
+            {
+                long middle = (start + end) >>> 1;
+                PassTask left = new PassTask(slots, values, pass, start, middle);
+                left.fork();
+                long rightChanged = new PassTask(slots, values, pass, middle, end).compute();
+                return left.join() + rightChanged;
+            }
+
+            long changed = 0;
+            ChessGame game = new ChessGame();
+            for (long index = start; index < end; index++)
+            {
+                if (getValue(index) == 0 && resolve(game, index))
+                {
+                    changed++;
+                }
+            }
+            return changed;
+        }
+
+        // Method to try to settle one position in this pass, returning whether it was settled
+        private boolean resolve(ChessGame game, long index)
+        {
+            int[] squares = new int[slots.length];
+            ChessGame.TeamColor sideToMove = EndgameTablebase.squaresOf(index, slots, squares);
+            ChessGame.TeamColor opponent = (sideToMove == ChessGame.TeamColor.WHITE)
+                    ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+            if (!setUpPosition(game, squares, sideToMove))
+            {
+                setValue(index, EndgameTablebase.ILLEGAL);
+                return pass == 0;
+            }
+
+            if (pass == 0)
+            {
+                if (game.isInCheck(opponent))
+                {
+                    setValue(index, EndgameTablebase.ILLEGAL); // The side that just moved left its king attacked
+                    return true;
+                }
+                if (game.teamValidMoves(sideToMove).isEmpty())
+                {
+                    setValue(index, game.isInCheck(sideToMove) ? (byte) -1 : STALEMATE);
+                    return true;
+                }
+                return false;
+            }
+
+            boolean winPass = (pass % 2) == 1;
+            boolean everyMoveLoses = true;
+            for (ChessMove move : game.teamValidMoves(sideToMove))
+            {
+                int reply = successorValue(game, move, opponent);
+                if (winPass && reply == -pass)
+                {
+                    setValue(index, (byte) pass); // Opponent is mated in pass - 1 plies after this move
+                    return true;
+                }
+                if (reply <= 0 || reply >= pass)
+                {
+                    everyMoveLoses = false;
+                    if (!winPass)
+                    {
+                        return false;
+                    }
+                }
+            }
+            if (!winPass && everyMoveLoses)
+            {
+                setValue(index, (byte) -(pass + 1));
+                return true;
+            }
+            return false;
+        }
+
+        // Method to place the pieces of a position on the game's board, returning false for pawns on a back rank
+        private boolean setUpPosition(ChessGame game, int[] squares, ChessGame.TeamColor sideToMove)
+        {
+            ChessBoard board = new ChessBoard();
+            for (int slot = 0; slot < slots.length; slot++)
+            {
+                int square = squares[slot];
+                int row = square / 8 + 1;
+                if (slots[slot].pieceType() == ChessPiece.PieceType.PAWN && (row == 1 || row == 8))
+                {
+                    return false;
+                }
+                board.addPiece(new ChessPosition(row, square % 8 + 1), slots[slot]);
+            }
+            game.setBoard(board);
+            game.setTeamTurn(sideToMove);
+            return true;
+        }
+
+        // Method to get the value of the position after a move, from the opponent's point of view
+        private int successorValue(ChessGame game, ChessMove move, ChessGame.TeamColor opponent)
+        {
+            ChessBoard board = game.getBoard();
+            ChessPiece piece = board.getPiece(move.getStartPosition());
+            ChessPiece captured = board.getPiece(move.getEndPosition());
+            if (captured == null && move.getPromotionPiece() == null)
+            {
+                board.addPiece(move.getEndPosition(), piece);
+                board.addPiece(move.getStartPosition(), null);
+                long successor = EndgameTablebase.indexOf(board, opponent, false, slots);
+                board.addPiece(move.getStartPosition(), piece);
+                board.addPiece(move.getEndPosition(), null);
+                int value = getValue(successor);
+                return (value == STALEMATE) ? 0 : value;
+            }
+
+            ChessPiece placed = (move.getPromotionPiece() == null) ? piece : new ChessPiece(piece.teamColor(), move.getPromotionPiece());
+            board.addPiece(move.getEndPosition(), placed);
+            board.addPiece(move.getStartPosition(), null);
+            int value = tablebases.probe(board, opponent);
+            board.addPiece(move.getStartPosition(), piece);
+            board.addPiece(move.getEndPosition(), captured);
+            if (value == Tablebases.NOT_FOUND)
+            {
+                throw new IllegalStateException("Missing smaller table for a move out of " + EndgameTablebase.signatureOf(slots));
+            }
+            return value;
+        }
+
+        private byte getValue(long index)
+        {
+            return values[(int) (index >>> SEGMENT_BITS)][(int) (index & ((1L << SEGMENT_BITS) - 1))];
+        }
+
+        private void setValue(long index, byte value)
+        {
+            values[(int) (index >>> SEGMENT_BITS)][(int) (index & ((1L << SEGMENT_BITS) - 1))] = value;
+        }
+    }
+}
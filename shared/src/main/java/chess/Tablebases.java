@@ -0,0 +1,238 @@
+package chess;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The set of endgame tables available for probing.
+ * <p>
+ * Each piece set is stored once with the stronger side as white; positions with the
+ * colors the other way round are probed with the board flipped. Probe results use
+ * the EndgameTablebase value convention: 0 draw, v &gt; 0 side to move mates in v
+ * plies, v &lt; 0 side to move is mated in (-v - 1) plies.
+ */
+public class Tablebases
+{
+
+    // Returned by probe when no table covers the position
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    // Table file name extension
+    public static final String FILE_EXTENSION = ".ctb";
+
+    // Piece letters in the order they appear in signatures
+    private static final String PIECE_ORDER = "KQRBNP";
+
+    private final Map<String, EndgameTablebase> tables = new ConcurrentHashMap<>();
+    private volatile int maxPieces;
+
+    /**
+     * Opens every table file in a directory
+     *
+     * @param directory directory holding .ctb files
+     * @return the loaded tables
+     * @throws IOException if a table cannot be read
+     */
+    public static Tablebases openDirectory(Path directory) throws IOException
+    {
+        Tablebases tablebases = new Tablebases();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+        {
+            for (Path file : files)
+            {
+                tablebases.add(EndgameTablebase.open(file));
+            }
+        }
+        return tablebases;
+    }
+
+    // Method to make a table available for probing
+    public void add(EndgameTablebase table)
+    {
+        tables.put(table.getSignature(), table);
+        maxPieces = Math.max(maxPieces, table.getPieceCount());
+    }
+
+    // Method to check whether a table for a signature is loaded
+    public boolean contains(String signature)
+    {
+        return tables.containsKey(canonicalSignature(signature));
+    }
+
+    // Method to get the loaded table for a signature, or null
+    public EndgameTablebase get(String signature)
+    {
+        return tables.get(canonicalSignature(signature));
+    }
+
+    // Method to get the largest piece count of any loaded table
+    public int getMaxPieces()
+    {
+        return maxPieces;
+    }
+
+    // Method to probe the game's current position
+    public int probe(ChessGame game)
+    {
+        return probe(game.getBoard(), game.getTeamTurn());
+    }
+
+    /**
+     * Probes a position
+     *
+     * @param board      board to look up
+     * @param sideToMove team to move
+     * @return distance-to-mate value, or NOT_FOUND if no loaded table covers the position
+     */
+    public int probe(ChessBoard board, ChessGame.TeamColor sideToMove)
+    {
+        String signature = signatureOf(board);
+        if (signature == null)
+        {
+            return NOT_FOUND;
+        }
+        if (signature.equals("KvK"))
+        {
+            return 0;
+        }
+        EndgameTablebase table = tables.get(signature);
+        boolean flipped = false;
+        if (table == null)
+        {
+            table = tables.get(flippedSignature(signature));
+            flipped = true;
+        }
+        if (table == null)
+        {
+            return NOT_FOUND;
+        }
+        int value = table.probe(board, sideToMove, flipped);
+        return (value == EndgameTablebase.ILLEGAL) ? NOT_FOUND : value;
+    }
+
+    /**
+     * Builds the signature of the pieces on a board, white pieces first
+     *
+     * @return the signature, e.g. "KRvKN", or null if there are more pieces than any table holds
+     */
+    public static String signatureOf(ChessBoard board)
+    {
+        int[] counts = new int[12];
+        int total = 0;
+        for (int row = 1; row <= 8; row++)
+        {
+            for (int col = 1; col <= 8; col++)
+            {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece != null)
+                {
+                    if (++total > EndgameTablebase.MAX_PIECES)
+                    {
+                        return null;
+                    }
+                    counts[piece.getIndex()]++;
+                }
+            }
+        }
+        return sideLetters(counts, 6) + "v" + sideLetters(counts, 0);
+    }
+
+    // Method to swap the sides of a signature, e.g. "KvKQ" to "KQvK"
+    public static String flippedSignature(String signature)
+    {
+        int split = signature.indexOf('v');
+        return signature.substring(split + 1) + "v" + signature.substring(0, split);
+    }
+
+    // Method to orient a signature the way its table is stored: stronger side first
+    public static String canonicalSignature(String signature)
+    {
+        String flipped = flippedSignature(signature);
+        return (strength(flipped) > strength(signature)) ? flipped : signature;
+    }
+
+    // Method to turn a signature into its list of pieces, white first
+    static ChessPiece[] parseSignature(String signature)
+    {
+        List<ChessPiece> slots = new ArrayList<>();
+        ChessGame.TeamColor color = ChessGame.TeamColor.WHITE;
+        for (char letter : signature.toCharArray())
+        {
+            if (letter == 'v')
+            {
+                color = ChessGame.TeamColor.BLACK;
+                continue;
+            }
+            int order = PIECE_ORDER.indexOf(letter);
+            if (order < 0)
+            {
+                throw new IllegalArgumentException("Bad tablebase signature: " + signature);
+            }
+            slots.add(new ChessPiece(color, typeForLetter(letter)));
+        }
+        return slots.toArray(new ChessPiece[0]);
+    }
+
+    // Method to get the signature letter of a piece type
+    static char letterOf(ChessPiece.PieceType type)
+    {
+        return switch (type)
+        {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static ChessPiece.PieceType typeForLetter(char letter)
+    {
+        return switch (letter)
+        {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'P' -> ChessPiece.PieceType.PAWN;
+            default -> throw new IllegalArgumentException("Bad piece letter: " + letter);
+        };
+    }
+
+    // Method to write one side's letters in signature order from piece counts
+    private static String sideLetters(int[] counts, int colorOffset)
+    {
+        StringBuilder letters = new StringBuilder();
+        for (char letter : PIECE_ORDER.toCharArray())
+        {
+            int pieceIndex = colorOffset + typeForLetter(letter).ordinal();
+            letters.append(String.valueOf(letter).repeat(counts[pieceIndex]));
+        }
+        return letters.toString();
+    }
+
+    // Method to compare signature sides by material, ties broken by spelling
+    private static long strength(String signature)
+    {
+        int split = signature.indexOf('v');
+        long material = 0;
+        for (int i = 0; i < signature.length(); i++)
+        {
+            if (i == split)
+            {
+                continue;
+            }
+            int value = typeForLetter(signature.charAt(i)).getValue() % 20000;
+            material += (i < split) ? value : -value;
+        }
+        return material * 2 + (signature.substring(0, split).compareTo(signature.substring(split + 1)) < 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,110 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist hash, safe to share
+ * between searches running on different threads.
+ * <p>
+ * Each slot is two longs: the packed entry and the entry XORed with the position
+ * hash. A reader only accepts a slot whose two halves XOR back to its hash, so a
+ * slot torn by two threads writing at once reads as a miss instead of as wrong data,
+ * and no locking is needed.
+ */
+public class TranspositionTable
+{
+
+    // Bound types of a stored score
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // Returned by probe when the position is not stored
+    public static final long MISS = 0L;
+
+    private static final long VALID_BIT = 1L << 63;
+
+    private final long[] checks;
+    private final long[] entries;
+    private final int mask;
+
+    /**
+     * @param sizeMegabytes memory to use, rounded down to a power-of-two slot count
+     */
+    public TranspositionTable(int sizeMegabytes)
+    {
+        long slots = Math.max(1024, (long) sizeMegabytes * 1024 * 1024 / 16);
+        int slotCount = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        checks = new long[slotCount];
+        entries = new long[slotCount];
+        mask = slotCount - 1;
+    }
+
+    /**
+     * Looks up a position
+     *
+     * @param hash Zobrist hash of the position
+     * @return the packed entry, read with the entry* methods, or MISS
+     */
+    public long probe(long hash)
+    {
+        int slot = (int) hash & mask;
+        long entry = entries[slot];
+        return ((checks[slot] ^ entry) == hash && entry != MISS) ? entry : MISS;
+    }
+
+    /**
+     * Stores a search result, keeping an existing deeper result for the same position
+     *
+     * @param hash     Zobrist hash of the position
+     * @param depth    remaining depth the score was searched to
+     * @param score    score from the side to move's point of view
+     * @param bound    EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param bestMove best move found, or null
+     */
+    public void store(long hash, int depth, int score, int bound, ChessMove bestMove)
+    {
+        int slot = (int) hash & mask;
+        long existing = entries[slot];
+        if ((checks[slot] ^ existing) == hash && entryDepth(existing) > depth && bound != EXACT)
+        {
+            return;
+        }
+        long entry = VALID_BIT
+                | (score & 0xFFFFFFFFL)
+                | (long) Math.min(depth, 255) << 32
+                | (long) bound << 40
+                | (long) ((bestMove == null) ? 0 : bestMove.encode() | 0x8000) << 42;
+        entries[slot] = entry;
+        checks[slot] = hash ^ entry;
+    }
+
+    // Method to empty the table, e.g. between unrelated analysis batches
+    public void clear()
+    {
+        Arrays.fill(entries, MISS);
+        Arrays.fill(checks, MISS);
+    }
+
+    public static int entryScore(long entry)
+    {
+        return (int) entry;
+    }
+
+    public static int entryDepth(long entry)
+    {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int entryBound(long entry)
+    {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    // Method to get the stored best move, or null if none was stored
+    public static ChessMove entryMove(long entry)
+    {
+        int code = (int) (entry >>> 42) & 0xFFFF;
+        return ((code & 0x8000) == 0) ? null : ChessMove.decode(code & 0x7FFF);
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * 64-bit Zobrist hashing of positions.
+ * <p>
+ * Every piece on every square and the side to move get a fixed random key, and a
+ * position's hash is the XOR of the keys that apply to it. The keys come from a fixed
+ * seed, so hashes are stable across runs and can be stored in files such as opening
+ * books.
+ */
+public final class ZobristHash
+{
+
+    // Changing the seed invalidates every stored hash
+    private static final long SEED = 0x240C4E55L;
+
+    // Keys indexed by piece index (see ChessPiece.getIndex) * 64 + square index
+    private static final long[] PIECE_SQUARE_KEYS = new long[12 * 64];
+
+    // Mixed in when black is to move
+    private static final long BLACK_TO_MOVE_KEY;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECE_SQUARE_KEYS.length; i++)
+        {
+            PIECE_SQUARE_KEYS[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private ZobristHash()
+    {
+    }
+
+    // Method to hash a board with the given side to move
+    public static long hash(ChessBoard board, ChessGame.TeamColor sideToMove)
+    {
+        long hash = (sideToMove == ChessGame.TeamColor.BLACK) ? BLACK_TO_MOVE_KEY : 0L;
+        for (int row = 1; row <= 8; row++)
+        {
+            for (int col = 1; col <= 8; col++)
+            {
+                ChessPosition position = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null)
+                {
+                    hash ^= pieceKey(piece, position.getIndex());
+                }
+            }
+        }
+        return hash;
+    }
+
+    // Method to get the key for a piece standing on a 0-63 square, for incremental updates
+    public static long pieceKey(ChessPiece piece, int square)
+    {
+        return PIECE_SQUARE_KEYS[piece.getIndex() * 64 + square];
+    }
+
+    // Method to get the key toggled whenever the side to move changes
+    public static long sideToMoveKey()
+    {
+        return BLACK_TO_MOVE_KEY;
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * A login session
+ *
+ * @param authToken token the client sends with each request
+ * @param username  user the token belongs to
+ */
+public record AuthData(String authToken, String username)
+{
+}
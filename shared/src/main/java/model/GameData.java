@@ -0,0 +1,16 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A game and the players in it
+ *
+ * @param gameID        id assigned when the game is created
+ * @param whiteUsername player with the white pieces, or null while the seat is open
+ * @param blackUsername player with the black pieces, or null while the seat is open
+ * @param gameName      name given by the creator
+ * @param game          current state of the game
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game)
+{
+}
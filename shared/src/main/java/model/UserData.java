@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * A registered user
+ *
+ * @param username unique name the user logs in with
+ * @param password the user's password, hashed before it is stored
+ * @param email    the user's email address
+ */
+public record UserData(String username, String password, String email)
+{
+}
@@ -0,0 +1,112 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class ChessJsonTests {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR";
+
+    private final Gson gson = ChessJson.gson();
+
+    @Test
+    @DisplayName("Game Round Trips")
+    public void roundTrip() throws Exception {
+        ChessGame game = new ChessGame();
+        Random random = new Random(1);
+        for (int i = 0; i < 40; i++) {
+            List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+
+        ChessGame copy = gson.fromJson(gson.toJson(game), ChessGame.class);
+        Assertions.assertEquals(game.getBoard(), copy.getBoard());
+        Assertions.assertEquals(game.getTeamTurn(), copy.getTeamTurn());
+        Assertions.assertEquals(game.getBoard().toPlacement(), copy.getBoard().toPlacement());
+
+        ChessMove move = new ChessMove(new ChessPosition(7, 2), new ChessPosition(8, 2), ChessPiece.PieceType.QUEEN);
+        Assertions.assertEquals(move, gson.fromJson(gson.toJson(move), ChessMove.class));
+    }
+
+    @Test
+    @DisplayName("Board Is Written As Its Placement")
+    public void placement() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals('"' + START + '"', gson.toJson(board));
+        Assertions.assertEquals(board, ChessBoard.fromPlacement(START));
+    }
+
+    @Test
+    @DisplayName("Boards Saved In The Old Format Still Load")
+    public void legacyFormat() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        Assertions.assertEquals(board, gson.fromJson(legacyJson(board), ChessBoard.class));
+
+        ChessGame game = gson.fromJson("{\"currentTurn\":\"BLACK\",\"board\":" + legacyJson(board) + "}", ChessGame.class);
+        Assertions.assertEquals(board, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Bad Placements Are Rejected")
+    public void badPlacement() {
+        for (String placement : List.of("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX", "8/8/8/8/8/8/8/7",
+                "8/8/8/8/8/8/8/8/8", "9/8/8/8/8/8/8/8", "8/8/8/8/8/8/8/0")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessBoard.fromPlacement(placement), placement);
+            Assertions.assertThrows(JsonParseException.class,
+                    () -> gson.fromJson('"' + placement + '"', ChessBoard.class), placement);
+        }
+    }
+
+    @Test
+    @DisplayName("Pieces Missing A Field Are Rejected")
+    public void missingPieceFields() {
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{\"teamColor\":\"WHITE\"}", ChessPiece.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{\"pieceType\":\"ROOK\"}", ChessPiece.class));
+        Assertions.assertThrows(JsonParseException.class,
+                () -> gson.fromJson("{\"boardSquares\":[[{\"pieceType\":\"ROOK\"}]]}", ChessBoard.class));
+    }
+
+    @Test
+    @DisplayName("Old Format Boards Off The Edge Are Rejected")
+    public void legacyOutOfRange() {
+        String rook = "{\"teamColor\":\"WHITE\",\"pieceType\":\"ROOK\"}";
+        String longRank = "{\"boardSquares\":[[null,null,null,null,null,null,null,null," + rook + "]]}";
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson(longRank, ChessBoard.class));
+
+        StringBuilder ranks = new StringBuilder("{\"boardSquares\":[");
+        for (int rank = 1; rank <= 9; rank++) {
+            ranks.append((rank > 1) ? ",[" : "[").append(rook).append(']');
+        }
+        String extraRank = ranks.append("]}").toString();
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson(extraRank, ChessBoard.class));
+    }
+
+    // Writes a board the way reflection wrote it before the placement form
+    private static String legacyJson(ChessBoard board) {
+        StringBuilder json = new StringBuilder("{\"boardSquares\":[");
+        for (int rank = 1; rank <= 8; rank++) {
+            json.append((rank > 1) ? ",[" : "[");
+            for (int file = 1; file <= 8; file++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(rank, file));
+                json.append((file > 1) ? "," : "");
+                json.append((piece == null) ? "null" : "{\"teamColor\":\"" + piece.teamColor()
+                        + "\",\"pieceType\":\"" + piece.pieceType() + "\"}");
+            }
+            json.append(']');
+        }
+        return json.append("]}").toString();
+    }
+}
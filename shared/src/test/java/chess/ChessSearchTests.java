@@ -0,0 +1,49 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ChessSearchTests {
+
+    @Test
+    @DisplayName("Finds Back Rank Mate In Two")
+    public void mateInTwo() {
+        // 1. Rd8+ Rxd8 2. Rxd8#; no check mates at once, as the c8 rook covers the back rank
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("2r4k/5ppp/8/8/8/8/3R4/3R2K1"));
+        SearchResult result = new ChessSearch().search(game, 6, 0);
+
+        Assertions.assertEquals(ChessSearch.MATE_SCORE - 3, result.score());
+        Assertions.assertEquals(List.of(move(2, 4, 8, 4), move(8, 3, 8, 4), move(1, 4, 8, 4)),
+                result.principalVariation().subList(0, 3));
+    }
+
+    @Test
+    @DisplayName("Stop Before Start Stops The Next Search")
+    public void stopBeforeStart() {
+        ChessSearch search = new ChessSearch();
+        search.stop();
+        Assertions.assertNull(search.search(new ChessGame(), 4, 0));
+        Assertions.assertNotNull(search.search(new ChessGame(), 2, 0), "Stop carried over to a later search");
+    }
+
+    @Test
+    @DisplayName("Stop Aimed At A Search Stops Only That Search")
+    public void targetedStop() {
+        ChessSearch search = new ChessSearch();
+        long first = search.getNextSearchId();
+        search.stop(first);
+        Assertions.assertNull(search.search(new ChessGame(), 4, 0));
+
+        long second = search.getNextSearchId();
+        Assertions.assertNotNull(search.search(new ChessGame(), 2, 0));
+        search.stop(second); // Arrives after its search finished
+        Assertions.assertNotNull(search.search(new ChessGame(), 2, 0), "Late stop hit the following search");
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+}
@@ -0,0 +1,67 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MakeMoveTests {
+
+    @Test
+    @DisplayName("Move Out Of Turn Is Rejected")
+    public void outOfTurn() {
+        ChessGame game = new ChessGame();
+        ChessMove blackPush = move(7, 5, 5, 5);
+        Assertions.assertTrue(game.isLegal(blackPush), "The move itself is legal for black");
+        assertRejected(game, blackPush);
+    }
+
+    @Test
+    @DisplayName("Pinned Piece Cannot Leave Its Pin Ray")
+    public void pinnedPiece() throws Exception {
+        // The knight on d2 is pinned to the king on e1 by the bishop on b4
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("4k3/8/8/8/1b6/8/3N4/4K3"));
+        ChessMove knightMove = move(2, 4, 4, 5);
+        Assertions.assertFalse(game.isLegal(knightMove));
+        assertRejected(game, knightMove);
+
+        // A pinned rook may still slide along the pin
+        game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("4r1k1/8/8/8/8/8/4R3/4K3"));
+        assertRejected(game, move(2, 5, 2, 1));
+        game.makeMove(move(2, 5, 8, 5));
+        Assertions.assertEquals(ChessPiece.PieceType.ROOK, game.getBoard().getPiece(new ChessPosition(8, 5)).pieceType());
+    }
+
+    @Test
+    @DisplayName("King Cannot Move Into Check")
+    public void kingIntoCheck() {
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("3rk3/8/8/8/8/8/8/4K3"));
+        assertRejected(game, move(1, 5, 1, 4));
+        // Stepping back along the checking ray stays in check
+        game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("4r2k/8/8/8/4K3/8/8/8"));
+        assertRejected(game, move(4, 5, 3, 5));
+        Assertions.assertTrue(game.isLegal(move(4, 5, 3, 4)));
+    }
+
+    @Test
+    @DisplayName("Check Must Be Answered")
+    public void ignoringCheck() throws Exception {
+        ChessGame game = new ChessGame(ChessGame.TeamColor.WHITE, ChessBoard.fromPlacement("4k3/8/8/8/1b6/8/P7/4K2R"));
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.WHITE));
+        assertRejected(game, move(2, 1, 3, 1));
+        assertRejected(game, move(1, 8, 1, 7));
+        game.makeMove(move(1, 5, 2, 5));
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.getTeamTurn());
+    }
+
+    // Checks that a move is rejected and leaves the board and turn as they were
+    private static void assertRejected(ChessGame game, ChessMove move) {
+        String before = game.toFen(1);
+        Assertions.assertThrows(InvalidMoveException.class, () -> game.makeMove(move));
+        Assertions.assertEquals(before, game.toFen(1), "Rejected move changed the game");
+    }
+
+    private static ChessMove move(int startRow, int startCol, int endRow, int endCol) {
+        return new ChessMove(new ChessPosition(startRow, startCol), new ChessPosition(endRow, endCol), null);
+    }
+}
@@ -0,0 +1,119 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+public class NnueEvaluatorTests {
+    // Above the 257 products an int sum can hold at full activation
+    private static final int HIDDEN_SIZE = 512;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Incremental Accumulators Match Rebuilt Ones Along A Random Game")
+    public void incrementalMatchesRebuild() throws Exception {
+        Random random = new Random(13);
+        short[] featureWeights = new short[NnueNetwork.FEATURE_COUNT * HIDDEN_SIZE];
+        for (int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(161) - 80);
+        }
+        short[] featureBiases = new short[HIDDEN_SIZE];
+        Arrays.fill(featureBiases, (short) 64);
+        short[] outputWeights = new short[2 * HIDDEN_SIZE];
+        for (int i = 0; i < outputWeights.length; i++) {
+            outputWeights[i] = (short) (random.nextInt(129) - 64);
+        }
+        NnueNetwork network = write(featureWeights, featureBiases, outputWeights, 1000);
+
+        ChessGame game = new ChessGame();
+        NnueEvaluator incremental = network.newEvaluator();
+        incremental.reset(game.getBoard());
+        int[] start = scores(incremental);
+        Deque<Runnable> undo = new ArrayDeque<>();
+        for (int ply = 0; ply < 120; ply++) {
+            List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+            if (moves.isEmpty()) {
+                break;
+            }
+            ChessMove move = moves.get(random.nextInt(moves.size()));
+            undo.push(apply(incremental, game.getBoard(), move));
+            game.makeMove(move);
+
+            NnueEvaluator rebuilt = network.newEvaluator();
+            rebuilt.reset(game.getBoard());
+            Assertions.assertArrayEquals(scores(rebuilt), scores(incremental), game.toFen(1));
+        }
+        while (!undo.isEmpty()) {
+            undo.pop().run();
+        }
+        Assertions.assertArrayEquals(start, scores(incremental), "Unmaking every move did not restore the start");
+    }
+
+    @Test
+    @DisplayName("Output Sum Does Not Overflow At Full Activation")
+    public void noOverflow() throws Exception {
+        short[] featureBiases = new short[HIDDEN_SIZE];
+        Arrays.fill(featureBiases, (short) NnueNetwork.ACTIVATION_LIMIT);
+        short[] outputWeights = new short[2 * HIDDEN_SIZE];
+        Arrays.fill(outputWeights, Short.MAX_VALUE);
+        NnueNetwork network = write(new short[NnueNetwork.FEATURE_COUNT * HIDDEN_SIZE], featureBiases, outputWeights, 0);
+
+        NnueEvaluator evaluator = network.newEvaluator();
+        evaluator.reset(new ChessGame().getBoard());
+        // Each half sums to about 4.3e9, which an int sum wraps to a negative number
+        Assertions.assertEquals(ChessSearch.MATE_THRESHOLD - 1, evaluator.evaluate(ChessGame.TeamColor.WHITE));
+    }
+
+    // Reports a move to the evaluator as the search does, returning what reports it unmade
+    private static Runnable apply(Evaluator evaluator, ChessBoard board, ChessMove move) {
+        ChessPiece moved = board.getPiece(move.getStartPosition());
+        ChessPiece captured = board.getPiece(move.getEndPosition());
+        ChessPiece placed = (move.getPromotionPiece() == null) ? moved
+                : new ChessPiece(moved.teamColor(), move.getPromotionPiece());
+        int from = move.getStartPosition().getIndex();
+        int to = move.getEndPosition().getIndex();
+        evaluator.removePiece(moved, from);
+        if (captured != null) {
+            evaluator.removePiece(captured, to);
+        }
+        evaluator.addPiece(placed, to);
+        return () -> {
+            evaluator.removePiece(placed, to);
+            if (captured != null) {
+                evaluator.addPiece(captured, to);
+            }
+            evaluator.addPiece(moved, from);
+        };
+    }
+
+    private static int[] scores(Evaluator evaluator) {
+        return new int[] {evaluator.evaluate(ChessGame.TeamColor.WHITE), evaluator.evaluate(ChessGame.TeamColor.BLACK)};
+    }
+
+    // Writes a network in the file layout NnueNetwork reads and loads it back
+    private NnueNetwork write(short[] featureWeights, short[] featureBiases, short[] outputWeights, int outputBias)
+            throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 2 * (featureWeights.length + featureBiases.length
+                + outputWeights.length) + 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(NnueNetwork.MAGIC).putInt(HIDDEN_SIZE);
+        buffer.asShortBuffer().put(featureWeights).put(featureBiases).put(outputWeights);
+        buffer.position(buffer.capacity() - 4);
+        buffer.putInt(outputBias);
+        Path file = directory.resolve("network.nnue");
+        Files.write(file, buffer.array());
+        return NnueNetwork.load(file);
+    }
+}
@@ -0,0 +1,153 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Counts move trees to check legal move generation. This game has no castling or en
+ * passant, so only counts from positions where neither can happen are comparable with
+ * published perft results; the other positions are checked against a filter that plays
+ * every pseudo-legal move on a copy and looks for check, as move generation did before
+ * the check and pin masks.
+ */
+public class PerftTests {
+
+    @Test
+    @DisplayName("Start Position Perft To Depth 4")
+    public void startPosition() throws Exception {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(20, perft(game, 1));
+        Assertions.assertEquals(400, perft(game, 2));
+        Assertions.assertEquals(8_902, perft(game, 3));
+        Assertions.assertEquals(197_281, perft(game, 4));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+            "Pinned knight and rook, 3kr3/8/8/8/1b6/8/3NR3/4K3, WHITE, 3",
+            "Pinned pawns, k3r3/8/8/b7/7b/2n3p1/3PPP2/4K3, WHITE, 3",
+            "Discovered check, 4k3/8/8/8/4B3/8/8/K3R3, WHITE, 3",
+            "Double check, 4k3/2b5/3N4/8/8/8/8/K3R3, BLACK, 3",
+            "King along checking ray, 4r2k/8/8/8/4K3/8/8/8, WHITE, 3",
+            "Block or capture the checker, 4k3/8/8/1b6/8/8/3P1N2/4K2R, WHITE, 3",
+            "Middle game, r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R, WHITE, 2",
+            "Promotions with checks, n1n5/PPPk4/8/8/8/8/4Kppp/5N1N, BLACK, 3"
+    })
+    @DisplayName("Mask Filter Matches Make And Unmake Filter")
+    public void matchesReference(String name, String placement, ChessGame.TeamColor turn, int depth) throws Exception {
+        ChessGame game = new ChessGame(turn, ChessBoard.fromPlacement(placement));
+        compare(game, depth);
+    }
+
+    @Test
+    @DisplayName("Mask Filter Matches Along Random Games")
+    public void randomGames() throws Exception {
+        Random random = new Random(11);
+        for (int gameNumber = 0; gameNumber < 20; gameNumber++) {
+            ChessGame game = new ChessGame();
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+                Assertions.assertEquals(new HashSet<>(referenceMoves(game)), new HashSet<>(moves),
+                        game.getBoard().toPlacement());
+                if (moves.isEmpty()) {
+                    break;
+                }
+                game.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Cached Masks Follow Every Board Change")
+    public void cachedMasks() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessPosition pawn = new ChessPosition(2, 5);
+        Assertions.assertEquals(maskOf(3, 5) | maskOf(4, 5), game.getLegalDestinations(pawn));
+
+        // Written through the board, bypassing the game
+        game.getBoard().addPiece(new ChessPosition(3, 5),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertEquals(0, game.getLegalDestinations(pawn));
+
+        game.testMove(new ChessMove(new ChessPosition(3, 5), new ChessPosition(5, 4), null));
+        Assertions.assertEquals(maskOf(3, 5) | maskOf(4, 5), game.getLegalDestinations(pawn));
+
+        Random random = new Random(12);
+        game = new ChessGame();
+        for (int ply = 0; ply < 80; ply++) {
+            long[] expected = new long[64];
+            for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+                for (ChessMove move : referenceMoves(game, color)) {
+                    expected[move.getStartPosition().getIndex()] |= 1L << move.getEndPosition().getIndex();
+                }
+            }
+            Assertions.assertArrayEquals(expected, game.getLegalMoveMasks(), game.toFen(1));
+            List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+            if (moves.isEmpty()) {
+                break;
+            }
+            game.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    private static long maskOf(int row, int column) {
+        return 1L << new ChessPosition(row, column).getIndex();
+    }
+
+    // Counts the leaf positions of the move tree, counting the last ply without playing it
+    private static long perft(ChessGame game, int depth) throws Exception {
+        List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+        if (depth == 1) {
+            return moves.size();
+        }
+        long nodes = 0;
+        for (ChessMove move : moves) {
+            ChessGame child = game.copy();
+            child.makeMove(move);
+            nodes += perft(child, depth - 1);
+        }
+        return nodes;
+    }
+
+    // Checks the two filters agree at every node of the move tree
+    private static void compare(ChessGame game, int depth) throws Exception {
+        List<ChessMove> moves = game.teamValidMoves(game.getTeamTurn());
+        Assertions.assertEquals(new HashSet<>(referenceMoves(game)), new HashSet<>(moves),
+                game.toFen(1));
+        if (depth == 1) {
+            return;
+        }
+        for (ChessMove move : moves) {
+            ChessGame child = game.copy();
+            child.makeMove(move);
+            compare(child, depth - 1);
+        }
+    }
+
+    // Legal moves found by playing each pseudo-legal move on a copy and looking for check
+    private static List<ChessMove> referenceMoves(ChessGame game) {
+        return referenceMoves(game, game.getTeamTurn());
+    }
+
+    private static List<ChessMove> referenceMoves(ChessGame game, ChessGame.TeamColor color) {
+        List<ChessMove> legal = new ArrayList<>();
+        for (ChessPosition position : game.getTeamPositions(color)) {
+            for (ChessMove move : game.getBoard().getPiece(position).pieceMoves(game.getBoard(), position)) {
+                ChessGame trial = game.copy();
+                trial.testMove(move);
+                if (!trial.isInCheck(color)) {
+                    legal.add(move);
+                }
+            }
+        }
+        return legal;
+    }
+}
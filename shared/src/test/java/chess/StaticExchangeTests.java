@@ -0,0 +1,58 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StaticExchangeTests {
+
+    @Test
+    @DisplayName("Pawn Takes Defended Knight")
+    public void pawnTakesDefendedKnight() {
+        // exd5 wins the knight, and e6xd5 wins back only the pawn
+        ChessBoard board = ChessBoard.fromPlacement("6k1/8/4p3/3n4/4P3/8/8/6K1");
+        Assertions.assertEquals(320 - 100, board.staticExchangeEvaluation(move(4, 5, 5, 4)));
+    }
+
+    @Test
+    @DisplayName("Rook Battery Sees Through The Front Rook")
+    public void xrayRookBattery() {
+        // Rxd5 wins a pawn; Rd8xd5 would lose the rook to the d1 rook behind, so black does not recapture
+        ChessBoard board = ChessBoard.fromPlacement("3r3k/8/8/3p4/8/8/3R4/3R3K");
+        Assertions.assertEquals(100, board.staticExchangeEvaluation(move(2, 4, 5, 4)));
+
+        // Without the rook behind, the recapture costs white the rook
+        board = ChessBoard.fromPlacement("3r3k/8/8/3p4/8/8/3R4/7K");
+        Assertions.assertEquals(100 - 500, board.staticExchangeEvaluation(move(2, 4, 5, 4)));
+    }
+
+    @Test
+    @DisplayName("Queen Takes Pawn Defended By Pawn")
+    public void losingQueenCapture() {
+        ChessBoard board = ChessBoard.fromPlacement("6k1/8/4p3/3p4/8/8/8/3Q2K1");
+        Assertions.assertEquals(100 - 900, board.staticExchangeEvaluation(move(1, 4, 5, 4)));
+    }
+
+    @Test
+    @DisplayName("Losing Capture Is Ordered After Killer Moves")
+    public void losingCaptureOrder() {
+        ChessBoard board = ChessBoard.fromPlacement("6k1/8/4p3/3p4/4P3/8/8/3Q2K1");
+        ChessMove queenTakes = move(1, 4, 5, 4);
+        ChessMove queenQuiet = move(1, 4, 2, 4);
+        ChessMove killer = move(1, 7, 1, 8);
+        ChessMove pawnTakes = move(4, 5, 5, 4);
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.recordKiller(killer, 0);
+
+        List<ChessMove> moves = new ArrayList<>(List.of(queenTakes, queenQuiet, killer, pawnTakes));
+        ordering.orderMoves(board, moves, 0);
+        Assertions.assertEquals(List.of(pawnTakes, killer, queenTakes, queenQuiet), moves);
+    }
+
+    private static ChessMove move(int fromRow, int fromColumn, int toRow, int toColumn) {
+        return new ChessMove(new ChessPosition(fromRow, fromColumn), new ChessPosition(toRow, toColumn), null);
+    }
+}
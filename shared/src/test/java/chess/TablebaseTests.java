@@ -0,0 +1,99 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+public class TablebaseTests {
+    @TempDir
+    static Path directory;
+
+    private static Tablebases tablebases;
+    private static EndgameTablebase queenTable;
+    private static EndgameTablebase rookTable;
+
+    @BeforeAll
+    public static void generate() throws Exception {
+        tablebases = new Tablebases();
+        TablebaseGenerator generator = new TablebaseGenerator(directory, tablebases, ForkJoinPool.commonPool());
+        queenTable = generator.generate("KQvK");
+        rookTable = generator.generate("KRvK");
+    }
+
+    @Test
+    @DisplayName("Tables Index Canonical King Pairs")
+    public void tableSizes() {
+        Assertions.assertEquals(2L * 462 * 62, EndgameTablebase.positionCount(Tablebases.parseSignature("KQvK")));
+        Assertions.assertEquals(2L * 462 * 62 * 61, EndgameTablebase.positionCount(Tablebases.parseSignature("KRvKN")));
+        Assertions.assertEquals(2L * 1806 * 62, EndgameTablebase.positionCount(Tablebases.parseSignature("KPvK")));
+    }
+
+    @Test
+    @DisplayName("Position Index Round Trips")
+    public void indexRoundTrip() {
+        for (String signature : new String[] {"KRvK", "KPvK", "KRRvK"}) {
+            ChessPiece[] slots = Tablebases.parseSignature(signature);
+            int[] squares = new int[slots.length];
+            long count = EndgameTablebase.positionCount(slots);
+            for (long index = 0; index < count; index += 7) {
+                ChessGame.TeamColor side = EndgameTablebase.squaresOf(index, slots, squares);
+                Assertions.assertEquals(index, EndgameTablebase.indexOf(squares, side, slots), signature);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Results")
+    public void longestMates() {
+        // The longest KQvK mate is 10 moves and the longest KRvK mate 16, so 19 and 31 plies for white to move
+        Assertions.assertEquals(19, longestWhiteWin(queenTable));
+        Assertions.assertEquals(31, longestWhiteWin(rookTable));
+    }
+
+    @Test
+    @DisplayName("Probes Give Known Mate Distances")
+    public void probes() {
+        ChessBoard mateInOne = board(new int[] {6, 6}, new int[] {1, 7}, new int[] {8, 8});
+        Assertions.assertEquals(1, tablebases.probe(mateInOne, ChessGame.TeamColor.WHITE));
+
+        ChessBoard mated = board(new int[] {6, 7}, new int[] {7, 7}, new int[] {8, 8});
+        Assertions.assertEquals(-1, tablebases.probe(mated, ChessGame.TeamColor.BLACK));
+
+        ChessBoard stalemate = board(new int[] {7, 6}, new int[] {6, 7}, new int[] {8, 8});
+        Assertions.assertEquals(0, tablebases.probe(stalemate, ChessGame.TeamColor.BLACK));
+
+        // The mate in one with the colors swapped is read from the same table
+        ChessBoard flipped = new ChessBoard();
+        flipped.addPiece(new ChessPosition(3, 6), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        flipped.addPiece(new ChessPosition(8, 7), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        flipped.addPiece(new ChessPosition(1, 8), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        Assertions.assertEquals(1, tablebases.probe(flipped, ChessGame.TeamColor.BLACK));
+    }
+
+    // Method to build a KQvK board from the rank and file of the white king, white queen and black king
+    private static ChessBoard board(int[] whiteKing, int[] whiteQueen, int[] blackKing) {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(whiteKing[0], whiteKing[1]),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(whiteQueen[0], whiteQueen[1]),
+                new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        board.addPiece(new ChessPosition(blackKing[0], blackKing[1]),
+                new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        return board;
+    }
+
+    // White to move comes first in a table, so the first half holds those positions
+    private static int longestWhiteWin(EndgameTablebase table) {
+        ChessPiece[] slots = Tablebases.parseSignature(table.getSignature());
+        int longest = 0;
+        for (long index = 0; index < EndgameTablebase.positionCount(slots) / 2; index++) {
+            longest = Math.max(longest, table.valueAt(index));
+        }
+        return longest;
+    }
+}